@@ -0,0 +1,150 @@
+package com.devportal.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends authenticated requests. With email and password the session logs in lazily and keeps the
+ * server's token cookies; a 401 triggers one {@code /api/auth/refresh} (or a new login when the
+ * refresh token is gone too) and a single retry. With a token supplier every request carries
+ * {@code Authorization: Bearer} and a 401 retries once with a freshly supplied token.
+ */
+final class AuthSession {
+
+    /** Without a trailing slash; may include a path prefix such as {@code https://host/devportal}. */
+    private final String baseUrl;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final String email;
+    private final String password;
+    private final Supplier<String> bearerToken;
+
+    /** Bumped on every renewal, so concurrent 401s renew once. */
+    private long generation;
+    private boolean loggedIn;
+
+    AuthSession(String baseUrl, ObjectMapper objectMapper, Duration connectTimeout, Duration requestTimeout,
+                String email, String password, Supplier<String> bearerToken) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.requestTimeout = requestTimeout;
+        this.email = email;
+        this.password = password;
+        this.bearerToken = bearerToken;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ORIGINAL_SERVER))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * Sends a GET to {@code path} and returns the response; the body is left for the caller to consume.
+     */
+    HttpResponse<InputStream> get(String path, Map<String, String> headers) {
+        long seen = ensureLoggedIn();
+        HttpResponse<InputStream> response = send(path, headers);
+        if (response.statusCode() != 401) {
+            return response;
+        }
+        discard(response);
+        renew(seen);
+        return send(path, headers);
+    }
+
+    private HttpResponse<InputStream> send(String path, Map<String, String> headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .timeout(requestTimeout)
+                .GET();
+        headers.forEach(request::header);
+        if (bearerToken != null) {
+            request.header("Authorization", "Bearer " + bearerToken.get());
+        }
+        return exchange(request.build());
+    }
+
+    private synchronized long ensureLoggedIn() {
+        if (bearerToken == null && !loggedIn) {
+            login();
+            loggedIn = true;
+            generation++;
+        }
+        return generation;
+    }
+
+    private synchronized void renew(long seen) {
+        if (generation != seen) {
+            return; // another request renewed meanwhile
+        }
+        if (bearerToken == null && !refresh()) {
+            login();
+        }
+        generation++;
+    }
+
+    private boolean refresh() {
+        HttpResponse<InputStream> response = exchange(HttpRequest.newBuilder(uri("/api/auth/refresh"))
+                .timeout(requestTimeout)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+        discard(response);
+        return response.statusCode() == 200;
+    }
+
+    private void login() {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Map.of("email", email, "password", password));
+        } catch (IOException e) {
+            throw new DevPortalException("Could not encode login request", e);
+        }
+        HttpResponse<InputStream> response = exchange(HttpRequest.newBuilder(uri("/api/auth/login"))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build());
+        discard(response);
+        if (response.statusCode() != 200) {
+            throw DevPortalClient.failure("Login failed", response);
+        }
+    }
+
+    private HttpResponse<InputStream> exchange(HttpRequest request) {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new DevPortalException("Request to " + request.uri() + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DevPortalException("Interrupted", e);
+        }
+    }
+
+    /**
+     * Appends the absolute API path to the base URL; {@code URI.resolve} would drop a path prefix.
+     */
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    static void discard(HttpResponse<InputStream> response) {
+        try (InputStream body = response.body()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException ignored) {
+            // the connection is not reused then
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.devportal.client;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A project's decrypted values as last received from the server.
+ *
+ * @param etag      the server's ETag for these values, sent back as {@code If-None-Match}
+ * @param fetchedAt when the server last confirmed these values (200 or 304)
+ */
+public record CredentialBundle(String etag, Instant fetchedAt, Map<String, String> values) {
+
+    public CredentialBundle {
+        values = Map.copyOf(values);
+    }
+
+    CredentialBundle confirmedAt(Instant at) {
+        return new CredentialBundle(etag, at, values);
+    }
+}
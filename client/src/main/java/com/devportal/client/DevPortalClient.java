@@ -0,0 +1,449 @@
+package com.devportal.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a project's credentials from DevPortal through the bundle endpoint
+ * ({@code GET /api/envs/{envId}/projects/{projectId}/credentials/bundle}).
+ * <p>
+ * Values are cached, on disk encrypted when {@link Builder#cacheDirectory(Path) a directory} is
+ * set. A cached bundle younger than the refresh interval is returned as is; an older one is
+ * returned immediately while it is revalidated in the background with {@code If-None-Match}, so
+ * an unchanged project costs the server a 304 and nothing is decrypted. Only a project that was
+ * never fetched, or whose cache is older than {@link Builder#maxStale(Duration) max-stale}, waits
+ * for the server. If the server cannot be reached the cached values keep being served.
+ * <pre>{@code
+ * DevPortalClient client = DevPortalClient.builder()
+ *         .baseUrl("https://devportal.example.com")
+ *         .credentials(email, password)
+ *         .cacheDirectory(Path.of("/var/cache/my-service/devportal"))
+ *         .cacheKey(keyBytes)
+ *         .build();
+ * String url = client.get(envId, projectId, "DATABASE_URL").orElseThrow();
+ * }</pre>
+ * Instances are thread-safe; share one per process and {@link #close()} it on shutdown.
+ */
+public final class DevPortalClient implements AutoCloseable {
+
+    private static final TypeReference<Map<String, String>> VALUES = new TypeReference<>() {
+    };
+
+    private final String baseUrl;
+    private final AuthSession session;
+    private final EncryptedFileCache cache;
+    private final ObjectMapper objectMapper;
+    private final Duration refreshInterval;
+    private final Duration maxStale;
+    private final double jitter;
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    private final Map<String, CompletableFuture<CredentialBundle>> inFlight = new ConcurrentHashMap<>();
+
+    private DevPortalClient(Builder builder) {
+        this.baseUrl = builder.baseUrl.replaceAll("/+$", "");
+        this.objectMapper = new ObjectMapper();
+        this.session = new AuthSession(baseUrl, objectMapper, builder.connectTimeout,
+                builder.requestTimeout, builder.email, builder.password, builder.bearerToken);
+        this.cache = new EncryptedFileCache(builder.cacheDirectory, builder.cacheKey, objectMapper);
+        this.refreshInterval = builder.refreshInterval;
+        this.maxStale = builder.maxStale;
+        this.jitter = builder.jitter;
+        this.clock = builder.clock;
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(builder.threads, runnable -> {
+            Thread thread = new Thread(runnable, "devportal-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        this.executor = pool;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * All credentials of the project, keyed by credential key.
+     *
+     * @throws DevPortalException if nothing usable is cached and the server cannot deliver
+     */
+    public Map<String, String> getAll(UUID envId, UUID projectId) {
+        return bundle(envId, projectId).values();
+    }
+
+    public Optional<String> get(UUID envId, UUID projectId, String key) {
+        return Optional.ofNullable(getAll(envId, projectId).get(key));
+    }
+
+    /**
+     * The cached bundle, revalidated as described on the class.
+     */
+    public CredentialBundle bundle(UUID envId, UUID projectId) {
+        String id = EncryptedFileCache.id(baseUrl, envId.toString(), projectId.toString());
+        CredentialBundle cached = cache.get(id).orElse(null);
+        if (cached == null) {
+            return join(revalidate(id, envId, projectId));
+        }
+        Duration age = Duration.between(cached.fetchedAt(), clock.instant());
+        if (age.compareTo(refreshInterval) < 0) {
+            return cached;
+        }
+        CompletableFuture<CredentialBundle> revalidation = revalidate(id, envId, projectId);
+        if (maxStale != null && age.compareTo(maxStale) >= 0) {
+            try {
+                return join(revalidation);
+            } catch (DevPortalException e) {
+                throw new DevPortalException("Cached credentials are older than max-stale and the server failed: "
+                        + e.getMessage(), e.getStatus(), e.getRetryAfterSeconds());
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Revalidates the project every refresh interval, spread by the configured jitter so that a
+     * fleet started together does not refresh together, and calls {@code onChange} whenever the
+     * values differ from those cached when subscribing. Failures are retried on the next tick, or after the server's {@code Retry-After}.
+     */
+    public Subscription subscribe(UUID envId, UUID projectId, Consumer<Map<String, String>> onChange) {
+        Objects.requireNonNull(onChange, "onChange");
+        String id = EncryptedFileCache.id(baseUrl, envId.toString(), projectId.toString());
+        Refresher refresher = new Refresher(id, envId, projectId, onChange);
+        refresher.schedule(jittered(refreshInterval));
+        return refresher;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts a conditional fetch, or joins the one already running for the project.
+     */
+    private CompletableFuture<CredentialBundle> revalidate(String id, UUID envId, UUID projectId) {
+        CompletableFuture<CredentialBundle> started = new CompletableFuture<>();
+        CompletableFuture<CredentialBundle> running = inFlight.putIfAbsent(id, started);
+        if (running != null) {
+            return running;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    started.complete(fetch(id, envId, projectId));
+                } catch (RuntimeException e) {
+                    started.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(id, started);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(id, started);
+            started.completeExceptionally(new DevPortalException("Client is closed", e));
+        }
+        return started;
+    }
+
+    private CredentialBundle fetch(String id, UUID envId, UUID projectId) {
+        CredentialBundle previous = cache.get(id).orElse(null);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept", "application/json");
+        headers.put("Accept-Encoding", "gzip");
+        if (previous != null && previous.etag() != null) {
+            headers.put("If-None-Match", previous.etag());
+        }
+        HttpResponse<InputStream> response = session.get(
+                "/api/envs/" + envId + "/projects/" + projectId + "/credentials/bundle?format=json", headers);
+        Instant now = clock.instant();
+        if (response.statusCode() == 304 && previous != null) {
+            AuthSession.discard(response);
+            CredentialBundle confirmed = previous.confirmedAt(now);
+            cache.put(id, confirmed);
+            return confirmed;
+        }
+        if (response.statusCode() != 200) {
+            throw failure("Fetching credentials failed", response);
+        }
+        Map<String, String> values;
+        try (InputStream body = decoded(response)) {
+            values = objectMapper.readValue(body, VALUES);
+        } catch (IOException e) {
+            throw new DevPortalException("Could not read credentials response", e);
+        }
+        CredentialBundle fetched = new CredentialBundle(response.headers().firstValue("ETag").orElse(null),
+                now, values);
+        cache.put(id, fetched);
+        return fetched;
+    }
+
+    private static InputStream decoded(HttpResponse<InputStream> response) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    static DevPortalException failure(String message, HttpResponse<InputStream> response) {
+        AuthSession.discard(response);
+        long retryAfter = response.headers().firstValue("Retry-After").map(value -> {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        }).orElse(0L);
+        return new DevPortalException(message + " (HTTP " + response.statusCode() + ")",
+                response.statusCode(), retryAfter);
+    }
+
+    private static CredentialBundle join(CompletableFuture<CredentialBundle> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (unwrap(e) instanceof DevPortalException failure) {
+                throw failure;
+            }
+            throw new DevPortalException("Fetching credentials failed", unwrap(e));
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private Duration jittered(Duration interval) {
+        double factor = 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        return Duration.ofMillis(Math.max(1, (long) (interval.toMillis() * factor)));
+    }
+
+    /**
+     * A background refresh started by {@link #subscribe}; closing it stops further refreshes.
+     */
+    public interface Subscription extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final class Refresher implements Subscription {
+
+        private final String id;
+        private final UUID envId;
+        private final UUID projectId;
+        private final Consumer<Map<String, String>> onChange;
+        private volatile boolean closed;
+        private String lastEtag;
+
+        private Refresher(String id, UUID envId, UUID projectId, Consumer<Map<String, String>> onChange) {
+            this.id = id;
+            this.envId = envId;
+            this.projectId = projectId;
+            this.onChange = onChange;
+            this.lastEtag = cache.get(id).map(CredentialBundle::etag).orElse(null);
+        }
+
+        private void schedule(Duration delay) {
+            if (closed || executor.isShutdown()) {
+                return;
+            }
+            try {
+                executor.schedule(this::tick, delay.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                closed = true; // executor shut down
+            }
+        }
+
+        private void tick() {
+            if (closed) {
+                return;
+            }
+            // Completes on the fetching thread; blocking here could starve the pool
+            revalidate(id, envId, projectId).whenComplete((bundle, error) -> {
+                Duration next = jittered(refreshInterval);
+                if (error == null) {
+                    notifyIfChanged(bundle);
+                } else if (unwrap(error) instanceof DevPortalException failure && failure.getRetryAfterSeconds() > 0) {
+                    next = Duration.ofSeconds(failure.getRetryAfterSeconds()).plus(jittered(Duration.ofSeconds(1)));
+                }
+                schedule(next);
+            });
+        }
+
+        private synchronized void notifyIfChanged(CredentialBundle bundle) {
+            if (closed || Objects.equals(bundle.etag(), lastEtag)) {
+                return;
+            }
+            lastEtag = bundle.etag();
+            try {
+                onChange.accept(bundle.values());
+            } catch (RuntimeException e) {
+                // a failing listener must not stop the refresh
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    public static final class Builder {
+
+        private String baseUrl;
+        private String email;
+        private String password;
+        private Supplier<String> bearerToken;
+        private Path cacheDirectory;
+        private byte[] cacheKey;
+        private Duration refreshInterval = Duration.ofMinutes(1);
+        private Duration maxStale;
+        private double jitter = 0.2;
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private int threads = 2;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        /**
+         * Server root, optionally with a path prefix when served behind a proxy, e.g.
+         * {@code https://host/devportal}.
+         */
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * Logs in through {@code /api/auth/login} and keeps the session alive with {@code /api/auth/refresh}.
+         */
+        public Builder credentials(String email, String password) {
+            this.email = email;
+            this.password = password;
+            return this;
+        }
+
+        /**
+         * Sends {@code Authorization: Bearer} with the supplied token instead of logging in. The
+         * supplier is called for every request, so it can rotate the token.
+         */
+        public Builder bearerToken(Supplier<String> bearerToken) {
+            this.bearerToken = bearerToken;
+            return this;
+        }
+
+        /**
+         * Persists the cache here, encrypted with {@link #cacheKey(byte[])}, so a restarted service
+         * starts from its last values even when DevPortal is unreachable. Without it the cache is
+         * in memory only.
+         */
+        public Builder cacheDirectory(Path cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+
+        /**
+         * AES key (16, 24 or 32 bytes) for the on-disk cache. Keep it outside the cache directory.
+         */
+        public Builder cacheKey(byte[] cacheKey) {
+            this.cacheKey = cacheKey != null ? cacheKey.clone() : null;
+            return this;
+        }
+
+        /**
+         * How long fetched values are served without asking the server. Default one minute.
+         */
+        public Builder refreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        /**
+         * Age after which cached values are no longer served without a successful revalidation.
+         * Default: none, stale values are served for as long as the server is unreachable.
+         */
+        public Builder maxStale(Duration maxStale) {
+            this.maxStale = maxStale;
+            return this;
+        }
+
+        /**
+         * Fraction (0 to 1) by which each background refresh delay is randomly shortened or
+         * lengthened. Default 0.2.
+         */
+        public Builder jitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * Threads used for background revalidation and subscriptions. Default 2.
+         */
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public DevPortalClient build() {
+            if (baseUrl == null || baseUrl.isBlank()) {
+                throw new IllegalArgumentException("baseUrl is required");
+            }
+            if ((email == null || password == null) == (bearerToken == null)) {
+                throw new IllegalArgumentException("Exactly one of credentials or bearerToken is required");
+            }
+            if (refreshInterval == null || refreshInterval.isNegative() || refreshInterval.isZero()) {
+                throw new IllegalArgumentException("refreshInterval must be positive");
+            }
+            if (maxStale != null && maxStale.compareTo(refreshInterval) < 0) {
+                throw new IllegalArgumentException("maxStale must not be shorter than refreshInterval");
+            }
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1");
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("threads must be at least 1");
+            }
+            return new DevPortalClient(this);
+        }
+    }
+}
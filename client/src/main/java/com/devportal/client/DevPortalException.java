@@ -0,0 +1,36 @@
+package com.devportal.client;
+
+/**
+ * A request to DevPortal failed, either with an HTTP error status or before a response arrived
+ * ({@link #getStatus()} is 0 then).
+ */
+public class DevPortalException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final long retryAfterSeconds;
+
+    public DevPortalException(String message, int status, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public DevPortalException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = 0;
+        this.retryAfterSeconds = 0;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Seconds the server asked the client to wait (429 / 503), or 0.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,177 @@
+package com.devportal.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last bundle of each project in memory and, when a directory is configured, on disk as
+ * one AES-GCM file per project. The file name is a hash of server and project, and the same
+ * identity is bound into the ciphertext, so a file copied to another name does not decrypt.
+ * Unreadable files are treated as absent.
+ */
+final class EncryptedFileCache {
+
+    private static final byte[] MAGIC = "DPC1".getBytes(StandardCharsets.US_ASCII);
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final Path directory;
+    private final SecretKeySpec key;
+    private final ObjectMapper objectMapper;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, CredentialBundle> memory = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory where files are kept, or null for an in-memory cache
+     * @param key       16, 24 or 32 bytes; required with a directory
+     */
+    EncryptedFileCache(Path directory, byte[] key, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        if (directory == null) {
+            this.key = null;
+            return;
+        }
+        if (key == null || (key.length != 16 && key.length != 24 && key.length != 32)) {
+            throw new IllegalArgumentException("Cache key must be 16, 24 or 32 bytes");
+        }
+        this.key = new SecretKeySpec(key, "AES");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot create cache directory " + directory, e);
+        }
+    }
+
+    Optional<CredentialBundle> get(String id) {
+        CredentialBundle cached = memory.get(id);
+        if (cached != null || directory == null) {
+            return Optional.ofNullable(cached);
+        }
+        CredentialBundle loaded = read(id);
+        if (loaded != null) {
+            memory.putIfAbsent(id, loaded);
+        }
+        return Optional.ofNullable(loaded);
+    }
+
+    void put(String id, CredentialBundle bundle) {
+        memory.put(id, bundle);
+        if (directory != null) {
+            write(id, bundle);
+        }
+    }
+
+    /**
+     * Cache identity of a project on a server.
+     */
+    static String id(String baseUrl, String envId, String projectId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((baseUrl + "|" + envId + "|" + projectId).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private CredentialBundle read(String id) {
+        byte[] file;
+        try {
+            file = Files.readAllBytes(path(id));
+        } catch (IOException e) {
+            return null;
+        }
+        if (file.length < MAGIC.length + IV_LENGTH
+                || !Arrays.equals(Arrays.copyOf(file, MAGIC.length), MAGIC)) {
+            return null;
+        }
+        byte[] plaintext = null;
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, file, MAGIC.length, IV_LENGTH));
+            cipher.updateAAD(id.getBytes(StandardCharsets.US_ASCII));
+            int offset = MAGIC.length + IV_LENGTH;
+            plaintext = cipher.doFinal(file, offset, file.length - offset);
+            Entry entry = objectMapper.readValue(plaintext, Entry.class);
+            return new CredentialBundle(entry.etag(), Instant.ofEpochMilli(entry.fetchedAt()), entry.values());
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            return null;
+        } finally {
+            if (plaintext != null) {
+                Arrays.fill(plaintext, (byte) 0);
+            }
+        }
+    }
+
+    private void write(String id, CredentialBundle bundle) {
+        byte[] plaintext = null;
+        try {
+            plaintext = objectMapper.writeValueAsBytes(
+                    new Entry(bundle.etag(), bundle.fetchedAt().toEpochMilli(), bundle.values()));
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(id.getBytes(StandardCharsets.US_ASCII));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            byte[] file = ByteBuffer.allocate(MAGIC.length + iv.length + ciphertext.length)
+                    .put(MAGIC).put(iv).put(ciphertext).array();
+
+            Path temp = Files.createTempFile(directory, id, ".tmp");
+            try {
+                restrict(temp);
+                Files.write(temp, file);
+                try {
+                    Files.move(temp, path(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path(id), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (GeneralSecurityException | IOException e) {
+            // The in-memory copy is still served; the next fetch tries again
+        } finally {
+            if (plaintext != null) {
+                Arrays.fill(plaintext, (byte) 0);
+            }
+        }
+    }
+
+    private Path path(String id) {
+        return directory.resolve(id + ".cache");
+    }
+
+    private static void restrict(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        }
+    }
+
+    private record Entry(String etag, long fetchedAt, Map<String, String> values) {
+    }
+}
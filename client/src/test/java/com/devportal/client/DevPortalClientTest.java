@@ -0,0 +1,254 @@
+package com.devportal.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DevPortalClientTest {
+
+    private static final byte[] CACHE_KEY = new byte[32];
+
+    @TempDir
+    Path cacheDirectory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-01T12:00:00Z"), ZoneOffset.UTC);
+    private final UUID envId = UUID.randomUUID();
+    private final UUID projectId = UUID.randomUUID();
+    private final BlockingQueue<HttpExchange> requests = new LinkedBlockingQueue<>();
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+    private final CredentialBundle cached = new CredentialBundle("\"etag-1\"", Instant.EPOCH, Map.of("KEY", "cached"));
+
+    private volatile Responder responder = exchange -> respond(exchange, 500, null, new byte[0]);
+    private HttpServer server;
+    private String baseUrl;
+    private DevPortalClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            requests.add(exchange);
+            responder.respond(exchange);
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stop() {
+        if (client != null) {
+            client.close();
+        }
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void freshCacheIsServedWithoutAskingTheServer() {
+        cacheAged(Duration.ofSeconds(30));
+        client = client(null);
+
+        CredentialBundle bundle = client.bundle(envId, projectId);
+
+        assertEquals(Map.of("KEY", "cached"), bundle.values());
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void staleCacheIsServedWhileRevalidatingInTheBackground() throws Exception {
+        cacheAged(Duration.ofMinutes(5));
+        CountDownLatch release = new CountDownLatch(1);
+        responder = exchange -> {
+            await(release);
+            respond(exchange, 304, null, new byte[0]);
+        };
+        client = client(null);
+
+        CredentialBundle bundle = client.bundle(envId, projectId);
+
+        assertEquals(Map.of("KEY", "cached"), bundle.values());
+        HttpExchange revalidation = requests.poll(5, TimeUnit.SECONDS);
+        assertNotNull(revalidation);
+        assertEquals("\"etag-1\"", revalidation.getRequestHeaders().getFirst("If-None-Match"));
+        assertEquals("Bearer token", revalidation.getRequestHeaders().getFirst("Authorization"));
+        assertEquals("/api/envs/" + envId + "/projects/" + projectId + "/credentials/bundle",
+                revalidation.getRequestURI().getPath());
+
+        release.countDown();
+        // The 304 renews the cached copy, so the next read is fresh again
+        assertEquals(clock.instant(), awaitCachedAt(clock.instant()));
+        assertEquals(Map.of("KEY", "cached"), client.bundle(envId, projectId).values());
+        assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void staleCacheIsServedWhenTheServerFails() throws Exception {
+        cacheAged(Duration.ofHours(3));
+        client = client(null);
+
+        assertEquals(Map.of("KEY", "cached"), client.bundle(envId, projectId).values());
+        assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("KEY", "cached"), client.bundle(envId, projectId).values());
+    }
+
+    @Test
+    void cacheOlderThanMaxStaleWaitsForTheServer() {
+        cacheAged(Duration.ofHours(2));
+        responder = exchange -> respond(exchange, 200, "\"etag-2\"", gzip("{\"KEY\":\"fresh\"}"));
+        client = client(Duration.ofHours(1));
+
+        CredentialBundle bundle = client.bundle(envId, projectId);
+
+        assertEquals(Map.of("KEY", "fresh"), bundle.values());
+        assertEquals("\"etag-2\"", bundle.etag());
+        assertEquals(clock.instant(), bundle.fetchedAt());
+    }
+
+    @Test
+    void cacheOlderThanMaxStaleFailsWithTheServer() {
+        cacheAged(Duration.ofHours(2));
+        responder = exchange -> {
+            exchange.getResponseHeaders().set("Retry-After", "7");
+            respond(exchange, 503, null, new byte[0]);
+        };
+        client = client(Duration.ofHours(1));
+
+        DevPortalException e = assertThrows(DevPortalException.class, () -> client.bundle(envId, projectId));
+
+        assertEquals(503, e.getStatus());
+        assertEquals(7, e.getRetryAfterSeconds());
+        assertTrue(e.getMessage().contains("max-stale"), e.getMessage());
+    }
+
+    @Test
+    void cacheYoungerThanMaxStaleIsStillServedWhenTheServerFails() {
+        cacheAged(Duration.ofMinutes(30));
+        client = client(Duration.ofHours(1));
+
+        assertEquals(Map.of("KEY", "cached"), client.bundle(envId, projectId).values());
+    }
+
+    @Test
+    void emptyCacheWaitsForTheServer() throws Exception {
+        responder = exchange -> respond(exchange, 200, "\"etag-3\"",
+                "{\"A\":\"1\",\"B\":\"2\"}".getBytes(StandardCharsets.UTF_8));
+        client = client(null);
+
+        CredentialBundle bundle = client.bundle(envId, projectId);
+
+        assertEquals(Map.of("A", "1", "B", "2"), bundle.values());
+        assertNull(requests.take().getRequestHeaders().getFirst("If-None-Match"));
+        assertEquals(bundle, new EncryptedFileCache(cacheDirectory, CACHE_KEY, objectMapper).get(cacheId()).orElseThrow());
+    }
+
+    @Test
+    void emptyCacheFailsWithTheServer() {
+        client = client(null);
+
+        DevPortalException e = assertThrows(DevPortalException.class, () -> client.bundle(envId, projectId));
+
+        assertEquals(500, e.getStatus());
+    }
+
+    private DevPortalClient client(Duration maxStale) {
+        return DevPortalClient.builder()
+                .baseUrl(baseUrl + "/")
+                .bearerToken(() -> "token")
+                .cacheDirectory(cacheDirectory)
+                .cacheKey(CACHE_KEY)
+                .refreshInterval(Duration.ofMinutes(1))
+                .maxStale(maxStale)
+                .clock(clock)
+                .build();
+    }
+
+    private void cacheAged(Duration age) {
+        new EncryptedFileCache(cacheDirectory, CACHE_KEY, objectMapper)
+                .put(cacheId(), cached.confirmedAt(clock.instant().minus(age)));
+    }
+
+    private String cacheId() {
+        return EncryptedFileCache.id(baseUrl, envId.toString(), projectId.toString());
+    }
+
+    /**
+     * Polls the on-disk cache until it records {@code expected}, as written by a background fetch.
+     */
+    private Instant awaitCachedAt(Instant expected) throws InterruptedException {
+        Instant cachedAt = null;
+        for (int i = 0; i < 100 && !expected.equals(cachedAt); i++) {
+            Thread.sleep(50);
+            cachedAt = new EncryptedFileCache(cacheDirectory, CACHE_KEY, objectMapper).get(cacheId())
+                    .map(CredentialBundle::fetchedAt).orElse(null);
+        }
+        return cachedAt;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String etag, byte[] body) throws IOException {
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        if (body.length > 2 && body[0] == (byte) 0x1f && body[1] == (byte) 0x8b) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] gzip(String json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Responder {
+
+        void respond(HttpExchange exchange) throws IOException;
+    }
+}
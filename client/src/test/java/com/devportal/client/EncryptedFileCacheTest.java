@@ -0,0 +1,129 @@
+package com.devportal.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptedFileCacheTest {
+
+    private static final byte[] KEY = filled(32, 7);
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String id = EncryptedFileCache.id("https://devportal.example.com", "env", "project");
+    private final CredentialBundle bundle = new CredentialBundle("\"etag-1\"",
+            Instant.parse("2026-01-02T03:04:05.678Z"), Map.of("DATABASE_URL", "postgres://db", "EMPTY", ""));
+
+    @Test
+    void roundTripsThroughDisk() {
+        new EncryptedFileCache(directory, KEY, objectMapper).put(id, bundle);
+
+        Optional<CredentialBundle> loaded = new EncryptedFileCache(directory, KEY, objectMapper).get(id);
+
+        assertEquals(Optional.of(bundle), loaded);
+    }
+
+    @Test
+    void fileDoesNotContainPlaintext() throws IOException {
+        new EncryptedFileCache(directory, KEY, objectMapper).put(id, bundle);
+
+        String file = Files.readString(cacheFile(id), StandardCharsets.ISO_8859_1);
+        assertTrue(file.startsWith("DPC1"));
+        assertFalse(file.contains("postgres://db"));
+        assertFalse(file.contains("DATABASE_URL"));
+    }
+
+    @Test
+    void fileIsReadableByOwnerOnly() throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return;
+        }
+        new EncryptedFileCache(directory, KEY, objectMapper).put(id, bundle);
+
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(cacheFile(id)));
+    }
+
+    @Test
+    void tamperedFileIsTreatedAsAbsent() throws IOException {
+        new EncryptedFileCache(directory, KEY, objectMapper).put(id, bundle);
+        byte[] file = Files.readAllBytes(cacheFile(id));
+        file[file.length - 1] ^= 1;
+        Files.write(cacheFile(id), file);
+
+        assertEquals(Optional.empty(), new EncryptedFileCache(directory, KEY, objectMapper).get(id));
+    }
+
+    @Test
+    void truncatedFileIsTreatedAsAbsent() throws IOException {
+        new EncryptedFileCache(directory, KEY, objectMapper).put(id, bundle);
+        Files.write(cacheFile(id), Arrays.copyOf(Files.readAllBytes(cacheFile(id)), 10));
+
+        assertEquals(Optional.empty(), new EncryptedFileCache(directory, KEY, objectMapper).get(id));
+    }
+
+    @Test
+    void fileCopiedToAnotherProjectDoesNotDecrypt() throws IOException {
+        new EncryptedFileCache(directory, KEY, objectMapper).put(id, bundle);
+        String other = EncryptedFileCache.id("https://devportal.example.com", "env", "other-project");
+        Files.copy(cacheFile(id), cacheFile(other));
+
+        assertEquals(Optional.empty(), new EncryptedFileCache(directory, KEY, objectMapper).get(other));
+    }
+
+    @Test
+    void fileDoesNotDecryptUnderAnotherKey() {
+        new EncryptedFileCache(directory, KEY, objectMapper).put(id, bundle);
+
+        assertEquals(Optional.empty(), new EncryptedFileCache(directory, filled(32, 8), objectMapper).get(id));
+    }
+
+    @Test
+    void identityDependsOnServerEnvironmentAndProject() {
+        assertFalse(id.equals(EncryptedFileCache.id("https://other.example.com", "env", "project")));
+        assertFalse(id.equals(EncryptedFileCache.id("https://devportal.example.com", "env2", "project")));
+        assertEquals(id, EncryptedFileCache.id("https://devportal.example.com", "env", "project"));
+    }
+
+    @Test
+    void inMemoryCacheNeedsNoKey() {
+        EncryptedFileCache cache = new EncryptedFileCache(null, null, objectMapper);
+        cache.put(id, bundle);
+
+        assertEquals(Optional.of(bundle), cache.get(id));
+    }
+
+    @Test
+    void rejectsKeysOfInvalidLength() {
+        assertThrows(IllegalArgumentException.class, () -> new EncryptedFileCache(directory, null, objectMapper));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EncryptedFileCache(directory, filled(20, 1), objectMapper));
+    }
+
+    private Path cacheFile(String cacheId) {
+        return directory.resolve(cacheId + ".cache");
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+}
@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Load test for comparing platform-thread and virtual-thread request execution.
+#
+# Start the server in one mode, run this script, restart in the other mode, run it again:
+#
+#   ./gradlew bootRun -PjavaToolchain=21 --args='--spring.threads.virtual.enabled=false --devportal.rate-limit.enabled=false --devportal.catalog-cache.enabled=false'
+#   MODE=platform bench/thread-modes.sh
+#   ./gradlew bootRun -PjavaToolchain=21 --args='--spring.threads.virtual.enabled=true --devportal.rate-limit.enabled=false --devportal.catalog-cache.enabled=false'
+#   MODE=virtual bench/thread-modes.sh
+#
+# Rate limiting would throttle the reveal workload and the catalog cache would answer the list
+# workload from memory, so both are off to measure the database-bound path. Run both modes on
+# the same JDK 21 so only the thread model differs.
+#
+# Requires curl, jq and hey (https://github.com/rakyll/hey). Appends one Markdown table row per
+# workload and concurrency level to $OUT.
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+EMAIL=${EMAIL:?set EMAIL of a user who can reveal the project}
+PASSWORD=${PASSWORD:?set PASSWORD}
+ENV_ID=${ENV_ID:?set ENV_ID}
+PROJECT_ID=${PROJECT_ID:?set PROJECT_ID}
+MODE=${MODE:?set MODE to platform or virtual}
+CONCURRENCY=${CONCURRENCY:-"50 200 800"}
+REQUESTS=${REQUESTS:-20000}
+OUT=${OUT:-bench/results.md}
+
+token=$(curl -fsS -o /dev/null -c - -H 'Content-Type: application/json' \
+    -d "{\"email\":\"$EMAIL\",\"password\":\"$PASSWORD\"}" "$BASE_URL/api/auth/login" \
+    | awk '$6 == "accessToken" { print $7 }')
+[ -n "$token" ] || { echo "login failed" >&2; exit 1; }
+
+credentials="$BASE_URL/api/envs/$ENV_ID/projects/$PROJECT_ID/credentials"
+credential_id=$(curl -fsS -H "Authorization: Bearer $token" "$credentials?limit=1" | jq -r '.items[0].id')
+[ "$credential_id" != "null" ] || { echo "project has no credentials" >&2; exit 1; }
+
+declare -A workloads=(
+    [list]="$credentials?limit=50"
+    [reveal]="$credentials/$credential_id/reveal"
+)
+
+if [ ! -f "$OUT" ]; then
+    printf '| mode | workload | concurrency | req/s | p50 ms | p99 ms | errors |\n' > "$OUT"
+    printf '|---|---|---|---|---|---|---|\n' >> "$OUT"
+fi
+
+for workload in list reveal; do
+    url=${workloads[$workload]}
+    # Warm up JIT, connection pool and caches of data keys
+    hey -n 2000 -c 50 -H "Authorization: Bearer $token" "$url" > /dev/null
+    for c in $CONCURRENCY; do
+        report=$(hey -n "$REQUESTS" -c "$c" -H "Authorization: Bearer $token" "$url")
+        rps=$(awk '/Requests\/sec/ { print $2 }' <<< "$report")
+        p50=$(awk '/ 50% in/ { printf "%.1f", $3 * 1000 }' <<< "$report")
+        p99=$(awk '/ 99% in/ { printf "%.1f", $3 * 1000 }' <<< "$report")
+        # Non-2xx responses plus transport errors (timeouts, resets)
+        errors=$(awk '/Status code distribution/ { section = "status"; next }
+                      /Error distribution/ { section = "error"; next }
+                      section == "status" && /\[[0-9]+\]/ { code = $1; gsub(/[][]/, "", code); if (code !~ /^2/) sum += $2 }
+                      section == "error" && /\[[0-9]+\]/ { count = $1; gsub(/[][]/, "", count); sum += count }
+                      END { print sum + 0 }' <<< "$report")
+        printf '| %s | %s | %s | %s | %s | %s | %s |\n' "$MODE" "$workload" "$c" "$rps" "$p50" "$p99" "$errors" | tee -a "$OUT"
+    done
+done
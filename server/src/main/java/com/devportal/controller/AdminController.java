@@ -1,9 +1,18 @@
 package com.devportal.controller;
 
+import com.devportal.dto.PageResponse;
 import com.devportal.model.AuditLog;
+import com.devportal.model.KeyRotationJob;
 import com.devportal.model.User;
+import com.devportal.security.BoundedPasswordEncoder;
+import com.devportal.security.JwtVerifier;
+import com.devportal.security.RateLimitFilter;
 import com.devportal.service.AdminService;
 import com.devportal.service.AuditService;
+import com.devportal.service.CatalogResponseCache;
+import com.devportal.service.DecryptedValueCache;
+import com.devportal.service.KeyRotationService;
+import com.devportal.service.WatchHub;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.http.ResponseEntity;
@@ -14,9 +23,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -26,15 +37,41 @@ public class AdminController extends BaseController{
 
     private final AdminService adminService;
     private final AuditService auditService;
+    private final JwtVerifier jwtVerifier;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final RateLimitFilter rateLimitFilter;
+    private final KeyRotationService keyRotationService;
+    private final DecryptedValueCache valueCache;
+    private final CatalogResponseCache catalogCache;
+    private final WatchHub watchHub;
 
-    public AdminController(AdminService adminService, AuditService auditService) {
+    public AdminController(AdminService adminService,
+                           AuditService auditService,
+                           JwtVerifier jwtVerifier,
+                           BoundedPasswordEncoder passwordEncoder,
+                           RateLimitFilter rateLimitFilter,
+                           KeyRotationService keyRotationService,
+                           DecryptedValueCache valueCache,
+                           CatalogResponseCache catalogCache,
+                           WatchHub watchHub) {
         this.adminService = adminService;
         this.auditService = auditService;
+        this.jwtVerifier = jwtVerifier;
+        this.passwordEncoder = passwordEncoder;
+        this.rateLimitFilter = rateLimitFilter;
+        this.keyRotationService = keyRotationService;
+        this.valueCache = valueCache;
+        this.catalogCache = catalogCache;
+        this.watchHub = watchHub;
     }
 
     @GetMapping("/users")
-    public ResponseEntity<List<User>> listUsers() {
-        return ResponseEntity.ok(adminService.listUsers());
+    public ResponseEntity<PageResponse<User>> listUsers(@RequestParam(required = false) String role,
+                                                        @RequestParam(required = false) String emailPrefix,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        User.Role roleFilter = role == null || role.isBlank() ? null : User.Role.valueOf(role.toUpperCase());
+        return ResponseEntity.ok(adminService.listUsers(roleFilter, emailPrefix, cursor, limit));
     }
 
     public record InviteUserRequest(
@@ -68,8 +105,91 @@ public class AdminController extends BaseController{
     }
 
     @GetMapping("/audit-logs")
-    public ResponseEntity<List<AuditLog>> auditLogs() {
-        return ResponseEntity.ok(auditService.listAll());
+    public ResponseEntity<PageResponse<AuditLog>> auditLogs(@RequestParam(required = false) String action,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(auditService.list(action, cursor, limit));
+    }
+
+    public record StartKeyRotationRequest(@NotBlank String mode) {
+    }
+
+    /**
+     * Starts a background rotation: REWRAP re-wraps project data keys under the active master key,
+     * REENCRYPT gives every project a fresh data key and re-encrypts its credentials.
+     */
+    @PostMapping("/key-rotation")
+    public ResponseEntity<KeyRotationJob> startKeyRotation(@RequestBody StartKeyRotationRequest request) {
+        KeyRotationJob.Mode mode = KeyRotationJob.Mode.valueOf(request.mode().toUpperCase());
+        return ResponseEntity.ok(keyRotationService.start(mode));
     }
-}
 
+    @GetMapping("/key-rotation")
+    public ResponseEntity<KeyRotationJob> keyRotationStatus() {
+        return keyRotationService.latest()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/key-rotation/{id}/pause")
+    public ResponseEntity<KeyRotationJob> pauseKeyRotation(@PathVariable UUID id) {
+        return ResponseEntity.ok(keyRotationService.pause(id));
+    }
+
+    @PostMapping("/key-rotation/{id}/resume")
+    public ResponseEntity<KeyRotationJob> resumeKeyRotation(@PathVariable UUID id) {
+        return ResponseEntity.ok(keyRotationService.resume(id));
+    }
+
+    /**
+     * In-process counters for the auth hot path (token cache, password hashing pool, rate limiter).
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> tokenCache = new LinkedHashMap<>();
+        tokenCache.put("size", jwtVerifier.size());
+        tokenCache.put("hits", jwtVerifier.getHitCount());
+        tokenCache.put("misses", jwtVerifier.getMissCount());
+        tokenCache.put("evictions", jwtVerifier.getEvictionCount());
+
+        Map<String, Object> passwordHashing = new LinkedHashMap<>();
+        passwordHashing.put("poolSize", passwordEncoder.getPoolSize());
+        passwordHashing.put("active", passwordEncoder.getActiveCount());
+        passwordHashing.put("queueDepth", passwordEncoder.getQueueDepth());
+        passwordHashing.put("queueCapacity", passwordEncoder.getQueueCapacity());
+        passwordHashing.put("completed", passwordEncoder.getCompletedCount());
+        passwordHashing.put("rejected", passwordEncoder.getRejectedCount());
+
+        Map<String, Object> rateLimit = new LinkedHashMap<>();
+        rateLimit.put("trackedBuckets", rateLimitFilter.getTrackedBuckets());
+        rateLimit.put("allowed", rateLimitFilter.getAllowedCount());
+        rateLimit.put("limited", rateLimitFilter.getLimitedCount());
+
+        Map<String, Object> revealCache = new LinkedHashMap<>();
+        revealCache.put("enabled", valueCache.isEnabled());
+        revealCache.put("size", valueCache.size());
+        revealCache.put("bytes", valueCache.getTotalBytes());
+        revealCache.put("hits", valueCache.getHitCount());
+        revealCache.put("misses", valueCache.getMissCount());
+        revealCache.put("evictions", valueCache.getEvictionCount());
+
+        Map<String, Object> catalogResponseCache = new LinkedHashMap<>();
+        catalogResponseCache.put("size", catalogCache.size());
+        catalogResponseCache.put("bytes", catalogCache.getTotalBytes());
+        catalogResponseCache.put("hits", catalogCache.getHitCount());
+        catalogResponseCache.put("misses", catalogCache.getMissCount());
+
+        Map<String, Object> watch = new LinkedHashMap<>();
+        watch.put("watchers", watchHub.getWatcherCount());
+        watch.put("evictions", watchHub.getEvictionCount());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("tokenCache", tokenCache);
+        body.put("passwordHashing", passwordHashing);
+        body.put("rateLimit", rateLimit);
+        body.put("revealCache", revealCache);
+        body.put("catalogCache", catalogResponseCache);
+        body.put("watch", watch);
+        return ResponseEntity.ok(body);
+    }
+}
@@ -4,6 +4,7 @@ import com.devportal.dto.AuthResult;
 import com.devportal.dto.AuthUserResponse;
 import com.devportal.dto.BootstrapAdminRequest;
 import com.devportal.dto.LoginRequest;
+import com.devportal.dto.RefreshTokenRequest;
 import com.devportal.model.User;
 import com.devportal.security.CookieUtil;
 import com.devportal.service.AuthService;
@@ -76,11 +77,12 @@ public class AuthController extends BaseController {
     @PostMapping("/refresh")
     public ResponseEntity<AuthUserResponse> refresh(
             @CookieValue(name = CookieUtil.REFRESH_TOKEN_COOKIE, required = false) String refreshTokenFromCookie,
+            @RequestBody(required = false) RefreshTokenRequest body,
             HttpServletRequest request,
             HttpServletResponse response) {
         String refreshToken = refreshTokenFromCookie;
         if (!org.springframework.util.StringUtils.hasText(refreshToken)) {
-            refreshToken = getCookieValue(request, CookieUtil.REFRESH_TOKEN_COOKIE).orElse(null);
+            refreshToken = refreshToken(request, body).orElse(null);
         }
         if (refreshToken == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -91,7 +93,10 @@ public class AuthController extends BaseController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout(HttpServletResponse response) {
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshTokenRequest body,
+                                       HttpServletRequest request,
+                                       HttpServletResponse response) {
+        refreshToken(request, body).ifPresent(authService::logout);
         cookieUtil.clearTokenCookies(response);
         return ResponseEntity.noContent().build();
     }
@@ -112,6 +117,18 @@ public class AuthController extends BaseController {
         return ResponseEntity.ok(new AuthUserResponse(email, role));
     }
 
+    /**
+     * The refresh token from the cookie, or from the body for clients that do not keep cookies.
+     */
+    private Optional<String> refreshToken(HttpServletRequest request, RefreshTokenRequest body) {
+        Optional<String> fromCookie = getCookieValue(request, CookieUtil.REFRESH_TOKEN_COOKIE);
+        if (fromCookie.isPresent() || body == null
+                || !org.springframework.util.StringUtils.hasText(body.getRefreshToken())) {
+            return fromCookie;
+        }
+        return Optional.of(body.getRefreshToken());
+    }
+
     private Optional<String> getCookieValue(HttpServletRequest request, String name) {
         Cookie[] cookies = request.getCookies();
         if (cookies == null) return Optional.empty();
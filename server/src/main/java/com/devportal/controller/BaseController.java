@@ -1,9 +1,15 @@
 package com.devportal.controller;
 
+import com.devportal.security.InvalidTokenException;
+import com.devportal.security.ServerBusyException;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -39,6 +45,30 @@ public class BaseController {
         return build(HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", ex.getMessage());
     }
 
+    @ExceptionHandler({InvalidTokenException.class, JwtException.class})
+    public ResponseEntity<Map<String, Object>> handleInvalidToken(RuntimeException ex) {
+        return build(HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", "Invalid or expired token");
+    }
+
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleServerBusy(ServerBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body("SERVER_BUSY", ex.getMessage()));
+    }
+
+    /**
+     * No pooled database connection became free within {@code spring.datasource.hikari.connection-timeout},
+     * or the database is unreachable. With virtual threads the connection pool, not the request
+     * thread pool, is where load queues up.
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<Map<String, Object>> handleNoConnection(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body("SERVER_BUSY", "Database unavailable; retry shortly"));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGeneric(Exception ex) {
         return build(HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR", "Unexpected error");
@@ -50,10 +80,14 @@ public class BaseController {
     }
 
     protected ResponseEntity<Map<String, Object>> build(HttpStatus status, String code, String message) {
+        return ResponseEntity.status(status).body(body(code, message));
+    }
+
+    private Map<String, Object> body(String code, String message) {
         Map<String, Object> body = new HashMap<>();
         body.put("code", code);
         body.put("message", message);
         body.put("timestamp", Instant.now().toString());
-        return ResponseEntity.status(status).body(body);
+        return body;
     }
 }
@@ -0,0 +1,75 @@
+package com.devportal.controller;
+
+import com.devportal.service.CatalogResponseCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Answers polled catalog lists from {@link CatalogResponseCache}: serialized bytes with a strong
+ * ETag, or 304 when {@code If-None-Match} already names them. Only on a miss is the loader run.
+ */
+@Component
+class CatalogResponses {
+
+    private final CatalogResponseCache cache;
+    private final ObjectMapper objectMapper;
+
+    CatalogResponses(CatalogResponseCache cache, ObjectMapper objectMapper) {
+        this.cache = cache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param version the scope's version, read before {@code loader} queries anything
+     */
+    ResponseEntity<byte[]> respond(String scope, long version, HttpServletRequest request, Supplier<?> loader) {
+        String key = CatalogResponseCache.key(scope, version, request.getQueryString());
+        CatalogResponseCache.Entry entry = cache.get(key);
+        if (entry == null) {
+            entry = cache.put(key, serialize(loader.get()));
+        }
+        // Authenticated data: browsers may keep it, but must revalidate every time
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(entry.etag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(entry.body());
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
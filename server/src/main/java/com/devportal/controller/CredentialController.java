@@ -1,19 +1,32 @@
 package com.devportal.controller;
 
+import com.devportal.dto.CredentialImportReport;
 import com.devportal.dto.CredentialRequest;
 import com.devportal.dto.CredentialResponse;
+import com.devportal.dto.CredentialRestoreReport;
+import com.devportal.dto.CredentialSummary;
+import com.devportal.dto.CredentialVersionSummary;
+import com.devportal.dto.PageResponse;
 import com.devportal.model.Credential;
 import com.devportal.model.CredentialType;
 import com.devportal.model.User;
-import com.devportal.repository.UserRepository;
+import com.devportal.security.CurrentUser;
+import com.devportal.service.CatalogVersions;
+import com.devportal.service.CredentialExportService;
+import com.devportal.service.CredentialFileService;
+import com.devportal.service.CredentialHistoryService;
+import com.devportal.service.CredentialImportService;
 import com.devportal.service.CredentialService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -21,38 +34,68 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/envs/{envId}/projects/{projectId}/credentials")
 public class CredentialController extends BaseController {
 
     private final CredentialService credentialService;
-    private final UserRepository userRepository;
+    private final CredentialFileService credentialFileService;
+    private final CredentialImportService credentialImportService;
+    private final CredentialExportService credentialExportService;
+    private final CredentialHistoryService credentialHistoryService;
+    private final CatalogVersions catalogVersions;
+    private final CatalogResponses catalogResponses;
+    private final CurrentUser currentUser;
 
     public CredentialController(CredentialService credentialService,
-                                UserRepository userRepository) {
+                                CredentialFileService credentialFileService,
+                                CredentialImportService credentialImportService,
+                                CredentialExportService credentialExportService,
+                                CredentialHistoryService credentialHistoryService,
+                                CatalogVersions catalogVersions,
+                                CatalogResponses catalogResponses,
+                                CurrentUser currentUser) {
         this.credentialService = credentialService;
-        this.userRepository = userRepository;
+        this.credentialFileService = credentialFileService;
+        this.credentialImportService = credentialImportService;
+        this.credentialExportService = credentialExportService;
+        this.credentialHistoryService = credentialHistoryService;
+        this.catalogVersions = catalogVersions;
+        this.catalogResponses = catalogResponses;
+        this.currentUser = currentUser;
     }
 
     @GetMapping
-    public ResponseEntity<List<CredentialResponse>> list(@PathVariable UUID envId,
-                                                         @PathVariable UUID projectId) {
-        List<Credential> creds = credentialService.listByProject(envId, projectId);
-        List<CredentialResponse> response = creds.stream()
-                .map(this::toResponseMasked)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> list(@PathVariable UUID envId,
+                                       @PathVariable UUID projectId,
+                                       @RequestParam(required = false) String keyPrefix,
+                                       @RequestParam(required = false) String type,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) Integer limit,
+                                       HttpServletRequest request) {
+        CredentialType typeFilter = type == null || type.isBlank() ? null : CredentialType.fromString(type);
+        return catalogResponses.respond("credentials:" + envId + ":" + projectId,
+                catalogVersions.credentials(projectId), request, () -> {
+                    PageResponse<CredentialSummary> page = credentialService.list(envId, projectId, keyPrefix,
+                            typeFilter, cursor, limit);
+                    return page.map(this::toResponseMasked);
+                });
     }
 
     @GetMapping("/{credentialId}/reveal")
@@ -60,19 +103,37 @@ public class CredentialController extends BaseController {
                                                      @PathVariable UUID projectId,
                                                      @PathVariable UUID credentialId,
                                                      HttpServletRequest request) {
-        User user = currentUser();
+        User user = currentUser.reference();
         String ip = request.getRemoteAddr();
-        String value = credentialService.reveal(envId, projectId, credentialId, user, ip);
+        CredentialService.RevealedValue revealed = credentialService.reveal(envId, projectId, credentialId, user, ip);
+        CredentialResponse r = toResponseMasked(revealed.credential());
+        r.setValue(revealed.value());
+        return ResponseEntity.ok(r);
+    }
 
-        List<Credential> creds = credentialService.listByProject(envId, projectId);
-        Credential cred = creds.stream()
-                .filter(c -> c.getId().equals(credentialId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Credential not found"));
+    /**
+     * Reveals the listed credentials, or every credential of the project when {@code ids} is empty,
+     * in one request. Streamed files come back with a null value; download them from {@code /file}.
+     */
+    @PostMapping("/reveal")
+    public ResponseEntity<List<CredentialResponse>> revealBatch(@PathVariable UUID envId,
+                                                                @PathVariable UUID projectId,
+                                                                @RequestBody(required = false) BatchRevealRequest request,
+                                                                HttpServletRequest httpRequest) {
+        User user = currentUser.reference();
+        String ip = httpRequest.getRemoteAddr();
+        List<UUID> ids = request != null ? request.ids() : null;
+        List<CredentialResponse> response = credentialService.revealAll(envId, projectId, ids, user, ip).stream()
+                .map(revealed -> {
+                    CredentialResponse r = toResponseMasked(revealed.credential());
+                    r.setValue(revealed.value());
+                    return r;
+                })
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(response);
+    }
 
-        CredentialResponse r = toResponseMasked(cred);
-        r.setValue(value);
-        return ResponseEntity.ok(r);
+    public record BatchRevealRequest(List<UUID> ids) {
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -81,7 +142,7 @@ public class CredentialController extends BaseController {
                                                      @PathVariable UUID projectId,
                                                      @Valid @RequestBody CredentialRequest request,
                                                      HttpServletRequest httpRequest) {
-        User user = currentUser();
+        User user = currentUser.reference();
         String ip = httpRequest.getRemoteAddr();
         Credential c = credentialService.create(envId, projectId, request.getKey(), request.getValue(),
                 request.getType(), request.getDescription(), user, ip);
@@ -95,7 +156,7 @@ public class CredentialController extends BaseController {
                                                      @PathVariable UUID credentialId,
                                                      @Valid @RequestBody CredentialRequest request,
                                                      HttpServletRequest httpRequest) {
-        User user = currentUser();
+        User user = currentUser.reference();
         String ip = httpRequest.getRemoteAddr();
         Credential c = credentialService.update(envId, projectId, credentialId, request.getKey(), request.getValue(),
                 request.getType(), request.getDescription(), user, ip);
@@ -108,41 +169,209 @@ public class CredentialController extends BaseController {
                                        @PathVariable UUID projectId,
                                        @PathVariable UUID credentialId,
                                        HttpServletRequest httpRequest) {
-        User user = currentUser();
+        User user = currentUser.reference();
         String ip = httpRequest.getRemoteAddr();
         credentialService.delete(envId, projectId, credentialId, user, ip);
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Creates a FILE credential from the raw request body, streamed in chunks.
+     */
     @PreAuthorize("hasRole('ADMIN')")
-    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Integer> importCsv(@PathVariable UUID envId,
-                                             @PathVariable UUID projectId,
-                                             @RequestParam("file") MultipartFile file,
-                                             HttpServletRequest httpRequest) throws Exception {
-        User user = currentUser();
+    @PostMapping(value = "/file", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<CredentialResponse> createFile(@PathVariable UUID envId,
+                                                         @PathVariable UUID projectId,
+                                                         @RequestParam("key") String key,
+                                                         @RequestParam(value = "description", required = false) String description,
+                                                         HttpServletRequest httpRequest) throws IOException {
+        User user = currentUser.reference();
+        String ip = httpRequest.getRemoteAddr();
+        Credential c = credentialFileService.create(envId, projectId, key, description,
+                httpRequest.getInputStream(), user, ip);
+        return ResponseEntity.ok(toResponseMasked(c));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping(value = "/{credentialId}/file", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<CredentialResponse> replaceFile(@PathVariable UUID envId,
+                                                          @PathVariable UUID projectId,
+                                                          @PathVariable UUID credentialId,
+                                                          HttpServletRequest httpRequest) throws IOException {
+        User user = currentUser.reference();
         String ip = httpRequest.getRemoteAddr();
-        int count = 0;
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank() || line.startsWith("#")) {
-                    continue;
-                }
-                String[] parts = line.split(",", -1);
-                if (parts.length < 2) {
-                    continue;
-                }
-                String key = parts[0].trim();
-                String value = parts[1].trim();
-                CredentialType type = CredentialType.fromString(parts.length > 2 ? parts[2].trim() : null);
-                String description = parts.length > 3 ? parts[3].trim() : null;
-                credentialService.create(envId, projectId, key, value, type, description, user, ip);
-                count++;
+        Credential c = credentialFileService.replace(envId, projectId, credentialId,
+                httpRequest.getInputStream(), user, ip);
+        return ResponseEntity.ok(toResponseMasked(c));
+    }
+
+    /**
+     * Streams a FILE credential's content. Honours a single {@code Range: bytes=} range with 206;
+     * multiple ranges are answered with the whole file.
+     */
+    @GetMapping("/{credentialId}/file")
+    public ResponseEntity<StreamingResponseBody> downloadFile(@PathVariable UUID envId,
+                                                              @PathVariable UUID projectId,
+                                                              @PathVariable UUID credentialId,
+                                                              @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                                              HttpServletRequest request) {
+        User user = currentUser.reference();
+        String ip = request.getRemoteAddr();
+        CredentialFileService.StoredFile file = credentialFileService.open(envId, projectId, credentialId, user, ip);
+        long size = file.size();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        ByteSpan span = resolveRange(range, size);
+        if (span == null) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+        if (span.partial()) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + span.start() + "-" + span.end() + "/" + size);
+        }
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentLength(span.length());
+        headers.setContentDisposition(ContentDisposition.attachment().filename(file.key()).build());
+        StreamingResponseBody body = out -> credentialFileService.write(file, span.start(), span.end(), out);
+        return ResponseEntity.status(span.partial() ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .headers(headers).body(body);
+    }
+
+    /**
+     * Streams every decrypted value of the project as {@code dotenv} (default), {@code json} or
+     * {@code properties}. Audited once for the whole export.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable UUID envId,
+                                                        @PathVariable UUID projectId,
+                                                        @RequestParam(value = "format", required = false) String format,
+                                                        HttpServletRequest request) {
+        User user = currentUser.reference();
+        String ip = request.getRemoteAddr();
+        CredentialExportService.ExportTarget target = credentialExportService.openProject(envId, projectId,
+                CredentialExportService.Format.fromString(format), user, ip);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(target.format().getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(target.filename()).build());
+        StreamingResponseBody body = out -> credentialExportService.write(target, out);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * Every decrypted value of the project in one response for deployment agents, with a strong
+     * ETag over keys and value fingerprints. A matching {@code If-None-Match} gets a 304 without
+     * reading ciphertext or decrypting anything; a delivered bundle is audited once. Gzipped when the client accepts it.
+     */
+    @GetMapping("/bundle")
+    public ResponseEntity<StreamingResponseBody> bundle(@PathVariable UUID envId,
+                                                        @PathVariable UUID projectId,
+                                                        @RequestParam(value = "format", required = false) String format,
+                                                        HttpServletRequest request) {
+        CredentialExportService.Format bundleFormat =
+                CredentialExportService.Format.fromString(format == null || format.isBlank() ? "json" : format);
+        CredentialExportService.Bundle current = credentialExportService.loadBundle(envId, projectId, bundleFormat);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        String currentEtag = bundleEtag(current, gzip);
+        if (CatalogResponses.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), currentEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentEtag).cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        // Values may have changed since the ETag check; the response carries the ETag of what it delivers
+        CredentialExportService.Bundle bundle = credentialExportService.loadBundleValues(envId, projectId, bundleFormat);
+        String etag = bundleEtag(bundle, gzip);
+        credentialExportService.auditBundle(bundle, currentUser.reference(), request.getRemoteAddr());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(bundle.format().getContentType()));
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                credentialExportService.writeBundle(bundle, compressed);
+                compressed.finish();
+            } else {
+                credentialExportService.writeBundle(bundle, out);
             }
+        };
+        return ResponseEntity.ok().headers(headers).eTag(etag).cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING).body(body);
+    }
+
+    /**
+     * A credential's change history, newest first. Values are never included.
+     */
+    @GetMapping("/{credentialId}/versions")
+    public ResponseEntity<PageResponse<CredentialVersionSummary>> versions(@PathVariable UUID envId,
+                                                                           @PathVariable UUID projectId,
+                                                                           @PathVariable UUID credentialId,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(credentialHistoryService.versions(envId, projectId, credentialId, cursor, limit));
+    }
+
+    /**
+     * The project's credentials, masked, as they stood at {@code at} (ISO-8601 instant).
+     */
+    @GetMapping("/history")
+    public ResponseEntity<List<CredentialResponse>> history(@PathVariable UUID envId,
+                                                            @PathVariable UUID projectId,
+                                                            @RequestParam("at") String at) {
+        List<CredentialResponse> response = credentialHistoryService.stateAt(envId, projectId, parseInstant(at)).stream()
+                .map(this::toResponseMasked)
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+
+    public record RestoreRequest(String at) {
+    }
+
+    /**
+     * Rolls the project's credentials back to their state at {@code at}.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/restore")
+    public ResponseEntity<CredentialRestoreReport> restore(@PathVariable UUID envId,
+                                                           @PathVariable UUID projectId,
+                                                           @RequestBody RestoreRequest request,
+                                                           HttpServletRequest httpRequest) {
+        User user = currentUser.reference();
+        String ip = httpRequest.getRemoteAddr();
+        Instant at = parseInstant(request != null ? request.at() : null);
+        return ResponseEntity.ok(credentialHistoryService.restore(envId, projectId, at, user, ip));
+    }
+
+    /**
+     * Imports {@code key,value[,type[,description]]} CSV rows in one transaction and reports the
+     * outcome of every row.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<CredentialImportReport> importCsv(@PathVariable UUID envId,
+                                                            @PathVariable UUID projectId,
+                                                            @RequestParam("file") MultipartFile file,
+                                                            HttpServletRequest httpRequest) throws IOException {
+        User user = currentUser.reference();
+        String ip = httpRequest.getRemoteAddr();
+        try (InputStream content = file.getInputStream()) {
+            return ResponseEntity.ok(credentialImportService.importCsv(envId, projectId, content, user, ip));
         }
-        return ResponseEntity.ok(count);
+    }
+
+    private CredentialResponse toResponseMasked(CredentialSummary c) {
+        CredentialResponse r = new CredentialResponse();
+        r.setId(c.id());
+        r.setProjectId(c.projectId());
+        r.setKey(c.key());
+        r.setValue("***");
+        r.setType(c.type() != null ? c.type() : CredentialType.SECRET);
+        r.setDescription(c.description());
+        r.setFileSize(c.fileSize());
+        r.setUpdatedByUserId(c.updatedByUserId());
+        r.setUpdatedAt(c.updatedAt());
+        return r;
     }
 
     private CredentialResponse toResponseMasked(Credential c) {
@@ -153,6 +382,7 @@ public class CredentialController extends BaseController {
         r.setValue("***");
         r.setType(c.getType() != null ? c.getType() : CredentialType.SECRET);
         r.setDescription(c.getDescription());
+        r.setFileSize(c.getFileSize());
         if (c.getUpdatedBy() != null) {
             r.setUpdatedByUserId(c.getUpdatedBy().getId());
         }
@@ -160,10 +390,62 @@ public class CredentialController extends BaseController {
         return r;
     }
 
-    private User currentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        return userRepository.findByEmailIgnoreCase(email)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+    /**
+     * Gzipped and plain bundles are different representations, so they get different ETags.
+     */
+    private static String bundleEtag(CredentialExportService.Bundle bundle, boolean gzip) {
+        return gzip ? bundle.etag().replaceFirst("\"$", "-gz\"") : bundle.etag();
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("at is required");
+        }
+        try {
+            return Instant.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("at must be an ISO-8601 instant, e.g. 2024-01-31T12:00:00Z");
+        }
+    }
+
+    /**
+     * Bytes of a {@code size}-byte file to serve for a {@code Range} header: the whole file when
+     * the header is absent, malformed or names several ranges, the single range otherwise, or
+     * null when that range starts past the end of the file.
+     */
+    static ByteSpan resolveRange(String range, long size) {
+        List<HttpRange> ranges = parseRanges(range);
+        if (ranges.size() != 1) {
+            return new ByteSpan(0, size - 1, false);
+        }
+        HttpRange requested = ranges.get(0);
+        if (size == 0 || requested.getRangeStart(size) >= size) {
+            return null;
+        }
+        return new ByteSpan(requested.getRangeStart(size), requested.getRangeEnd(size), true);
+    }
+
+    /**
+     * Inclusive byte range of a download; {@code partial} when served as 206.
+     */
+    record ByteSpan(long start, long end, boolean partial) {
+
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * Parsed byte ranges, or none if the header is absent or malformed (served as a full response).
+     */
+    private static List<HttpRange> parseRanges(String range) {
+        if (range == null || range.isBlank()) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
     }
 }
@@ -0,0 +1,41 @@
+package com.devportal.controller;
+
+import com.devportal.dto.CredentialDrift;
+import com.devportal.service.CredentialDiffService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/diff")
+public class DiffController extends BaseController {
+
+    private final CredentialDiffService credentialDiffService;
+
+    public DiffController(CredentialDiffService credentialDiffService) {
+        this.credentialDiffService = credentialDiffService;
+    }
+
+    /**
+     * Keys missing or differing between two or more environments, e.g.
+     * {@code ?envId=<qa>&envId=<staging>&envId=<prod>}; projects are matched by name.
+     */
+    @GetMapping("/environments")
+    public ResponseEntity<CredentialDrift> environments(@RequestParam("envId") List<UUID> envIds,
+                                                        @RequestParam(required = false) String project) {
+        return ResponseEntity.ok(credentialDiffService.compareEnvironments(envIds, project));
+    }
+
+    /**
+     * Keys missing or differing between two or more projects, in the same or different environments.
+     */
+    @GetMapping("/projects")
+    public ResponseEntity<CredentialDrift> projects(@RequestParam("projectId") List<UUID> projectIds) {
+        return ResponseEntity.ok(credentialDiffService.compareProjects(projectIds));
+    }
+}
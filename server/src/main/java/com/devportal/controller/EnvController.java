@@ -1,7 +1,15 @@
 package com.devportal.controller;
 
 import com.devportal.model.Environment;
+import com.devportal.model.User;
+import com.devportal.security.CurrentUser;
+import com.devportal.service.CatalogVersions;
+import com.devportal.service.CredentialExportService;
 import com.devportal.service.EnvironmentService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,9 +19,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -21,14 +30,47 @@ import java.util.UUID;
 public class EnvController extends BaseController{
 
     private final EnvironmentService environmentService;
+    private final CredentialExportService credentialExportService;
+    private final CatalogVersions catalogVersions;
+    private final CatalogResponses catalogResponses;
+    private final CurrentUser currentUser;
 
-    public EnvController(EnvironmentService environmentService) {
+    public EnvController(EnvironmentService environmentService,
+                         CredentialExportService credentialExportService,
+                         CatalogVersions catalogVersions,
+                         CatalogResponses catalogResponses,
+                         CurrentUser currentUser) {
         this.environmentService = environmentService;
+        this.credentialExportService = credentialExportService;
+        this.catalogVersions = catalogVersions;
+        this.catalogResponses = catalogResponses;
+        this.currentUser = currentUser;
     }
 
     @GetMapping
-    public ResponseEntity<List<Environment>> list() {
-        return ResponseEntity.ok(environmentService.getAll());
+    public ResponseEntity<byte[]> list(@RequestParam(required = false) String namePrefix,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) Integer limit,
+                                       HttpServletRequest request) {
+        return catalogResponses.respond("envs", catalogVersions.environments(), request,
+                () -> environmentService.list(namePrefix, cursor, limit));
+    }
+
+    /**
+     * Streams the decrypted values of every project in the environment, grouped by project.
+     */
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable UUID id,
+                                                        @RequestParam(value = "format", required = false) String format,
+                                                        HttpServletRequest request) {
+        User user = currentUser.reference();
+        CredentialExportService.ExportTarget target = credentialExportService.openEnvironment(id,
+                CredentialExportService.Format.fromString(format), user, request.getRemoteAddr());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(target.format().getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(target.filename()).build());
+        StreamingResponseBody body = out -> credentialExportService.write(target, out);
+        return ResponseEntity.ok().headers(headers).body(body);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -1,7 +1,9 @@
 package com.devportal.controller;
 
 import com.devportal.model.Project;
+import com.devportal.service.CatalogVersions;
 import com.devportal.service.ProjectService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,9 +13,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -21,14 +23,27 @@ import java.util.UUID;
 public class ProjectController extends BaseController{
 
     private final ProjectService projectService;
+    private final CatalogVersions catalogVersions;
+    private final CatalogResponses catalogResponses;
 
-    public ProjectController(ProjectService projectService) {
+    public ProjectController(ProjectService projectService,
+                             CatalogVersions catalogVersions,
+                             CatalogResponses catalogResponses) {
         this.projectService = projectService;
+        this.catalogVersions = catalogVersions;
+        this.catalogResponses = catalogResponses;
     }
 
     @GetMapping
-    public ResponseEntity<List<Project>> list(@PathVariable UUID envId) {
-        return ResponseEntity.ok(projectService.listByEnvironment(envId));
+    public ResponseEntity<byte[]> list(@PathVariable UUID envId,
+                                       @RequestParam(required = false) String namePrefix,
+                                       @RequestParam(required = false) String status,
+                                       @RequestParam(required = false) String team,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) Integer limit,
+                                       HttpServletRequest request) {
+        return catalogResponses.respond("projects:" + envId, catalogVersions.projects(envId), request,
+                () -> projectService.list(envId, namePrefix, status, team, cursor, limit));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
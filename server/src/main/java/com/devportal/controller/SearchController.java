@@ -0,0 +1,46 @@
+package com.devportal.controller;
+
+import com.devportal.service.SearchIndex;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController extends BaseController {
+
+    private final SearchIndex searchIndex;
+
+    public SearchController(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Credential keys and project names and descriptions matching every whitespace-separated term
+     * of {@code q}, across all environments.
+     */
+    @GetMapping
+    public ResponseEntity<SearchIndex.Result> search(@RequestParam String q,
+                                                     @RequestParam(required = false) String kind,
+                                                     @RequestParam(required = false) UUID envId,
+                                                     @RequestParam(required = false) UUID projectId,
+                                                     @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(searchIndex.search(q, parseKind(kind), envId, projectId, limit));
+    }
+
+    private static SearchIndex.Kind parseKind(String kind) {
+        if (kind == null || kind.isBlank()) {
+            return null;
+        }
+        try {
+            return SearchIndex.Kind.valueOf(kind.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown kind: " + kind);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.devportal.controller;
+
+import com.devportal.service.CredentialService;
+import com.devportal.service.EnvironmentService;
+import com.devportal.service.WatchHub;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+/**
+ * Push notifications of credential changes, so agents do not have to poll the lists. Events name
+ * the changed key; values are fetched through the usual endpoints.
+ */
+@RestController
+@RequestMapping("/api/envs/{envId}")
+public class WatchController extends BaseController {
+
+    private final WatchHub watchHub;
+    private final CredentialService credentialService;
+    private final EnvironmentService environmentService;
+
+    public WatchController(WatchHub watchHub,
+                           CredentialService credentialService,
+                           EnvironmentService environmentService) {
+        this.watchHub = watchHub;
+        this.credentialService = credentialService;
+        this.environmentService = environmentService;
+    }
+
+    @GetMapping(value = "/projects/{projectId}/credentials/watch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watchProject(@PathVariable UUID envId,
+                                   @PathVariable UUID projectId,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        credentialService.getProjectInEnv(envId, projectId);
+        return watchHub.subscribe(envId, projectId, lastEventId);
+    }
+
+    @GetMapping("/projects/{projectId}/credentials/watch/poll")
+    public DeferredResult<WatchHub.Batch> pollProject(@PathVariable UUID envId,
+                                                      @PathVariable UUID projectId,
+                                                      @RequestParam(required = false) String since,
+                                                      @RequestParam(required = false) Integer timeoutSeconds) {
+        credentialService.getProjectInEnv(envId, projectId);
+        return watchHub.poll(envId, projectId, since, timeoutSeconds);
+    }
+
+    @GetMapping(value = "/watch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watchEnvironment(@PathVariable UUID envId,
+                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        environmentService.getById(envId);
+        return watchHub.subscribe(envId, null, lastEventId);
+    }
+
+    @GetMapping("/watch/poll")
+    public DeferredResult<WatchHub.Batch> pollEnvironment(@PathVariable UUID envId,
+                                                          @RequestParam(required = false) String since,
+                                                          @RequestParam(required = false) Integer timeoutSeconds) {
+        environmentService.getById(envId);
+        return watchHub.poll(envId, null, since, timeoutSeconds);
+    }
+}
@@ -0,0 +1,33 @@
+package com.devportal.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A credential change pushed to watchers. Carries the key but never the value.
+ *
+ * @param id           resume position for {@code Last-Event-ID} / {@code since}; null until dispatched
+ * @param credentialId null for {@link Type#CHANGED} and {@link Type#RESET}
+ */
+public record CredentialChangeEvent(String id,
+                                    Type type,
+                                    UUID envId,
+                                    UUID projectId,
+                                    UUID credentialId,
+                                    String key,
+                                    Instant at) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /** Several credentials of the project changed at once (import, restore, project deletion); relist it. */
+        CHANGED,
+        /** Events may have been missed (resume position too old, or the feed reconnected); relist everything. */
+        RESET
+    }
+
+    public CredentialChangeEvent withId(String id) {
+        return new CredentialChangeEvent(id, type, envId, projectId, credentialId, key, at);
+    }
+}
@@ -0,0 +1,37 @@
+package com.devportal.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Differences in credential keys and values between environments (projects matched by name) or
+ * between individual projects. Only projects and keys that differ are listed; sides are referred
+ * to by the environment or project id given in {@link #sides()}.
+ */
+public record CredentialDrift(List<Side> sides, List<ProjectDrift> projects, int driftingKeys) {
+
+    public enum Status {
+        /** Absent from some sides that have the project. */
+        MISSING,
+        /** Present everywhere with more than one distinct value. */
+        CHANGED,
+        /** Present everywhere, but some values have not been fingerprinted yet. */
+        UNKNOWN
+    }
+
+    public record Side(UUID id, String environmentName, String projectName) {
+    }
+
+    /**
+     * @param missingIn sides without a project of this name
+     */
+    public record ProjectDrift(String name, List<UUID> missingIn, List<KeyDrift> keys) {
+    }
+
+    /**
+     * @param missingIn   sides that have the project but not the key
+     * @param valueGroups sides holding the key, grouped by equal value; unfingerprinted values are left out
+     */
+    public record KeyDrift(String key, Status status, List<UUID> missingIn, List<List<UUID>> valueGroups) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.devportal.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import: totals plus one entry per data row, keyed by the line the row starts on.
+ */
+public record CredentialImportReport(int created, int skipped, int invalid, List<Row> rows) {
+
+    public enum Status {
+        CREATED,
+        SKIPPED,
+        INVALID
+    }
+
+    public record Row(int line, String key, Status status, String message) {
+    }
+}
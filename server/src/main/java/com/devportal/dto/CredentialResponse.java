@@ -13,6 +13,7 @@ public class CredentialResponse {
     private String value;
     private CredentialType type;
     private String description;
+    private Long fileSize;
     private UUID updatedByUserId;
     private Instant updatedAt;
 
@@ -64,6 +65,14 @@ public class CredentialResponse {
         this.description = description;
     }
 
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
     public UUID getUpdatedByUserId() {
         return updatedByUserId;
     }
@@ -0,0 +1,16 @@
+package com.devportal.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Outcome of restoring a project's credentials to their state at {@code restoredTo}.
+ * {@code skippedKeys} are streamed files whose content from that time no longer exists.
+ */
+public record CredentialRestoreReport(Instant restoredTo,
+                                      int created,
+                                      int updated,
+                                      int deleted,
+                                      int unchanged,
+                                      List<String> skippedKeys) {
+}
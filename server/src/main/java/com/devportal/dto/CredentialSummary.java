@@ -0,0 +1,20 @@
+package com.devportal.dto;
+
+import com.devportal.model.CredentialType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Credential metadata for masked listings, selected directly by a constructor projection so
+ * ciphertext columns are never read.
+ */
+public record CredentialSummary(UUID id,
+                                UUID projectId,
+                                String key,
+                                CredentialType type,
+                                String description,
+                                Long fileSize,
+                                UUID updatedByUserId,
+                                Instant updatedAt) {
+}
@@ -0,0 +1,22 @@
+package com.devportal.dto;
+
+import com.devportal.model.CredentialType;
+import com.devportal.model.CredentialVersion;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One entry of a credential's history, without its value.
+ */
+public record CredentialVersionSummary(UUID id,
+                                       long seq,
+                                       UUID credentialId,
+                                       CredentialVersion.Operation operation,
+                                       String key,
+                                       CredentialType type,
+                                       String description,
+                                       Long fileSize,
+                                       UUID changedByUserId,
+                                       Instant changedAt) {
+}
@@ -0,0 +1,16 @@
+package com.devportal.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list. {@code nextCursor} is opaque; pass it back as
+ * {@code cursor} to get the following page. It is null on the last page.
+ */
+public record PageResponse<T>(List<T> items, String nextCursor) {
+
+    public <R> PageResponse<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream().<R>map(mapper).toList();
+        return new PageResponse<>(mapped, nextCursor);
+    }
+}
@@ -0,0 +1,18 @@
+package com.devportal.dto;
+
+/**
+ * Body of refresh and logout for clients that keep the refresh token themselves instead of in
+ * the cookie.
+ */
+public class RefreshTokenRequest {
+
+    private String refreshToken;
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
@@ -8,6 +8,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -21,7 +22,11 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "credentials")
+@Table(name = "credentials",
+        indexes = {
+                @Index(name = "idx_credentials_project_key", columnList = "project_id, credential_key"),
+                @Index(name = "idx_credentials_file", columnList = "file_id")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -40,9 +45,41 @@ public class Credential {
     @Column(name = "credential_key", nullable = false)
     private String key;
 
-    @Column(name = "value_encrypted", nullable = false, columnDefinition = "text")
+    /**
+     * Legacy Base64 ciphertext. Only rows not yet converted by the ciphertext migration still use it;
+     * new writes go to {@link #valueCiphertext}.
+     */
+    @Column(name = "value_encrypted", columnDefinition = "text")
     private String valueEncrypted;
 
+    /**
+     * Raw ciphertext (envelope header + IV + ciphertext + tag) stored as {@code bytea}.
+     */
+    @Column(name = "value_ciphertext")
+    private byte[] valueCiphertext;
+
+    /**
+     * Keyed fingerprint of the plaintext value or file content, for comparing values without
+     * decrypting them. Null until the fingerprint backfill reaches rows written before it existed.
+     */
+    @Column(name = "value_fingerprint", length = 64)
+    private String valueFingerprint;
+
+    /**
+     * Streamed FILE content: identifies the chunk set in {@code credential_file_chunks}. Null for
+     * values stored inline in {@link #valueCiphertext}. Version history shares the chunk set.
+     */
+    @Column(name = "file_id")
+    private UUID fileId;
+
+    /** Plaintext size of the streamed file in bytes. */
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    /** Plaintext bytes per chunk the file was written with. */
+    @Column(name = "file_chunk_size")
+    private Integer fileChunkSize;
+
     private String description;
 
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,50 @@
+package com.devportal.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One encrypted chunk of a streamed FILE credential. Chunks of a file share its {@code fileId};
+ * each holds up to the file's chunk size of plaintext, optionally deflated before encryption.
+ * Written and read with plain JDBC so uploads and downloads never hold more than one chunk.
+ * {@code createdAt} lets the orphan sweep tell an upload still in progress from an abandoned one.
+ */
+@Entity
+@Table(name = "credential_file_chunks",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"file_id", "chunk_index"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CredentialFileChunk {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "file_id", nullable = false)
+    private UUID fileId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    @Column(nullable = false)
+    private boolean compressed;
+
+    @Column(nullable = false)
+    private byte[] data;
+
+    @Column(name = "created_at", columnDefinition = "timestamp(6) with time zone default now()")
+    private Instant createdAt;
+}
@@ -0,0 +1,49 @@
+package com.devportal.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Materialized state of a project's credentials as of {@code asOf}, derived from the version log.
+ * The state at any later time is this snapshot plus the versions after it. {@code historyStart}
+ * marks the snapshot that older, pruned history was folded into.
+ */
+@Entity
+@Table(name = "credential_snapshots",
+        indexes = @Index(name = "idx_credential_snapshots_project_as_of", columnList = "project_id, as_of"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CredentialSnapshot {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "project_id", nullable = false)
+    private UUID projectId;
+
+    @Column(name = "as_of", nullable = false)
+    private Instant asOf;
+
+    @Column(name = "entry_count", nullable = false)
+    private int entryCount;
+
+    @Column(name = "history_start", nullable = false)
+    private boolean historyStart;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
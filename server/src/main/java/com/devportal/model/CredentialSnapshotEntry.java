@@ -0,0 +1,72 @@
+package com.devportal.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One credential as it stood in a {@link CredentialSnapshot}.
+ */
+@Entity
+@Table(name = "credential_snapshot_entries",
+        indexes = {
+                @Index(name = "idx_credential_snapshot_entries_snapshot", columnList = "snapshot_id"),
+                @Index(name = "idx_credential_snapshot_entries_file", columnList = "file_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CredentialSnapshotEntry {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "snapshot_id", nullable = false)
+    private UUID snapshotId;
+
+    @Column(name = "credential_id", nullable = false)
+    private UUID credentialId;
+
+    @Column(name = "credential_key", nullable = false)
+    private String key;
+
+    @Column(name = "value_ciphertext")
+    private byte[] valueCiphertext;
+
+    @Column(name = "value_fingerprint", length = 64)
+    private String valueFingerprint;
+
+    @Column(name = "file_id")
+    private UUID fileId;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "file_chunk_size")
+    private Integer fileChunkSize;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    private CredentialType type;
+
+    @Column(name = "updated_by")
+    private UUID updatedBy;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
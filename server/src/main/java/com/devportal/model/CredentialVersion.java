@@ -0,0 +1,93 @@
+package com.devportal.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Append-only history of credential changes: the credential's full state after each create or
+ * update, or a tombstone for a delete. Ciphertext is copied as stored, so a version stays readable
+ * for as long as its project's data keys exist. Written with plain JDBC; {@code seq} orders
+ * versions that share a timestamp.
+ */
+@Entity
+@Table(name = "credential_versions",
+        indexes = {
+                @Index(name = "idx_credential_versions_project_changed", columnList = "project_id, changed_at"),
+                @Index(name = "idx_credential_versions_credential_seq", columnList = "credential_id, seq"),
+                @Index(name = "idx_credential_versions_file", columnList = "file_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CredentialVersion {
+
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "bigserial")
+    private long seq;
+
+    @Column(name = "credential_id", nullable = false)
+    private UUID credentialId;
+
+    @Column(name = "project_id", nullable = false)
+    private UUID projectId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Operation operation;
+
+    @Column(name = "credential_key", nullable = false)
+    private String key;
+
+    @Column(name = "value_ciphertext")
+    private byte[] valueCiphertext;
+
+    /**
+     * The value's fingerprint as it was, so a restore brings it back with the ciphertext.
+     * Null for rows written before history kept fingerprints.
+     */
+    @Column(name = "value_fingerprint", length = 64)
+    private String valueFingerprint;
+
+    @Column(name = "file_id")
+    private UUID fileId;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "file_chunk_size")
+    private Integer fileChunkSize;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    private CredentialType type;
+
+    @Column(name = "changed_by")
+    private UUID changedBy;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
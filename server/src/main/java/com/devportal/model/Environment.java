@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,7 +19,8 @@ import java.util.UUID;
  * Top-level environment (e.g. qa, staging, prod). Contains multiple projects.
  */
 @Entity
-@Table(name = "environments")
+@Table(name = "environments",
+        indexes = @Index(name = "idx_environments_name", columnList = "name"))
 @Getter
 @Setter
 @NoArgsConstructor
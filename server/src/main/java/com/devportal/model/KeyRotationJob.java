@@ -0,0 +1,90 @@
+package com.devportal.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Progress of a background key rotation. {@code checkpoint} is the last row id whose batch
+ * committed in the current {@code phase}, so a restarted job resumes right after it.
+ */
+@Entity
+@Table(name = "key_rotation_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class KeyRotationJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Mode mode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    /** Table a REENCRYPT job is walking; null for REWRAP. */
+    @Enumerated(EnumType.STRING)
+    private Phase phase;
+
+    private UUID checkpoint;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(nullable = false)
+    private long rotated;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(columnDefinition = "text")
+    private String error;
+
+    public enum Mode {
+        /** Re-wrap project data keys under the active master key; credential rows are untouched. */
+        REWRAP,
+        /** Give every project a fresh data key and re-encrypt its credentials with it. */
+        REENCRYPT
+    }
+
+    /** REENCRYPT walks these tables in order. */
+    public enum Phase {
+        CREDENTIALS,
+        FILE_CHUNKS,
+        VERSIONS,
+        SNAPSHOT_ENTRIES
+    }
+
+    public enum Status {
+        RUNNING,
+        PAUSED,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -21,7 +22,8 @@ import java.util.UUID;
  * Project under an environment (e.g. air-sms, supply-core under qa). Contains credentials.
  */
 @Entity
-@Table(name = "projects")
+@Table(name = "projects",
+        indexes = @Index(name = "idx_projects_env_name", columnList = "environment_id, name"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,59 @@
+package com.devportal.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A project's data-encryption key, stored wrapped (encrypted) under a master key from the key ring.
+ * Credential ciphertext names the data key version it was written with; the highest version is active.
+ * A superseded version is retired once nothing references it: its wrapped key is erased.
+ */
+@Entity
+@Table(name = "project_data_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"project_id", "version"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProjectDataKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    private Project project;
+
+    @Column(nullable = false)
+    private int version;
+
+    @Column(name = "master_key_id", nullable = false)
+    private int masterKeyId;
+
+    @Column(name = "wrapped_key", nullable = false)
+    private byte[] wrappedKey;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "retired_at")
+    private Instant retiredAt;
+}
@@ -14,6 +14,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.util.UUID;
 
 @Entity
@@ -46,6 +47,10 @@ public class User {
     @Builder.Default
     private boolean active = true;
 
+    /** Access tokens issued up to this instant are rejected in stateless principal mode. */
+    @Column(name = "tokens_revoked_at")
+    private Instant tokensRevokedAt;
+
     public enum Role {
         DEVELOPER,
         ADMIN
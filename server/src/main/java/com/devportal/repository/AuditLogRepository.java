@@ -3,8 +3,10 @@ package com.devportal.repository;
 import com.devportal.model.AuditLog;
 import com.devportal.model.Project;
 import com.devportal.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.util.List;
@@ -12,8 +14,17 @@ import java.util.UUID;
 
 public interface AuditLogRepository extends JpaRepository<AuditLog, UUID> {
 
-    @Query("SELECT a FROM AuditLog a LEFT JOIN FETCH a.user LEFT JOIN FETCH a.project p LEFT JOIN FETCH p.environment LEFT JOIN FETCH a.environment ORDER BY a.createdAt DESC")
-    List<AuditLog> findAllWithDetails();
+    /**
+     * Newest first; the page after {@code (afterTime, afterId)} when given.
+     */
+    @Query("SELECT a FROM AuditLog a LEFT JOIN FETCH a.user LEFT JOIN FETCH a.project p LEFT JOIN FETCH p.environment LEFT JOIN FETCH a.environment "
+            + "WHERE (:action IS NULL OR a.action = :action) "
+            + "AND (:afterTime IS NULL OR a.createdAt < :afterTime OR (a.createdAt = :afterTime AND a.id < :afterId)) "
+            + "ORDER BY a.createdAt DESC, a.id DESC")
+    List<AuditLog> findPageWithDetails(@Param("action") String action,
+                                       @Param("afterTime") Instant afterTime,
+                                       @Param("afterId") UUID afterId,
+                                       Limit limit);
 
     List<AuditLog> findByUser(User user);
 
@@ -0,0 +1,23 @@
+package com.devportal.repository;
+
+import com.devportal.model.CredentialFileChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.UUID;
+
+public interface CredentialFileChunkRepository extends JpaRepository<CredentialFileChunk, UUID> {
+
+    /**
+     * Deletes a chunk set once no credential, version or snapshot entry references it.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM credential_file_chunks WHERE file_id = :fileId"
+            + " AND NOT EXISTS (SELECT 1 FROM credentials WHERE file_id = :fileId)"
+            + " AND NOT EXISTS (SELECT 1 FROM credential_versions WHERE file_id = :fileId)"
+            + " AND NOT EXISTS (SELECT 1 FROM credential_snapshot_entries WHERE file_id = :fileId)",
+            nativeQuery = true)
+    int deleteIfUnreferenced(@Param("fileId") UUID fileId);
+}
@@ -1,15 +1,54 @@
 package com.devportal.repository;
 
+import com.devportal.dto.CredentialSummary;
 import com.devportal.model.Credential;
+import com.devportal.model.CredentialType;
 import com.devportal.model.Project;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface CredentialRepository extends JpaRepository<Credential, UUID> {
 
     List<Credential> findByProject(Project project);
 
+    /**
+     * Masked listing: metadata only, without loading ciphertext or the entity graph.
+     */
+    @Query("SELECT new com.devportal.dto.CredentialSummary(c.id, c.project.id, c.key, c.type, c.description, "
+            + "c.fileSize, u.id, c.updatedAt) "
+            + "FROM Credential c LEFT JOIN c.updatedBy u WHERE c.project = :project "
+            + "AND (:keyPattern IS NULL OR LOWER(c.key) LIKE :keyPattern ESCAPE '\\') "
+            + "AND (:type IS NULL OR c.type = :type) "
+            + "AND (:afterKey IS NULL OR c.key > :afterKey OR (c.key = :afterKey AND c.id > :afterId)) "
+            + "ORDER BY c.key, c.id")
+    List<CredentialSummary> findSummaryPage(@Param("project") Project project,
+                                            @Param("keyPattern") String keyPattern,
+                                            @Param("type") CredentialType type,
+                                            @Param("afterKey") String afterKey,
+                                            @Param("afterId") UUID afterId,
+                                            Limit limit);
+
+    List<Credential> findByProjectAndIdIn(Project project, Collection<UUID> ids);
+
     boolean existsByProjectAndKeyIgnoreCase(Project project, String key);
+
+    @Query("SELECT c.key FROM Credential c WHERE c.project = :project")
+    List<String> findKeysByProject(@Param("project") Project project);
+
+    /**
+     * The credential with its project and environment, provided it belongs to that project in
+     * that environment.
+     */
+    @Query("SELECT c FROM Credential c JOIN FETCH c.project p JOIN FETCH p.environment e "
+            + "WHERE c.id = :id AND p.id = :projectId AND e.id = :envId")
+    Optional<Credential> findInProject(@Param("envId") UUID envId,
+                                       @Param("projectId") UUID projectId,
+                                       @Param("id") UUID id);
 }
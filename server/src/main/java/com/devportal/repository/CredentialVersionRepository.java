@@ -0,0 +1,27 @@
+package com.devportal.repository;
+
+import com.devportal.dto.CredentialVersionSummary;
+import com.devportal.model.CredentialVersion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface CredentialVersionRepository extends JpaRepository<CredentialVersion, UUID> {
+
+    /**
+     * A credential's history, newest first, without ciphertext.
+     */
+    @Query("SELECT new com.devportal.dto.CredentialVersionSummary(v.id, v.seq, v.credentialId, v.operation, v.key, "
+            + "v.type, v.description, v.fileSize, v.changedBy, v.changedAt) "
+            + "FROM CredentialVersion v WHERE v.projectId = :projectId AND v.credentialId = :credentialId "
+            + "AND (:afterSeq IS NULL OR v.seq < :afterSeq) "
+            + "ORDER BY v.seq DESC")
+    List<CredentialVersionSummary> findSummaryPage(@Param("projectId") UUID projectId,
+                                                   @Param("credentialId") UUID credentialId,
+                                                   @Param("afterSeq") Long afterSeq,
+                                                   Limit limit);
+}
@@ -1,11 +1,24 @@
 package com.devportal.repository;
 
 import com.devportal.model.Environment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface EnvironmentRepository extends JpaRepository<Environment, UUID> {
 
     boolean existsByNameIgnoreCase(String name);
+
+    @Query("SELECT e FROM Environment e "
+            + "WHERE (:namePattern IS NULL OR LOWER(e.name) LIKE :namePattern ESCAPE '\\') "
+            + "AND (:afterName IS NULL OR e.name > :afterName OR (e.name = :afterName AND e.id > :afterId)) "
+            + "ORDER BY e.name, e.id")
+    List<Environment> findPage(@Param("namePattern") String namePattern,
+                               @Param("afterName") String afterName,
+                               @Param("afterId") UUID afterId,
+                               Limit limit);
 }
@@ -0,0 +1,15 @@
+package com.devportal.repository;
+
+import com.devportal.model.KeyRotationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface KeyRotationJobRepository extends JpaRepository<KeyRotationJob, UUID> {
+
+    List<KeyRotationJob> findByStatus(KeyRotationJob.Status status);
+
+    Optional<KeyRotationJob> findFirstByOrderByStartedAtDesc();
+}
@@ -0,0 +1,23 @@
+package com.devportal.repository;
+
+import com.devportal.model.ProjectDataKey;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ProjectDataKeyRepository extends JpaRepository<ProjectDataKey, UUID> {
+
+    @Query("SELECT k FROM ProjectDataKey k WHERE k.project.id = :projectId ORDER BY k.version DESC")
+    List<ProjectDataKey> findByProjectId(@Param("projectId") UUID projectId);
+
+    List<ProjectDataKey> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM ProjectDataKey k WHERE k.project.id = :projectId")
+    int deleteByProjectId(@Param("projectId") UUID projectId);
+}
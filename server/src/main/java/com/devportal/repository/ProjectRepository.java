@@ -2,7 +2,10 @@ package com.devportal.repository;
 
 import com.devportal.model.Environment;
 import com.devportal.model.Project;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
@@ -12,4 +15,18 @@ public interface ProjectRepository extends JpaRepository<Project, UUID> {
     List<Project> findByEnvironment(Environment environment);
 
     boolean existsByEnvironmentAndNameIgnoreCase(Environment environment, String name);
+
+    @Query("SELECT p FROM Project p WHERE p.environment.id = :envId "
+            + "AND (:namePattern IS NULL OR LOWER(p.name) LIKE :namePattern ESCAPE '\\') "
+            + "AND (:status IS NULL OR p.status = :status) "
+            + "AND (:team IS NULL OR p.team = :team) "
+            + "AND (:afterName IS NULL OR p.name > :afterName OR (p.name = :afterName AND p.id > :afterId)) "
+            + "ORDER BY p.name, p.id")
+    List<Project> findPage(@Param("envId") UUID envId,
+                           @Param("namePattern") String namePattern,
+                           @Param("status") String status,
+                           @Param("team") String team,
+                           @Param("afterName") String afterName,
+                           @Param("afterId") UUID afterId,
+                           Limit limit);
 }
@@ -0,0 +1,27 @@
+package com.devportal.repository;
+
+import com.devportal.model.RevokedRefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface RevokedRefreshTokenRepository extends JpaRepository<RevokedRefreshToken, UUID> {
+
+    /**
+     * Inserts the id unless it is already present; returns 0 when it was (i.e. the token was reused).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO revoked_refresh_tokens (id, expires_at, revoked_at) VALUES (:id, :expiresAt, :revokedAt) ON CONFLICT (id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id,
+                       @Param("expiresAt") Instant expiresAt,
+                       @Param("revokedAt") Instant revokedAt);
+
+    @Modifying
+    @Query("DELETE FROM RevokedRefreshToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
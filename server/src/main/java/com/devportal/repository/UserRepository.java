@@ -1,8 +1,12 @@
 package com.devportal.repository;
 
 import com.devportal.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,5 +17,16 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByRole(User.Role role);
 
     long countByRoleAndActiveTrue(User.Role role);
+
+    @Query("SELECT u FROM User u "
+            + "WHERE (:role IS NULL OR u.role = :role) "
+            + "AND (:emailPattern IS NULL OR LOWER(u.email) LIKE :emailPattern ESCAPE '\\') "
+            + "AND (:afterEmail IS NULL OR u.email > :afterEmail OR (u.email = :afterEmail AND u.id > :afterId)) "
+            + "ORDER BY u.email, u.id")
+    List<User> findPage(@Param("role") User.Role role,
+                        @Param("emailPattern") String emailPattern,
+                        @Param("afterEmail") String afterEmail,
+                        @Param("afterId") UUID afterId,
+                        Limit limit);
 }
 
@@ -0,0 +1,50 @@
+package com.devportal.security;
+
+import com.devportal.model.User;
+import com.devportal.repository.UserRepository;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.UUID;
+
+/**
+ * The authenticated user of the current request, resolved from the principal the JWT filter
+ * already built. {@link #reference()} hands out a lazy JPA reference by id, so attaching the
+ * user to audit rows or {@code updatedBy} never queries the users table.
+ */
+@Component
+@RequestScope
+public class CurrentUser {
+
+    private final UserRepository userRepository;
+    private User reference;
+
+    public CurrentUser(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public UUID getId() {
+        return principal().getId();
+    }
+
+    public String getEmail() {
+        return principal().getUsername();
+    }
+
+    public User reference() {
+        if (reference == null) {
+            reference = userRepository.getReferenceById(getId());
+        }
+        return reference;
+    }
+
+    private CustomUserDetails principal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof CustomUserDetails details) {
+            return details;
+        }
+        throw new IllegalArgumentException("User not found");
+    }
+}
@@ -14,21 +14,38 @@ public class CustomUserDetails implements UserDetails {
     private final UUID id;
     private final String email;
     private final String passwordHash;
+    private final User.Role role;
     private final boolean active;
     private final Collection<? extends GrantedAuthority> authorities;
 
     public CustomUserDetails(User user) {
-        this.id = user.getId();
-        this.email = user.getEmail();
-        this.passwordHash = user.getPasswordHash();
-        this.active = user.isActive();
-        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+        this(user.getId(), user.getEmail(), user.getPasswordHash(), user.getRole(), user.isActive());
+    }
+
+    /**
+     * Principal built from signed token claims, without a password hash.
+     */
+    public CustomUserDetails(UUID id, String email, User.Role role, boolean active) {
+        this(id, email, null, role, active);
+    }
+
+    private CustomUserDetails(UUID id, String email, String passwordHash, User.Role role, boolean active) {
+        this.id = id;
+        this.email = email;
+        this.passwordHash = passwordHash;
+        this.role = role;
+        this.active = active;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
     }
 
     public UUID getId() {
         return id;
     }
 
+    public User.Role getRole() {
+        return role;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -0,0 +1,12 @@
+package com.devportal.security;
+
+/**
+ * A presented token is well-formed but no longer acceptable (revoked, reused or of the wrong type).
+ * Rendered as 401.
+ */
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
@@ -1,11 +1,13 @@
 package com.devportal.security;
 
+import com.devportal.model.User;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,16 +19,24 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.UUID;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final JwtVerifier jwtVerifier;
     private final CustomUserDetailsService userDetailsService;
+    private final UserRevocationRegistry revocationRegistry;
+    private final boolean statelessPrincipal;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
-        this.jwtUtil = jwtUtil;
+    public JwtAuthenticationFilter(JwtVerifier jwtVerifier,
+                                   CustomUserDetailsService userDetailsService,
+                                   UserRevocationRegistry revocationRegistry,
+                                   @Value("${devportal.jwt.stateless-principal:false}") boolean statelessPrincipal) {
+        this.jwtVerifier = jwtVerifier;
         this.userDetailsService = userDetailsService;
+        this.revocationRegistry = revocationRegistry;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -42,18 +52,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         if (StringUtils.hasText(token)) {
             try {
-                Claims claims = jwtUtil.parseToken(token);
+                Claims claims = jwtVerifier.verify(token);
                 String username = claims.getSubject();
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails,
-                                    null,
-                                    userDetails.getAuthorities()
-                            );
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                boolean refreshToken = JwtUtil.TOKEN_TYPE_REFRESH.equals(claims.get(JwtUtil.CLAIM_TOKEN_TYPE, String.class));
+                if (username != null && !refreshToken && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails userDetails = resolvePrincipal(claims);
+                    if (userDetails != null) {
+                        UsernamePasswordAuthenticationToken authentication =
+                                new UsernamePasswordAuthenticationToken(
+                                        userDetails,
+                                        null,
+                                        userDetails.getAuthorities()
+                                );
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                    }
                 }
             } catch (Exception ex) {
                 // Invalid token; ignore and continue filter chain without authentication
@@ -63,6 +76,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * In stateless mode the principal comes straight from the signed claims; tokens of
+     * inactive or revoked users yield no principal. Tokens issued before the claims were
+     * added fall back to the users-table lookup.
+     */
+    private UserDetails resolvePrincipal(Claims claims) {
+        String userId = claims.get(JwtUtil.CLAIM_USER_ID, String.class);
+        if (!statelessPrincipal || userId == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        UUID id = UUID.fromString(userId);
+        boolean active = Boolean.parseBoolean(claims.get(JwtUtil.CLAIM_ACTIVE, String.class));
+        if (!active || revocationRegistry.isRevoked(id, claims.getIssuedAt())) {
+            return null;
+        }
+        User.Role role = User.Role.valueOf(claims.get(JwtUtil.CLAIM_ROLE, String.class));
+        return new CustomUserDetails(id, claims.getSubject(), role, true);
+    }
+
     private String getTokenFromCookie(HttpServletRequest request) {
         Cookie[] cookies = request.getCookies();
         if (cookies == null) return null;
@@ -73,4 +105,3 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 .orElse(null);
     }
 }
-
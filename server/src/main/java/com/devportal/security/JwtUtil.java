@@ -1,6 +1,8 @@
 package com.devportal.security;
 
+import com.devportal.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -10,19 +12,29 @@ import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ACTIVE = "active";
+    public static final String CLAIM_TOKEN_TYPE = "typ";
+    public static final String CLAIM_FAMILY = "fam";
+    public static final String TOKEN_TYPE_REFRESH = "refresh";
+
     private static final int MIN_KEY_BYTES = 32;
 
     private final Key key;
+    private final JwtParser parser;
     private final long accessTokenExpirationMinutes;
     private final long refreshTokenExpirationDays;
 
@@ -33,10 +45,24 @@ public class JwtUtil {
     ) {
         byte[] keyBytes = secretToKeyBytes(secret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
         this.accessTokenExpirationMinutes = accessTokenExpirationMinutes;
         this.refreshTokenExpirationDays = refreshTokenExpirationDays;
     }
 
+    /**
+     * Access token carrying the claims needed to build a principal without a users-table lookup.
+     */
+    public String generateAccessToken(UUID userId, String email, User.Role role, boolean active) {
+        Map<String, String> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, userId.toString());
+        claims.put(CLAIM_ROLE, role.name());
+        claims.put(CLAIM_ACTIVE, Boolean.toString(active));
+        return generateAccessToken(email, claims);
+    }
+
     public String generateAccessToken(String subject, Map<String, String> claims) {
         Instant now = Instant.now();
         Instant expiry = now.plus(accessTokenExpirationMinutes, ChronoUnit.MINUTES);
@@ -53,10 +79,17 @@ public class JwtUtil {
                 .compact();
     }
 
-    public String generateRefreshToken(String subject) {
+    /**
+     * Refresh token with its own id (jti) and the id of the rotation family it belongs to;
+     * every token minted by refreshing carries the family id of the login that started it.
+     */
+    public String generateRefreshToken(String subject, UUID tokenId, UUID familyId) {
         Instant now = Instant.now();
         Instant expiry = now.plus(refreshTokenExpirationDays, ChronoUnit.DAYS);
         return Jwts.builder()
+                .setId(tokenId.toString())
+                .claim(CLAIM_TOKEN_TYPE, TOKEN_TYPE_REFRESH)
+                .claim(CLAIM_FAMILY, familyId.toString())
                 .setSubject(subject)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(expiry))
@@ -64,12 +97,19 @@ public class JwtUtil {
                 .compact();
     }
 
+    public Duration getRefreshTokenLifetime() {
+        return Duration.ofDays(refreshTokenExpirationDays);
+    }
+
     public Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * The prebuilt parser is immutable and safe to share across request threads.
+     */
+    JwtParser parser() {
+        return parser;
     }
 
     /**
@@ -0,0 +1,154 @@
+package com.devportal.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies access tokens with a single shared parser and remembers the claims of tokens
+ * that already passed signature verification, so a browser sending the same cookie on
+ * every request pays for HMAC and JSON parsing only once per token.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token (never the token itself) and expire
+ * no later than the token's own {@code exp}. Returned claims are shared between requests and
+ * must be treated as read-only.
+ */
+@Component
+public class JwtVerifier {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final JwtParser parser;
+    private final int maxEntries;
+    private final long maxTtlMillis;
+    private final Map<TokenDigest, CachedClaims> cache = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public JwtVerifier(JwtUtil jwtUtil,
+                       @Value("${devportal.jwt.verify-cache.max-entries:10000}") int maxEntries,
+                       @Value("${devportal.jwt.verify-cache.max-ttl-seconds:300}") long maxTtlSeconds) {
+        this.parser = jwtUtil.parser();
+        this.maxEntries = maxEntries;
+        this.maxTtlMillis = maxTtlSeconds * 1000;
+    }
+
+    /**
+     * Returns the verified claims of the token, from cache when the same token was verified before.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims verify(String token) {
+        if (maxEntries <= 0) {
+            misses.increment();
+            return parser.parseClaimsJws(token).getBody();
+        }
+        TokenDigest digest = TokenDigest.of(token);
+        long now = System.currentTimeMillis();
+        CachedClaims cached = cache.get(digest);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                hits.increment();
+                return cached.claims();
+            }
+            cache.remove(digest, cached);
+        }
+        misses.increment();
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            long expiresAt = Math.min(expiration.getTime(), now + maxTtlMillis);
+            cache.put(digest, new CachedClaims(claims, expiresAt));
+            if (cache.size() > maxEntries) {
+                evict(now);
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Drops every cached verification, e.g. after a signing key change.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes expired entries first; if the cache is still over its bound, removes arbitrary
+     * entries until it is back at 90% capacity. Only one thread sweeps at a time.
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<CachedClaims> it = cache.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiresAtMillis() <= now) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+            int target = maxEntries - maxEntries / 10;
+            it = cache.values().iterator();
+            while (cache.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private record CachedClaims(Claims claims, long expiresAtMillis) {
+    }
+
+    /**
+     * SHA-256 digest held as four longs, so cache keys are compact and cheap to compare.
+     */
+    private record TokenDigest(long a, long b, long c, long d) {
+
+        static TokenDigest of(String token) {
+            MessageDigest md = SHA256.get();
+            ByteBuffer buf = ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(buf.getLong(), buf.getLong(), buf.getLong(), buf.getLong());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.devportal.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Throttling for the expensive route families (auth, reveal, bundle, write, import), per user
+ * for authenticated requests and per client IP otherwise. Runs right after
+ * {@link JwtAuthenticationFilter} so the principal is known; decisions are made entirely in
+ * memory. Rejected requests get 429 with Retry-After.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    enum RouteFamily {
+        AUTH,
+        REVEAL,
+        BUNDLE,
+        WRITE,
+        IMPORT
+    }
+
+    private final boolean enabled;
+    private final Map<RouteFamily, TokenBucketStore.Limit> limits = new EnumMap<>(RouteFamily.class);
+    private final TokenBucketStore buckets;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder limited = new LongAdder();
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public RateLimitFilter(
+            @Value("${devportal.rate-limit.enabled:true}") boolean enabled,
+            @Value("${devportal.rate-limit.idle-eviction-seconds:600}") long idleEvictionSeconds,
+            @Value("${devportal.rate-limit.auth.capacity:10}") int authCapacity,
+            @Value("${devportal.rate-limit.auth.per-minute:30}") int authPerMinute,
+            @Value("${devportal.rate-limit.reveal.capacity:60}") int revealCapacity,
+            @Value("${devportal.rate-limit.reveal.per-minute:600}") int revealPerMinute,
+            @Value("${devportal.rate-limit.bundle.capacity:500}") int bundleCapacity,
+            @Value("${devportal.rate-limit.bundle.per-minute:3000}") int bundlePerMinute,
+            @Value("${devportal.rate-limit.write.capacity:30}") int writeCapacity,
+            @Value("${devportal.rate-limit.write.per-minute:300}") int writePerMinute,
+            @Value("${devportal.rate-limit.import.capacity:2}") int importCapacity,
+            @Value("${devportal.rate-limit.import.per-minute:10}") int importPerMinute) {
+        this(enabled, idleEvictionSeconds, authCapacity, authPerMinute, revealCapacity, revealPerMinute,
+                bundleCapacity, bundlePerMinute, writeCapacity, writePerMinute, importCapacity, importPerMinute,
+                System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock monotonic time source, replaceable in tests
+     */
+    RateLimitFilter(boolean enabled, long idleEvictionSeconds,
+                    int authCapacity, int authPerMinute,
+                    int revealCapacity, int revealPerMinute,
+                    int bundleCapacity, int bundlePerMinute,
+                    int writeCapacity, int writePerMinute,
+                    int importCapacity, int importPerMinute,
+                    LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.nanoClock = nanoClock;
+        this.buckets = new TokenBucketStore(TimeUnit.SECONDS.toNanos(idleEvictionSeconds));
+        limits.put(RouteFamily.AUTH, TokenBucketStore.Limit.of(authCapacity, authPerMinute));
+        limits.put(RouteFamily.REVEAL, TokenBucketStore.Limit.of(revealCapacity, revealPerMinute));
+        limits.put(RouteFamily.BUNDLE, TokenBucketStore.Limit.of(bundleCapacity, bundlePerMinute));
+        limits.put(RouteFamily.WRITE, TokenBucketStore.Limit.of(writeCapacity, writePerMinute));
+        limits.put(RouteFamily.IMPORT, TokenBucketStore.Limit.of(importCapacity, importPerMinute));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RouteFamily family = enabled ? classify(request) : null;
+        if (family == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        TokenBucketStore.Limit limit = limits.get(family);
+        // Authenticated callers are limited per user only: CI runners behind one NAT or proxy share
+        // an address, and must not share a bucket. The address limits anonymous calls such as login.
+        String userId = currentUserId();
+        String key = userId != null ? "user:" + family + ":" + userId : "ip:" + family + ":" + request.getRemoteAddr();
+        long waitNanos = buckets.tryAcquire(key, limit, nanoClock.getAsLong());
+        if (waitNanos > 0) {
+            limited.increment();
+            reject(response, waitNanos);
+            return;
+        }
+        allowed.increment();
+        filterChain.doFilter(request, response);
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getLimitedCount() {
+        return limited.sum();
+    }
+
+    public int getTrackedBuckets() {
+        return buckets.size();
+    }
+
+    static RouteFamily classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if (!path.startsWith("/api/") || HttpMethod.OPTIONS.matches(method)) {
+            return null;
+        }
+        if (path.startsWith("/api/auth/")) {
+            return HttpMethod.POST.matches(method) && !path.equals("/api/auth/logout") ? RouteFamily.AUTH : null;
+        }
+        if (path.endsWith("/reveal") || (path.endsWith("/file") && HttpMethod.GET.matches(method))) {
+            return RouteFamily.REVEAL;
+        }
+        if (path.endsWith("/bundle")) {
+            return RouteFamily.BUNDLE;
+        }
+        if (path.endsWith("/import") || path.endsWith("/export")) {
+            return RouteFamily.IMPORT;
+        }
+        if (HttpMethod.POST.matches(method) || HttpMethod.PUT.matches(method) || HttpMethod.DELETE.matches(method)) {
+            return RouteFamily.WRITE;
+        }
+        return null;
+    }
+
+    private String currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof CustomUserDetails details) {
+            return details.getId().toString();
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"code\":\"RATE_LIMITED\",\"message\":\"Too many requests\",\"timestamp\":\""
+                + Instant.now() + "\"}");
+    }
+}
@@ -0,0 +1,86 @@
+package com.devportal.security;
+
+import com.devportal.repository.RevokedRefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Revoked refresh-token ids and token families, persisted in {@code revoked_refresh_tokens}.
+ * <p>
+ * Every instance reads revocations from the table, so a family revoked on one instance (logout,
+ * reuse detection) is refused by all of them at once. A refresh still costs a single statement:
+ * {@link #rotate} checks the family and records the presented token id together.
+ */
+@Component
+public class RefreshTokenRevocationStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenRevocationStore.class);
+
+    private static final String ROTATE_SQL = """
+            WITH family AS (
+                SELECT EXISTS (SELECT 1 FROM revoked_refresh_tokens WHERE id = ?) AS revoked
+            ), inserted AS (
+                INSERT INTO revoked_refresh_tokens (id, expires_at, revoked_at)
+                SELECT ?, ?, ? FROM family WHERE NOT family.revoked
+                ON CONFLICT (id) DO NOTHING
+                RETURNING id
+            )
+            SELECT CASE WHEN (SELECT revoked FROM family) THEN 'FAMILY_REVOKED'
+                        WHEN EXISTS (SELECT 1 FROM inserted) THEN 'ROTATED'
+                        ELSE 'REUSED' END
+            """;
+
+    public enum Rotation {
+        /** The token was valid and is now spent. */
+        ROTATED,
+        /** The token had already been rotated or logged out. */
+        REUSED,
+        /** The token's family was revoked. */
+        FAMILY_REVOKED
+    }
+
+    private final RevokedRefreshTokenRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public RefreshTokenRevocationStore(RevokedRefreshTokenRepository repository, JdbcTemplate jdbcTemplate) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Spends the token id unless it or its family is already revoked.
+     */
+    public Rotation rotate(UUID tokenId, Instant tokenExpiresAt, UUID familyId) {
+        String result = jdbcTemplate.queryForObject(ROTATE_SQL, String.class,
+                familyId, tokenId, Timestamp.from(tokenExpiresAt), Timestamp.from(Instant.now()));
+        return Rotation.valueOf(result);
+    }
+
+    /**
+     * Records the id as revoked.
+     *
+     * @return false if the id had already been revoked
+     */
+    @Transactional
+    public boolean revoke(UUID id, Instant expiresAt) {
+        return repository.insertIfAbsent(id, expiresAt, Instant.now()) > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${devportal.jwt.refresh-revocation.purge-interval-ms:300000}",
+            initialDelayString = "${devportal.jwt.refresh-revocation.purge-interval-ms:300000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(Instant.now());
+        if (purged > 0) {
+            log.debug("Purged {} expired refresh-token revocations", purged);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.devportal.security;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be retried later.
+ * Rendered as 503 with a Retry-After header.
+ */
+public class ServerBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServerBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
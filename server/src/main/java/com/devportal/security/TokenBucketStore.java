@@ -0,0 +1,85 @@
+package com.devportal.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets keyed by string, spread over independent stripes.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding its theoretical arrival time (GCRA):
+ * a request is admitted when that time is no more than the burst tolerance ahead of now,
+ * and admission advances it by one emission interval with a CAS. Buckets that have been full
+ * for longer than the idle timeout are dropped, one stripe at a time, on the request path.
+ */
+class TokenBucketStore {
+
+    private static final int STRIPES = 16;
+    private static final int SWEEP_EVERY = 1024;
+
+    private final Map<String, AtomicLong>[] stripes;
+    private final long idleTimeoutNanos;
+    private final AtomicInteger operations = new AtomicInteger();
+    private final AtomicInteger nextSweep = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    TokenBucketStore(long idleTimeoutNanos) {
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    /**
+     * Takes one token from the bucket for {@code key}.
+     *
+     * @return 0 if admitted, otherwise the nanoseconds until a token becomes available
+     */
+    long tryAcquire(String key, Limit limit, long nowNanos) {
+        if ((operations.incrementAndGet() & (SWEEP_EVERY - 1)) == 0) {
+            sweep(nowNanos);
+        }
+        AtomicLong tat = stripe(key).computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, nowNanos);
+            long ahead = base - nowNanos;
+            if (ahead > limit.toleranceNanos()) {
+                return ahead - limit.toleranceNanos();
+            }
+            if (tat.compareAndSet(current, base + limit.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Map<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Map<String, AtomicLong> stripe(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private void sweep(long nowNanos) {
+        Map<String, AtomicLong> stripe = stripes[(nextSweep.getAndIncrement() & 0x7fffffff) % STRIPES];
+        stripe.values().removeIf(tat -> nowNanos - tat.get() > idleTimeoutNanos);
+    }
+
+    /**
+     * Bucket shape: {@code capacity} requests in a burst, refilled at {@code perMinute}.
+     */
+    record Limit(long intervalNanos, long toleranceNanos) {
+
+        static Limit of(int capacity, int perMinute) {
+            long interval = 60_000_000_000L / Math.max(1, perMinute);
+            return new Limit(interval, interval * Math.max(0, capacity - 1));
+        }
+    }
+}
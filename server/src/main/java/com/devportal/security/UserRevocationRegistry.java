@@ -0,0 +1,81 @@
+package com.devportal.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user revocation epochs for stateless principals. When an admin changes a user's role
+ * or active flag, every access token issued to that user before the change is rejected.
+ * <p>
+ * The epoch is stored in {@code users.tokens_revoked_at}, so it holds on every instance and
+ * across restarts. Each instance caches a user's epoch for {@code revocation-check-ttl-seconds};
+ * a change made on another instance takes effect here within that time, one indexed lookup per
+ * user and interval. The instance handling the change applies it immediately.
+ */
+@Component
+public class UserRevocationRegistry {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+    private static final long NOT_REVOKED = Long.MIN_VALUE;
+    private static final long UNKNOWN_USER = Long.MAX_VALUE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlNanos;
+    private final Map<UUID, Epoch> epochs = new ConcurrentHashMap<>();
+
+    public UserRevocationRegistry(JdbcTemplate jdbcTemplate,
+                                  @Value("${devportal.jwt.revocation-check-ttl-seconds:10}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    /**
+     * Records on this instance that the user's tokens issued up to {@code at} are revoked. The
+     * caller persists the same instant in {@code users.tokens_revoked_at}.
+     */
+    public void revoke(UUID userId, Instant at) {
+        epochs.put(userId, new Epoch(at.toEpochMilli(), System.nanoTime()));
+    }
+
+    /**
+     * JWT issued-at has second precision, so a token issued in the same second as the
+     * revocation is treated as revoked. Tokens of users that no longer exist are revoked.
+     */
+    public boolean isRevoked(UUID userId, Date issuedAt) {
+        long epoch = epoch(userId);
+        if (epoch == NOT_REVOKED) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.getTime() / 1000 <= epoch / 1000;
+    }
+
+    private long epoch(UUID userId) {
+        long now = System.nanoTime();
+        Epoch cached = epochs.get(userId);
+        if (cached != null && now - cached.loadedAtNanos() < ttlNanos) {
+            return cached.epochMillis();
+        }
+        List<Timestamp> rows = jdbcTemplate.queryForList(
+                "SELECT tokens_revoked_at FROM users WHERE id = ?", Timestamp.class, userId);
+        long epoch = rows.isEmpty() ? UNKNOWN_USER
+                : rows.get(0) == null ? NOT_REVOKED
+                : rows.get(0).getTime();
+        if (epochs.size() >= PRUNE_THRESHOLD) {
+            epochs.values().removeIf(entry -> now - entry.loadedAtNanos() >= ttlNanos);
+        }
+        epochs.put(userId, new Epoch(epoch, now));
+        return epoch;
+    }
+
+    private record Epoch(long epochMillis, long loadedAtNanos) {
+    }
+}
@@ -1,11 +1,14 @@
 package com.devportal.service;
 
+import com.devportal.dto.PageResponse;
 import com.devportal.model.User;
 import com.devportal.repository.UserRepository;
+import com.devportal.security.UserRevocationRegistry;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
@@ -15,15 +18,25 @@ public class AdminService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserRevocationRegistry revocationRegistry;
     private final SecureRandom secureRandom = new SecureRandom();
 
-    public AdminService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AdminService(UserRepository userRepository,
+                        PasswordEncoder passwordEncoder,
+                        UserRevocationRegistry revocationRegistry) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.revocationRegistry = revocationRegistry;
     }
 
-    public List<User> listUsers() {
-        return userRepository.findAll();
+    /**
+     * Users ordered by email, optionally filtered by role and a case-insensitive email prefix.
+     */
+    public PageResponse<User> listUsers(User.Role role, String emailPrefix, String cursor, Integer limit) {
+        PageCursor.Position after = PageCursor.decode(cursor);
+        List<User> rows = userRepository.findPage(role, PageCursor.likePrefix(emailPrefix),
+                PageCursor.value(after), PageCursor.id(after), PageCursor.fetchLimit(limit));
+        return PageCursor.page(rows, limit, User::getEmail, User::getId);
     }
 
     public InviteResult inviteUser(String name, String email, User.Role role) {
@@ -51,9 +64,19 @@ public class AdminService {
                         "Cannot demote or deactivate the last admin. At least one active admin must remain.");
             }
         }
+        boolean changed = user.getRole() != role || user.isActive() != active;
         user.setRole(role);
         user.setActive(active);
-        return userRepository.save(user);
+        Instant revokedAt = Instant.now();
+        if (changed) {
+            // Tokens carrying the old role/active claims must not outlive this change
+            user.setTokensRevokedAt(revokedAt);
+        }
+        User saved = userRepository.save(user);
+        if (changed) {
+            revocationRegistry.revoke(saved.getId(), revokedAt);
+        }
+        return saved;
     }
 
     private String generateRandomPassword() {
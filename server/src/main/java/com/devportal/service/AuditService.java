@@ -1,5 +1,6 @@
 package com.devportal.service;
 
+import com.devportal.dto.PageResponse;
 import com.devportal.model.AuditLog;
 import com.devportal.model.Credential;
 import com.devportal.model.Environment;
@@ -9,6 +10,7 @@ import com.devportal.repository.AuditLogRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @Service
@@ -35,6 +37,42 @@ public class AuditService {
         auditLogRepository.save(log);
     }
 
+    /**
+     * Records a view of each credential, written as one batched insert.
+     */
+    public void logCredentialViews(User user, Project project, List<Credential> credentials, String ipAddress) {
+        Environment env = project.getEnvironment();
+        Instant now = Instant.now();
+        List<AuditLog> logs = credentials.stream()
+                .map(credential -> AuditLog.builder()
+                        .user(user)
+                        .environment(env)
+                        .project(project)
+                        .action("VIEW_CREDENTIAL")
+                        .credentialKey(credential.getKey())
+                        .ipAddress(ipAddress)
+                        .createdAt(now)
+                        .build())
+                .toList();
+        auditLogRepository.saveAll(logs);
+    }
+
+    /**
+     * Records one entry for an operation on many credentials, such as an export or a restore;
+     * {@code project} is null for a whole environment.
+     */
+    public void logBulkAction(User user, Environment env, Project project, String action, String ipAddress) {
+        AuditLog log = AuditLog.builder()
+                .user(user)
+                .environment(env)
+                .project(project)
+                .action(action)
+                .ipAddress(ipAddress)
+                .createdAt(Instant.now())
+                .build();
+        auditLogRepository.save(log);
+    }
+
     public void logCredentialChange(User user, Credential credential, String action, String ipAddress) {
         Project project = credential.getProject();
         Environment env = project != null ? project.getEnvironment() : null;
@@ -50,7 +88,20 @@ public class AuditService {
         auditLogRepository.save(log);
     }
 
-    public List<AuditLog> listAll() {
-        return auditLogRepository.findAllWithDetails();
+    /**
+     * Audit entries newest first, optionally only those with the given action.
+     */
+    public PageResponse<AuditLog> list(String action, String cursor, Integer limit) {
+        PageCursor.Position after = PageCursor.decode(cursor);
+        Instant afterTime;
+        try {
+            afterTime = after != null ? Instant.parse(after.value()) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String actionFilter = action == null || action.isBlank() ? null : action.trim().toUpperCase();
+        List<AuditLog> rows = auditLogRepository.findPageWithDetails(actionFilter, afterTime,
+                PageCursor.id(after), PageCursor.fetchLimit(limit));
+        return PageCursor.page(rows, limit, log -> log.getCreatedAt().toString(), AuditLog::getId);
     }
 }
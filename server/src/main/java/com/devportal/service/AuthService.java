@@ -4,8 +4,12 @@ import com.devportal.dto.AuthResult;
 import com.devportal.dto.LoginRequest;
 import com.devportal.model.User;
 import com.devportal.repository.UserRepository;
+import com.devportal.security.CustomUserDetails;
+import com.devportal.security.InvalidTokenException;
 import com.devportal.security.JwtUtil;
+import com.devportal.security.RefreshTokenRevocationStore;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -13,8 +17,8 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Instant;
+import java.util.UUID;
 
 @Service
 public class AuthService {
@@ -23,47 +27,82 @@ public class AuthService {
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenRevocationStore revocationStore;
 
     public AuthService(AuthenticationManager authenticationManager,
                        UserRepository userRepository,
                        JwtUtil jwtUtil,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       RefreshTokenRevocationStore revocationStore) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.passwordEncoder = passwordEncoder;
+        this.revocationStore = revocationStore;
     }
 
     public AuthResult login(LoginRequest request) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
+        // The provider already loaded the user to check the password; reuse that principal
+        CustomUserDetails user = (CustomUserDetails) authentication.getPrincipal();
 
-        User user = userRepository.findByEmailIgnoreCase(request.getEmail())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Map<String, String> claims = new HashMap<>();
-        claims.put("role", user.getRole().name());
-
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), claims);
-        String refreshToken = jwtUtil.generateRefreshToken(user.getEmail());
-        return new AuthResult(accessToken, refreshToken, user.getEmail(), user.getRole().name());
+        String accessToken = jwtUtil.generateAccessToken(user.getId(), user.getUsername(), user.getRole(), user.isEnabled());
+        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername(), UUID.randomUUID(), UUID.randomUUID());
+        return new AuthResult(accessToken, refreshToken, user.getUsername(), user.getRole().name());
     }
 
+    /**
+     * Rotates the refresh token: the presented token id is revoked and a new token in the same
+     * family is issued. Presenting an already-rotated token revokes the whole family, so a
+     * stolen token and its legitimate successor both stop working.
+     */
     public AuthResult refresh(String refreshToken) {
         Claims claims = jwtUtil.parseToken(refreshToken);
+        UUID tokenId = refreshTokenId(claims);
+        UUID familyId = UUID.fromString(claims.get(JwtUtil.CLAIM_FAMILY, String.class));
+        switch (revocationStore.rotate(tokenId, claims.getExpiration().toInstant(), familyId)) {
+            case FAMILY_REVOKED -> throw new InvalidTokenException("Refresh token revoked");
+            case REUSED -> {
+                revocationStore.revoke(familyId, Instant.now().plus(jwtUtil.getRefreshTokenLifetime()));
+                throw new InvalidTokenException("Refresh token reuse detected; session revoked");
+            }
+            case ROTATED -> {
+            }
+        }
         String email = claims.getSubject();
         User user = userRepository.findByEmailIgnoreCase(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        Map<String, String> newClaims = new HashMap<>();
-        newClaims.put("role", user.getRole().name());
-
-        String newAccessToken = jwtUtil.generateAccessToken(user.getEmail(), newClaims);
-        String newRefreshToken = jwtUtil.generateRefreshToken(user.getEmail());
+        String newAccessToken = jwtUtil.generateAccessToken(user.getId(), user.getEmail(), user.getRole(), user.isActive());
+        String newRefreshToken = jwtUtil.generateRefreshToken(user.getEmail(), UUID.randomUUID(), familyId);
         return new AuthResult(newAccessToken, newRefreshToken, user.getEmail(), user.getRole().name());
     }
 
+    /**
+     * Revokes the refresh token's whole family. Invalid or expired tokens are ignored.
+     */
+    public void logout(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseToken(refreshToken);
+            refreshTokenId(claims);
+        } catch (JwtException | InvalidTokenException e) {
+            return;
+        }
+        revocationStore.revoke(UUID.fromString(claims.get(JwtUtil.CLAIM_FAMILY, String.class)),
+                Instant.now().plus(jwtUtil.getRefreshTokenLifetime()));
+    }
+
+    private UUID refreshTokenId(Claims claims) {
+        if (!JwtUtil.TOKEN_TYPE_REFRESH.equals(claims.get(JwtUtil.CLAIM_TOKEN_TYPE, String.class))
+                || claims.getId() == null || claims.get(JwtUtil.CLAIM_FAMILY, String.class) == null) {
+            throw new InvalidTokenException("Not a refresh token");
+        }
+        return UUID.fromString(claims.getId());
+    }
+
     /**
      * One-time bootstrap: create an admin only if no admin exists yet.
      *
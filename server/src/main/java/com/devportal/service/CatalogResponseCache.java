@@ -0,0 +1,125 @@
+package com.devportal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serialized JSON of catalog list responses, keyed by scope, {@link CatalogVersions} version and
+ * query string, with a strong ETag computed from the bytes. A poll whose version has not moved is
+ * answered from here, or with 304, without a query or serialization.
+ * <p>
+ * Entries also expire after a short TTL: versions only see this instance's writes, so the TTL
+ * bounds how long another instance's change can go unnoticed. Bounded by entry count and total
+ * bytes, least recently used first.
+ */
+@Component
+public class CatalogResponseCache {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CatalogResponseCache(@Value("${devportal.catalog-cache.enabled:true}") boolean enabled,
+                                @Value("${devportal.catalog-cache.ttl-seconds:30}") long ttlSeconds,
+                                @Value("${devportal.catalog-cache.max-entries:2000}") int maxEntries,
+                                @Value("${devportal.catalog-cache.max-bytes:33554432}") long maxBytes) {
+        this.enabled = enabled && maxEntries > 0;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public record Entry(byte[] body, String etag, long expiresAtNanos) {
+    }
+
+    public static String key(String scope, long version, String query) {
+        return scope + '@' + version + (query != null ? '?' + query : "");
+    }
+
+    /**
+     * @return the live entry, or null
+     */
+    public synchronized Entry get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() <= 0) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the serialized response and returns it with its ETag, cached or not.
+     */
+    public Entry put(String key, byte[] body) {
+        Entry entry = new Entry(body, etag(body), System.nanoTime() + ttlNanos);
+        if (!enabled || body.length > maxBytes) {
+            return entry;
+        }
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            totalBytes += body.length - (previous != null ? previous.body().length : 0);
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().body().length;
+                eldest.remove();
+            }
+        }
+        return entry;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.body().length;
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.devportal.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic versions of the catalog lists: the environment list, each environment's project list
+ * and each project's credential list. Writes bump the affected scope, after commit when a
+ * transaction is active, so a version never names data that is not yet visible. Readers take
+ * the version before querying; a response cached under it is current until the next bump.
+ * <p>
+ * Versions are in-memory and per instance; see {@code CatalogResponseCache} for how writes on
+ * other instances are picked up.
+ */
+@Component
+public class CatalogVersions {
+
+    private static final String ENVIRONMENTS = "envs";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    public long environments() {
+        return versions.getOrDefault(ENVIRONMENTS, 0L);
+    }
+
+    public long projects(UUID envId) {
+        return versions.getOrDefault(projectsScope(envId), 0L);
+    }
+
+    public long credentials(UUID projectId) {
+        return versions.getOrDefault(credentialsScope(projectId), 0L);
+    }
+
+    public void environmentsChanged() {
+        bump(ENVIRONMENTS);
+    }
+
+    public void projectsChanged(UUID envId) {
+        bump(projectsScope(envId));
+    }
+
+    public void credentialsChanged(UUID projectId) {
+        bump(credentialsScope(projectId));
+    }
+
+    private void bump(String scope) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.put(scope, sequence.incrementAndGet());
+                }
+            });
+        } else {
+            versions.put(scope, sequence.incrementAndGet());
+        }
+    }
+
+    private static String projectsScope(UUID envId) {
+        return "projects:" + envId;
+    }
+
+    private static String credentialsScope(UUID projectId) {
+        return "credentials:" + projectId;
+    }
+}
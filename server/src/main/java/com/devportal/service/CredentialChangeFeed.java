@@ -0,0 +1,158 @@
+package com.devportal.service;
+
+import com.devportal.dto.CredentialChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Carries credential change events from the writing instance to the {@link WatchHub} of every
+ * instance through PostgreSQL {@code NOTIFY}. A notification is sent inside the write's
+ * transaction, so it is delivered only if the write commits, and in commit order. Each instance
+ * keeps one pooled connection listening on the channel.
+ * <p>
+ * With {@code devportal.watch.notify=false} events are dispatched to this instance only, after commit.
+ */
+@Component
+public class CredentialChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(CredentialChangeFeed.class);
+
+    static final String CHANNEL = "devportal_credential_changes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final WatchHub watchHub;
+    private final boolean notify;
+    private final int pollMillis;
+    private volatile boolean running;
+    private Thread listener;
+
+    public CredentialChangeFeed(JdbcTemplate jdbcTemplate,
+                                DataSource dataSource,
+                                ObjectMapper objectMapper,
+                                WatchHub watchHub,
+                                @Value("${devportal.watch.notify:true}") boolean notify,
+                                @Value("${devportal.watch.listen-poll-ms:500}") int pollMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.watchHub = watchHub;
+        this.notify = notify;
+        this.pollMillis = pollMillis;
+    }
+
+    /**
+     * Publishes a change of one credential, or of the whole project when {@code credentialId} is null.
+     */
+    public void publish(CredentialChangeEvent.Type type, UUID envId, UUID projectId, UUID credentialId, String key) {
+        CredentialChangeEvent event = new CredentialChangeEvent(null, type, envId, projectId, credentialId, key,
+                Instant.now());
+        if (notify) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, toJson(event));
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    watchHub.dispatch(event);
+                }
+            });
+        } else {
+            watchHub.dispatch(event);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!notify) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "credential-change-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        long backoffMillis = 1000;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnect) {
+                    // Notifications sent while disconnected are lost
+                    watchHub.resetAll();
+                }
+                backoffMillis = 1000;
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Credential change listener disconnected; retrying in {} ms", backoffMillis, e);
+                reconnect = true;
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 30_000);
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            watchHub.dispatch(objectMapper.readValue(payload, CredentialChangeEvent.class));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Ignoring malformed credential change notification", e);
+        }
+    }
+
+    private String toJson(CredentialChangeEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change event", e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.devportal.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Online conversion of credential ciphertext from the legacy Base64 {@code value_encrypted}
+ * text column to the binary {@code value_ciphertext} column. Runs in the background after
+ * startup in small batches, each its own transaction; rows it has not reached yet stay
+ * readable through the legacy column, so the app serves traffic throughout.
+ * <p>
+ * The legacy column's NOT NULL constraint is relaxed once, after Hibernate's schema update and
+ * before the web server starts, so the ACCESS EXCLUSIVE lock never blocks live requests.
+ */
+@Component
+public class CredentialCiphertextMigration implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CredentialCiphertextMigration.class);
+
+    private static final String CONVERT_BATCH_SQL = """
+            UPDATE credentials
+               SET value_ciphertext = decode(value_encrypted, 'base64'), value_encrypted = NULL
+             WHERE id IN (SELECT id FROM credentials
+                           WHERE value_ciphertext IS NULL AND value_encrypted IS NOT NULL
+                           LIMIT ? FOR UPDATE SKIP LOCKED)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long batchDelayMillis;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ciphertext-migration");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CredentialCiphertextMigration(JdbcTemplate jdbcTemplate,
+                                         @Value("${devportal.encryption.ciphertext-migration.enabled:true}") boolean enabled,
+                                         @Value("${devportal.encryption.ciphertext-migration.batch-size:1000}") int batchSize,
+                                         @Value("${devportal.encryption.ciphertext-migration.batch-delay-ms:100}") long batchDelayMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.batchDelayMillis = batchDelayMillis;
+    }
+
+    /**
+     * ddl-auto=update adds the new column but never relaxes the old NOT NULL constraint.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        String nullable = jdbcTemplate.queryForObject(
+                "SELECT is_nullable FROM information_schema.columns"
+                        + " WHERE table_schema = current_schema() AND table_name = 'credentials'"
+                        + " AND column_name = 'value_encrypted'", String.class);
+        if ("NO".equals(nullable)) {
+            log.info("Dropping NOT NULL from credentials.value_encrypted");
+            jdbcTemplate.execute("ALTER TABLE credentials ALTER COLUMN value_encrypted DROP NOT NULL");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            executor.submit(this::migrate);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void migrate() {
+        long converted = 0;
+        try {
+            int updated;
+            do {
+                updated = jdbcTemplate.update(CONVERT_BATCH_SQL, batchSize);
+                converted += updated;
+                if (updated > 0) {
+                    Thread.sleep(batchDelayMillis);
+                }
+            } while (updated > 0);
+            if (converted > 0) {
+                log.info("Converted {} credential values to binary ciphertext", converted);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Ciphertext migration stopped after {} rows; it resumes at next startup", converted, e);
+        }
+    }
+}
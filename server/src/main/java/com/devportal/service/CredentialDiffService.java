@@ -0,0 +1,223 @@
+package com.devportal.service;
+
+import com.devportal.dto.CredentialDrift;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Compares which credential keys exist, and whether their values are equal, across environments
+ * or projects. The database does the comparison: window aggregates over {@code projects} and
+ * {@code credentials} return only the rows of keys that are missing somewhere or whose
+ * {@link ValueFingerprints fingerprints} differ, so matching keys never leave the database and no
+ * value is decrypted.
+ */
+@Service
+public class CredentialDiffService {
+
+    public static final int MAX_SIDES = 10;
+
+    /*
+     * %1$s: the side a project belongs to, %2$s: what matches projects across sides,
+     * %3$s: which projects take part. Only the fixed fragments below are substituted.
+     */
+    private static final String PROJECTS_CTE = """
+            WITH p AS (
+                SELECT id, %1$s AS side, name, %2$s AS grp,
+                       count(*) OVER (PARTITION BY %2$s) AS sides_with_project
+                  FROM projects
+                 WHERE %3$s
+            )
+            """;
+    private static final String DRIFTING_KEYS_SQL = PROJECTS_CTE + """
+            , k AS (
+                SELECT p.side, p.grp, p.name AS project_name, p.sides_with_project,
+                       c.credential_key, lower(c.credential_key) AS key_norm, c.value_fingerprint,
+                       count(*) OVER w AS present,
+                       count(c.value_fingerprint) OVER w AS fingerprinted,
+                       min(c.value_fingerprint) OVER w AS min_fp,
+                       max(c.value_fingerprint) OVER w AS max_fp
+                  FROM p JOIN credentials c ON c.project_id = p.id
+                WINDOW w AS (PARTITION BY p.grp, lower(c.credential_key))
+            )
+            SELECT side, grp, project_name, credential_key, key_norm, value_fingerprint
+              FROM k
+             WHERE present < sides_with_project OR fingerprinted < present OR min_fp <> max_fp
+             ORDER BY grp, key_norm, side
+            """;
+    private static final String PARTIAL_PROJECTS_SQL = PROJECTS_CTE + """
+            SELECT side, grp, name FROM p WHERE sides_with_project < ? ORDER BY grp
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CredentialDiffService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Compares the environments' projects, matched by case-insensitive name.
+     *
+     * @param projectName only compare projects of this name, or null for all
+     */
+    public CredentialDrift compareEnvironments(List<UUID> envIds, String projectName) {
+        List<UUID> ids = sides(envIds);
+        List<CredentialDrift.Side> sides = new ArrayList<>();
+        Map<UUID, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM environments WHERE id IN (" + placeholders(ids.size()) + ")",
+                (RowCallbackHandler) rs -> names.put(rs.getObject("id", UUID.class), rs.getString("name")),
+                ids.toArray());
+        for (UUID id : ids) {
+            if (!names.containsKey(id)) {
+                throw new IllegalArgumentException("Environment not found");
+            }
+            sides.add(new CredentialDrift.Side(id, names.get(id), null));
+        }
+        List<Object> args = new ArrayList<>(ids);
+        String scope = "environment_id IN (" + placeholders(ids.size()) + ")";
+        if (projectName != null && !projectName.isBlank()) {
+            scope += " AND lower(name) = ?";
+            args.add(projectName.trim().toLowerCase(Locale.ROOT));
+        }
+        return compare(sides, "environment_id", "lower(name)", scope, args);
+    }
+
+    /**
+     * Compares individual projects, which may live in different environments.
+     */
+    public CredentialDrift compareProjects(List<UUID> projectIds) {
+        List<UUID> ids = sides(projectIds);
+        Map<UUID, CredentialDrift.Side> found = new HashMap<>();
+        jdbcTemplate.query("SELECT p.id, p.name, e.name AS env_name FROM projects p"
+                        + " JOIN environments e ON e.id = p.environment_id"
+                        + " WHERE p.id IN (" + placeholders(ids.size()) + ")",
+                (RowCallbackHandler) rs -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    found.put(id, new CredentialDrift.Side(id, rs.getString("env_name"), rs.getString("name")));
+                },
+                ids.toArray());
+        List<CredentialDrift.Side> sides = new ArrayList<>();
+        for (UUID id : ids) {
+            CredentialDrift.Side side = found.get(id);
+            if (side == null) {
+                throw new IllegalArgumentException("Project not found");
+            }
+            sides.add(side);
+        }
+        return compare(sides, "id", "''", "id IN (" + placeholders(ids.size()) + ")", new ArrayList<>(ids));
+    }
+
+    private CredentialDrift compare(List<CredentialDrift.Side> sides, String sideColumn, String groupBy,
+                                    String scope, List<Object> scopeArgs) {
+        List<UUID> allSides = sides.stream().map(CredentialDrift.Side::id).toList();
+        Map<String, ProjectGroup> groups = new TreeMap<>();
+
+        List<Object> partialArgs = new ArrayList<>(scopeArgs);
+        partialArgs.add(sides.size());
+        jdbcTemplate.query(String.format(PARTIAL_PROJECTS_SQL, sideColumn, groupBy, scope), (RowCallbackHandler) rs -> {
+            String name = safeName(rs.getString("name"));
+            groups.computeIfAbsent(rs.getString("grp"), g -> new ProjectGroup(name))
+                    .present.add(rs.getObject("side", UUID.class));
+        }, partialArgs.toArray());
+
+        jdbcTemplate.query(String.format(DRIFTING_KEYS_SQL, sideColumn, groupBy, scope), (RowCallbackHandler) rs -> {
+            String projectName = safeName(rs.getString("project_name"));
+            String key = safeName(rs.getString("credential_key"));
+            ProjectGroup group = groups.computeIfAbsent(rs.getString("grp"), g -> {
+                ProjectGroup complete = new ProjectGroup(projectName);
+                complete.present.addAll(allSides);
+                return complete;
+            });
+            group.keys.computeIfAbsent(rs.getString("key_norm"), k -> new KeyGroup(key))
+                    .fingerprints.put(rs.getObject("side", UUID.class), rs.getString("value_fingerprint"));
+        }, scopeArgs.toArray());
+
+        List<CredentialDrift.ProjectDrift> projects = new ArrayList<>();
+        int driftingKeys = 0;
+        for (ProjectGroup group : groups.values()) {
+            List<CredentialDrift.KeyDrift> keys = new ArrayList<>();
+            for (KeyGroup key : group.keys.values()) {
+                keys.add(key.drift(group.present));
+            }
+            driftingKeys += keys.size();
+            projects.add(new CredentialDrift.ProjectDrift(group.name, missing(allSides, group.present), keys));
+        }
+        return new CredentialDrift(sides, projects, driftingKeys);
+    }
+
+    private static List<UUID> sides(List<UUID> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("At least two ids are required");
+        }
+        List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() < 2) {
+            throw new IllegalArgumentException("At least two ids are required");
+        }
+        if (distinct.size() > MAX_SIDES) {
+            throw new IllegalArgumentException("At most " + MAX_SIDES + " ids can be compared");
+        }
+        return distinct;
+    }
+
+    private static List<UUID> missing(List<UUID> all, Set<UUID> present) {
+        return all.stream().filter(id -> !present.contains(id)).toList();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String safeName(String name) {
+        return name != null ? name : "";
+    }
+
+    private static final class ProjectGroup {
+
+        private final String name;
+        private final Set<UUID> present = new LinkedHashSet<>();
+        private final Map<String, KeyGroup> keys = new LinkedHashMap<>();
+
+        private ProjectGroup(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class KeyGroup {
+
+        private final String key;
+        private final Map<UUID, String> fingerprints = new LinkedHashMap<>();
+
+        private KeyGroup(String key) {
+            this.key = key;
+        }
+
+        private CredentialDrift.KeyDrift drift(Set<UUID> projectSides) {
+            List<UUID> missingIn = projectSides.stream().filter(side -> !fingerprints.containsKey(side)).toList();
+            Map<String, List<UUID>> byValue = new LinkedHashMap<>();
+            boolean unknown = false;
+            for (Map.Entry<UUID, String> entry : fingerprints.entrySet()) {
+                if (entry.getValue() == null) {
+                    unknown = true;
+                } else {
+                    byValue.computeIfAbsent(entry.getValue(), fp -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+            CredentialDrift.Status status = !missingIn.isEmpty() ? CredentialDrift.Status.MISSING
+                    : unknown ? CredentialDrift.Status.UNKNOWN
+                    : CredentialDrift.Status.CHANGED;
+            return new CredentialDrift.KeyDrift(key, status, missingIn, new ArrayList<>(byValue.values()));
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.devportal.service;
+
+import com.devportal.model.Environment;
+import com.devportal.model.Project;
+import com.devportal.model.User;
+import com.devportal.repository.EnvironmentRepository;
+import com.devportal.repository.ProjectRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Exports decrypted credential values of a project, or of every project in an environment, as
+ * dotenv, JSON or Java properties. Rows are read through a forward-only JDBC cursor and each value
+ * is decrypted and written before the next is fetched, so memory use does not depend on the
+ * number of credentials. Streamed FILE credentials are not included; download them individually.
+ * dotenv output is refused up front when a key is not a valid dotenv name, rather than written
+ * in a form shells and dotenv loaders would misread.
+ * <p>
+ * An export is audited once, as {@code EXPORT_CREDENTIALS}, when it is opened.
+ * <p>
+ * A bundle is the machine-facing variant for deployment agents. Its ETag is a hash of keys and
+ * {@link ValueFingerprints value fingerprints}, computed by a query that reads ciphertext only for
+ * rows still missing a fingerprint. An agent whose copy is current gets a 304 without any value
+ * being read, decrypted or audited; the ciphertext is loaded only for a bundle that is delivered.
+ * A delivered bundle is audited once, as {@code BUNDLE_CREDENTIALS}.
+ */
+@Service
+public class CredentialExportService {
+
+    private static final String SELECT_SQL = "SELECT c.project_id, p.name AS project_name, c.credential_key, "
+            + KeyRotationService.CIPHERTEXT_SQL + " AS ciphertext "
+            + "FROM credentials c JOIN projects p ON p.id = c.project_id "
+            + "WHERE %s AND c.file_id IS NULL "
+            + "ORDER BY p.name, p.id, c.credential_key";
+    private static final String PROJECT_SQL = String.format(SELECT_SQL, "c.project_id = ?");
+    private static final String ENVIRONMENT_SQL = String.format(SELECT_SQL, "p.environment_id = ?");
+    private static final String DOTENV_KEY = "[A-Za-z_][A-Za-z0-9_.-]*";
+    private static final String INVALID_DOTENV_KEY_SQL = "SELECT c.credential_key "
+            + "FROM credentials c JOIN projects p ON p.id = c.project_id "
+            + "WHERE %s AND c.file_id IS NULL AND c.credential_key !~ '^" + DOTENV_KEY + "$' "
+            + "ORDER BY c.credential_key LIMIT 1";
+    private static final String PROJECT_INVALID_DOTENV_KEY_SQL = String.format(INVALID_DOTENV_KEY_SQL, "c.project_id = ?");
+    private static final String ENVIRONMENT_INVALID_DOTENV_KEY_SQL =
+            String.format(INVALID_DOTENV_KEY_SQL, "p.environment_id = ?");
+    private static final String BUNDLE_SQL = "SELECT p.name AS project_name, c.credential_key, c.value_fingerprint, "
+            + "%s AS ciphertext "
+            + "FROM projects p LEFT JOIN credentials c ON c.project_id = p.id AND c.file_id IS NULL "
+            + "WHERE p.id = ? AND p.environment_id = ? "
+            + "ORDER BY c.credential_key";
+    private static final String BUNDLE_ETAG_SQL = String.format(BUNDLE_SQL,
+            "CASE WHEN c.value_fingerprint IS NULL THEN " + KeyRotationService.CIPHERTEXT_SQL + " END");
+    private static final String BUNDLE_VALUES_SQL = String.format(BUNDLE_SQL, KeyRotationService.CIPHERTEXT_SQL);
+
+    private final CredentialService credentialService;
+    private final EnvironmentRepository environmentRepository;
+    private final ProjectRepository projectRepository;
+    private final EnvelopeEncryptionService envelopeEncryption;
+    private final AuditService auditService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public CredentialExportService(CredentialService credentialService,
+                                   EnvironmentRepository environmentRepository,
+                                   ProjectRepository projectRepository,
+                                   EnvelopeEncryptionService envelopeEncryption,
+                                   AuditService auditService,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ObjectMapper objectMapper,
+                                   @Value("${devportal.export.fetch-size:500}") int fetchSize) {
+        this.credentialService = credentialService;
+        this.environmentRepository = environmentRepository;
+        this.projectRepository = projectRepository;
+        this.envelopeEncryption = envelopeEncryption;
+        this.auditService = auditService;
+        this.jdbcTemplate = jdbcTemplate;
+        // The Postgres driver only streams a result set inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public enum Format {
+        DOTENV("env", "text/plain;charset=UTF-8"),
+        JSON("json", "application/json"),
+        PROPERTIES("properties", "text/plain;charset=UTF-8");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format fromString(String format) {
+            if (format == null || format.isBlank()) {
+                return DOTENV;
+            }
+            return switch (format.trim().toLowerCase(Locale.ROOT)) {
+                case "dotenv", "env" -> DOTENV;
+                case "json" -> JSON;
+                case "properties" -> PROPERTIES;
+                default -> throw new IllegalArgumentException("Unsupported export format: " + format);
+            };
+        }
+    }
+
+    /**
+     * What to export; {@code projectId} is null for a whole environment.
+     */
+    public record ExportTarget(UUID environmentId, UUID projectId, String name, Format format) {
+
+        public String filename() {
+            return name + "." + format.getExtension();
+        }
+    }
+
+    public ExportTarget openProject(UUID envId, UUID projectId, Format format, User user, String ip) {
+        Project project = credentialService.getProjectInEnv(envId, projectId);
+        if (format == Format.DOTENV) {
+            requireDotenvKeys(jdbcTemplate.queryForList(PROJECT_INVALID_DOTENV_KEY_SQL, String.class, projectId));
+        }
+        auditService.logBulkAction(user, project.getEnvironment(), project, "EXPORT_CREDENTIALS", ip);
+        return new ExportTarget(envId, project.getId(), project.getName(), format);
+    }
+
+    public ExportTarget openEnvironment(UUID envId, Format format, User user, String ip) {
+        Environment env = environmentRepository.findById(envId)
+                .orElseThrow(() -> new IllegalArgumentException("Environment not found"));
+        if (format == Format.DOTENV) {
+            requireDotenvKeys(jdbcTemplate.queryForList(ENVIRONMENT_INVALID_DOTENV_KEY_SQL, String.class, envId));
+        }
+        auditService.logBulkAction(user, env, null, "EXPORT_CREDENTIALS", ip);
+        return new ExportTarget(env.getId(), null, env.getName(), format);
+    }
+
+    /**
+     * Writes the export to {@code out}. Environment exports group values by project, labelled
+     * {@code name (id)} because project names need not be unique.
+     */
+    public void write(ExportTarget target, OutputStream out) throws IOException {
+        boolean grouped = target.projectId() == null;
+        ExportWriter writer = writer(target.format(), out);
+        String sql = grouped ? ENVIRONMENT_SQL : PROJECT_SQL;
+        UUID id = grouped ? target.environmentId() : target.projectId();
+        UUID[] currentProject = new UUID[1];
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setObject(1, id);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                UUID projectId = rs.getObject("project_id", UUID.class);
+                byte[] plaintext = envelopeEncryption.decrypt(projectId, rs.getBytes("ciphertext"));
+                try {
+                    if (grouped && !projectId.equals(currentProject[0])) {
+                        currentProject[0] = projectId;
+                        writer.project(rs.getString("project_name") + " (" + projectId + ")");
+                    }
+                    writer.entry(rs.getString("credential_key"), new String(plaintext, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    Arrays.fill(plaintext, (byte) 0);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    /**
+     * A project's values as loaded for a bundle response, still encrypted. Entries carry ciphertext
+     * only when loaded by {@link #loadBundleValues}.
+     *
+     * @param etag quoted strong ETag of this format's content
+     */
+    public record Bundle(UUID environmentId, UUID projectId, String name, Format format, String etag,
+                         List<BundleEntry> entries) {
+    }
+
+    public record BundleEntry(String key, byte[] ciphertext) {
+    }
+
+    /**
+     * Computes the bundle's ETag from keys and fingerprints. Values without a fingerprint yet
+     * contribute a hash of their ciphertext instead, so the ETag still changes with them; only
+     * their ciphertext is read.
+     */
+    public Bundle loadBundle(UUID envId, UUID projectId, Format format) {
+        return loadBundle(envId, projectId, format, BUNDLE_ETAG_SQL);
+    }
+
+    /**
+     * Loads the project's inline values with one query for delivery, with the ETag of exactly
+     * what was loaded.
+     */
+    public Bundle loadBundleValues(UUID envId, UUID projectId, Format format) {
+        return loadBundle(envId, projectId, format, BUNDLE_VALUES_SQL);
+    }
+
+    private Bundle loadBundle(UUID envId, UUID projectId, Format format, String sql) {
+        String[] name = new String[1];
+        List<BundleEntry> entries = new ArrayList<>();
+        MessageDigest digest = sha256();
+        digest.update(format.name().getBytes(StandardCharsets.UTF_8));
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            name[0] = rs.getString("project_name");
+            String key = rs.getString("credential_key");
+            if (key == null) {
+                return;
+            }
+            byte[] ciphertext = rs.getBytes("ciphertext");
+            String fingerprint = rs.getString("value_fingerprint");
+            digest.update((byte) 0);
+            digest.update(key.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (fingerprint != null) {
+                digest.update(fingerprint.getBytes(StandardCharsets.UTF_8));
+            } else {
+                digest.update(sha256().digest(ciphertext));
+            }
+            entries.add(new BundleEntry(key, ciphertext));
+        }, projectId, envId);
+        if (name[0] == null) {
+            throw new IllegalArgumentException("Project not found in this environment");
+        }
+        if (format == Format.DOTENV) {
+            requireDotenvKeys(entries.stream().map(BundleEntry::key).filter(k -> !isDotenvKey(k)).toList());
+        }
+        String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16)) + "\"";
+        return new Bundle(envId, projectId, name[0], format, etag, entries);
+    }
+
+    public void auditBundle(Bundle bundle, User user, String ip) {
+        auditService.logBulkAction(user, environmentRepository.getReferenceById(bundle.environmentId()),
+                projectRepository.getReferenceById(bundle.projectId()), "BUNDLE_CREDENTIALS", ip);
+    }
+
+    /**
+     * Decrypts and writes the bundle's values in the bundle's format.
+     */
+    public void writeBundle(Bundle bundle, OutputStream out) throws IOException {
+        ExportWriter writer = writer(bundle.format(), out);
+        if (!bundle.entries().isEmpty()) {
+            envelopeEncryption.loadKeys(bundle.projectId());
+        }
+        for (BundleEntry entry : bundle.entries()) {
+            byte[] plaintext = envelopeEncryption.decrypt(bundle.projectId(), entry.ciphertext());
+            try {
+                writer.entry(entry.key(), new String(plaintext, StandardCharsets.UTF_8));
+            } finally {
+                Arrays.fill(plaintext, (byte) 0);
+            }
+        }
+        writer.finish();
+    }
+
+    private static boolean isDotenvKey(String key) {
+        return DotenvWriter.KEY.matcher(key).matches();
+    }
+
+    /**
+     * @param invalidKeys keys that are not valid dotenv names; the first is reported
+     */
+    private static void requireDotenvKeys(List<String> invalidKeys) {
+        if (!invalidKeys.isEmpty()) {
+            throw new IllegalArgumentException("Credential key '" + invalidKeys.get(0)
+                    + "' is not a valid dotenv name; export as json or properties instead");
+        }
+    }
+
+    private ExportWriter writer(Format format, OutputStream out) throws IOException {
+        return switch (format) {
+            case DOTENV -> new DotenvWriter(out);
+            case JSON -> new JsonWriter(objectMapper, out);
+            case PROPERTIES -> new PropertiesWriter(out);
+        };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private interface ExportWriter {
+
+        void project(String name) throws IOException;
+
+        void entry(String key, String value) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * {@code KEY=value}; values that are not plain words are single-quoted (taken literally) or,
+     * when they contain quotes or line breaks, double-quoted with backslash escapes. Keys are
+     * written bare, so they must be valid dotenv names; callers check before streaming starts.
+     */
+    private static final class DotenvWriter implements ExportWriter {
+
+        private static final Pattern KEY = Pattern.compile(DOTENV_KEY);
+        private static final Pattern PLAIN = Pattern.compile("[A-Za-z0-9_./:@+,-]+");
+
+        private final Writer writer;
+        private boolean first = true;
+
+        DotenvWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void project(String name) throws IOException {
+            if (!first) {
+                writer.write('\n');
+            }
+            writer.write("# " + name.replace('\n', ' ') + "\n");
+        }
+
+        @Override
+        public void entry(String key, String value) throws IOException {
+            if (!KEY.matcher(key).matches()) {
+                // Renamed after the up-front check; stop rather than emit a line that parses differently
+                throw new IllegalStateException("Credential key '" + key + "' is not a valid dotenv name");
+            }
+            first = false;
+            writer.write(key);
+            writer.write('=');
+            if (PLAIN.matcher(value).matches()) {
+                writer.write(value);
+            } else if (value.indexOf('\'') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write('\'' + value + '\'');
+            } else {
+                writer.write('"');
+                writer.write(value.replace("\\", "\\\\").replace("\"", "\\\"")
+                        .replace("\n", "\\n").replace("\r", "\\r"));
+                writer.write('"');
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * UTF-8 {@code .properties}, escaped as {@link java.util.Properties#store} would.
+     */
+    private static final class PropertiesWriter implements ExportWriter {
+
+        private final Writer writer;
+        private boolean first = true;
+
+        PropertiesWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void project(String name) throws IOException {
+            if (!first) {
+                writer.write('\n');
+            }
+            writer.write("# " + name.replace('\n', ' ') + "\n");
+        }
+
+        @Override
+        public void entry(String key, String value) throws IOException {
+            first = false;
+            writer.write(escape(key, true));
+            writer.write('=');
+            writer.write(escape(value, false));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String s, boolean key) {
+            StringBuilder sb = new StringBuilder(s.length() + 8);
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case ' ' -> sb.append(key || i == 0 ? "\\ " : " ");
+                    case '\t' -> sb.append("\\t");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\f' -> sb.append("\\f");
+                    case '\\', '=', ':', '#', '!' -> sb.append('\\').append(c);
+                    default -> sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A flat {@code {"KEY": "value"}} object, or one such object per project label.
+     */
+    private static final class JsonWriter implements ExportWriter {
+
+        private final JsonGenerator generator;
+        private boolean inProject;
+
+        JsonWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+        }
+
+        @Override
+        public void project(String name) throws IOException {
+            if (inProject) {
+                generator.writeEndObject();
+            }
+            generator.writeObjectFieldStart(name);
+            inProject = true;
+        }
+
+        @Override
+        public void entry(String key, String value) throws IOException {
+            generator.writeStringField(key, value);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (inProject) {
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.devportal.service;
+
+import com.devportal.dto.CredentialChangeEvent;
+import com.devportal.model.Credential;
+import com.devportal.model.CredentialType;
+import com.devportal.model.CredentialVersion;
+import com.devportal.model.Project;
+import com.devportal.model.User;
+import com.devportal.repository.CredentialRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming storage for large FILE credentials. Content is split into fixed-size plaintext
+ * chunks; each is optionally deflated, then encrypted under the project's data key with
+ * {@code fileId | index | last | compressed} as additional authenticated data, so chunks cannot
+ * be reordered, truncated or moved between files. Uploads and downloads hold one chunk at a
+ * time, so memory use does not depend on file size, and downloads can start at any chunk to
+ * serve byte ranges.
+ * <p>
+ * A new upload always writes a fresh chunk set and switches the credential to it in one short
+ * transaction. Chunk sets are never modified in place: the previous set stays for the credential's
+ * history until retention pruning drops the last version that references it. Chunks are committed
+ * before the credential points at them, so an upload that dies mid-way leaves an unreferenced set
+ * behind; a periodic sweep removes sets that nothing references once they have been idle for a
+ * grace period.
+ */
+@Service
+public class CredentialFileService {
+
+    private static final Logger log = LoggerFactory.getLogger(CredentialFileService.class);
+
+    private static final String INSERT_CHUNK_SQL = "INSERT INTO credential_file_chunks"
+            + " (id, file_id, chunk_index, compressed, data, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_CHUNK_SQL =
+            "SELECT compressed, data FROM credential_file_chunks WHERE file_id = ? AND chunk_index = ?";
+    private static final String DELETE_CHUNKS_SQL = "DELETE FROM credential_file_chunks WHERE file_id = ?";
+    // Candidates are found through their first chunk; a set with any chunk newer than the cutoff
+    // may still be uploading.
+    private static final String DELETE_ORPHANS_SQL = "DELETE FROM credential_file_chunks WHERE file_id IN ("
+            + "SELECT c.file_id FROM credential_file_chunks c WHERE c.chunk_index = 0 AND c.created_at < ?"
+            + " AND NOT EXISTS (SELECT 1 FROM credential_file_chunks n WHERE n.file_id = c.file_id AND n.created_at >= ?)"
+            + " AND NOT EXISTS (SELECT 1 FROM credentials WHERE file_id = c.file_id)"
+            + " AND NOT EXISTS (SELECT 1 FROM credential_versions WHERE file_id = c.file_id)"
+            + " AND NOT EXISTS (SELECT 1 FROM credential_snapshot_entries WHERE file_id = c.file_id)"
+            + " LIMIT ?)";
+    private static final int AAD_LENGTH = 16 + Integer.BYTES + 2;
+
+    private final CredentialService credentialService;
+    private final CredentialRepository credentialRepository;
+    private final EnvelopeEncryptionService envelopeEncryption;
+    private final ValueFingerprints valueFingerprints;
+    private final DecryptedValueCache valueCache;
+    private final AuditService auditService;
+    private final CatalogVersions catalogVersions;
+    private final CredentialVersionLog versionLog;
+    private final SearchIndex searchIndex;
+    private final CredentialChangeFeed changeFeed;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long maxSize;
+    private final boolean compress;
+    private final boolean orphanSweepEnabled;
+    private final Duration orphanGrace;
+    private final int orphanSweepBatch;
+
+    public CredentialFileService(CredentialService credentialService,
+                                 CredentialRepository credentialRepository,
+                                 EnvelopeEncryptionService envelopeEncryption,
+                                 ValueFingerprints valueFingerprints,
+                                 DecryptedValueCache valueCache,
+                                 AuditService auditService,
+                                 CatalogVersions catalogVersions,
+                                 CredentialVersionLog versionLog,
+                                 SearchIndex searchIndex,
+                                 CredentialChangeFeed changeFeed,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${devportal.files.chunk-size-bytes:65536}") int chunkSize,
+                                 @Value("${devportal.files.max-size-bytes:104857600}") long maxSize,
+                                 @Value("${devportal.files.compress:true}") boolean compress,
+                                 @Value("${devportal.files.orphan-sweep.enabled:true}") boolean orphanSweepEnabled,
+                                 @Value("${devportal.files.orphan-sweep.grace-minutes:60}") long orphanGraceMinutes,
+                                 @Value("${devportal.files.orphan-sweep.batch-size:100}") int orphanSweepBatch) {
+        this.credentialService = credentialService;
+        this.credentialRepository = credentialRepository;
+        this.envelopeEncryption = envelopeEncryption;
+        this.valueFingerprints = valueFingerprints;
+        this.valueCache = valueCache;
+        this.auditService = auditService;
+        this.catalogVersions = catalogVersions;
+        this.versionLog = versionLog;
+        this.searchIndex = searchIndex;
+        this.changeFeed = changeFeed;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+        this.compress = compress;
+        this.orphanSweepEnabled = orphanSweepEnabled;
+        this.orphanGrace = Duration.ofMinutes(orphanGraceMinutes);
+        this.orphanSweepBatch = orphanSweepBatch;
+    }
+
+    public Credential create(UUID envId, UUID projectId, String key, String description,
+                             InputStream content, User user, String ip) throws IOException {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("Credential key is required");
+        }
+        Project project = credentialService.getProjectInEnv(envId, projectId);
+        if (credentialRepository.existsByProjectAndKeyIgnoreCase(project, key)) {
+            throw new IllegalArgumentException("Credential key already exists for this project in this environment");
+        }
+        UUID fileId = UUID.randomUUID();
+        WrittenFile written = writeChunks(projectId, fileId, content);
+        try {
+            return transactionTemplate.execute(status -> {
+                if (credentialRepository.existsByProjectAndKeyIgnoreCase(project, key)) {
+                    throw new IllegalArgumentException("Credential key already exists for this project in this environment");
+                }
+                Credential saved = credentialRepository.save(Credential.builder()
+                        .project(project)
+                        .key(key)
+                        .type(CredentialType.FILE)
+                        .description(description)
+                        .fileId(fileId)
+                        .fileSize(written.size())
+                        .valueFingerprint(written.fingerprint())
+                        .fileChunkSize(chunkSize)
+                        .updatedBy(user)
+                        .updatedAt(Instant.now())
+                        .build());
+                versionLog.record(saved, CredentialVersion.Operation.CREATE, user);
+                catalogVersions.credentialsChanged(projectId);
+                searchIndex.credentialSaved(saved);
+                changeFeed.publish(CredentialChangeEvent.Type.CREATED, envId, projectId, saved.getId(), saved.getKey());
+                auditService.logCredentialChange(user, saved, "CREATE_CREDENTIAL", ip);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            jdbcTemplate.update(DELETE_CHUNKS_SQL, fileId);
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the credential's value with the streamed content, turning it into a FILE credential.
+     */
+    public Credential replace(UUID envId, UUID projectId, UUID credentialId,
+                              InputStream content, User user, String ip) throws IOException {
+        credentialService.getCredential(envId, projectId, credentialId);
+        UUID fileId = UUID.randomUUID();
+        WrittenFile written = writeChunks(projectId, fileId, content);
+        try {
+            return transactionTemplate.execute(status -> {
+                Credential existing = credentialService.getCredential(envId, projectId, credentialId);
+                existing.setType(CredentialType.FILE);
+                existing.setValueCiphertext(null);
+                existing.setValueEncrypted(null);
+                existing.setFileId(fileId);
+                existing.setFileSize(written.size());
+                existing.setValueFingerprint(written.fingerprint());
+                existing.setFileChunkSize(chunkSize);
+                existing.setUpdatedBy(user);
+                existing.setUpdatedAt(Instant.now());
+                Credential saved = credentialRepository.save(existing);
+                valueCache.invalidate(credentialId);
+                versionLog.record(saved, CredentialVersion.Operation.UPDATE, user);
+                catalogVersions.credentialsChanged(projectId);
+                searchIndex.credentialSaved(saved);
+                changeFeed.publish(CredentialChangeEvent.Type.UPDATED, envId, projectId, credentialId, saved.getKey());
+                auditService.logCredentialChange(user, saved, "UPDATE_CREDENTIAL", ip);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            jdbcTemplate.update(DELETE_CHUNKS_SQL, fileId);
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up a streamed file for download and records the view in the audit log.
+     */
+    public StoredFile open(UUID envId, UUID projectId, UUID credentialId, User user, String ip) {
+        Credential credential = credentialService.getCredential(envId, projectId, credentialId);
+        if (credential.getFileId() == null) {
+            throw new IllegalArgumentException("Credential has no streamed file content");
+        }
+        auditService.logCredentialView(user, credential, ip);
+        return new StoredFile(projectId, credential.getKey(), credential.getFileId(),
+                credential.getFileSize(), credential.getFileChunkSize());
+    }
+
+    /**
+     * Writes plaintext bytes {@code start..end} (inclusive) of the file to {@code out}, reading
+     * only the chunks that overlap the range. Does not need a persistence context, so it can run
+     * after the request thread has returned.
+     */
+    public void write(StoredFile file, long start, long end, OutputStream out) throws IOException {
+        if (file.size() == 0) {
+            return;
+        }
+        int fileChunkSize = file.chunkSize();
+        long lastIndex = (file.size() - 1) / fileChunkSize;
+        byte[] plain = new byte[fileChunkSize];
+        Inflater inflater = new Inflater();
+        try {
+            for (long index = start / fileChunkSize; index <= end / fileChunkSize; index++) {
+                long chunkStart = index * fileChunkSize;
+                int expectedLength = (int) Math.min(fileChunkSize, file.size() - chunkStart);
+                StoredChunk chunk = jdbcTemplate.query(SELECT_CHUNK_SQL,
+                        rs -> rs.next() ? new StoredChunk(rs.getBoolean(1), rs.getBytes(2)) : null,
+                        file.fileId(), (int) index);
+                if (chunk == null) {
+                    throw new IllegalStateException("File content changed during download");
+                }
+                byte[] aad = aad(file.fileId(), (int) index, index == lastIndex, chunk.compressed());
+                byte[] decrypted = envelopeEncryption.decryptChunk(file.projectId(), aad, chunk.data());
+                try {
+                    int length = chunk.compressed() ? inflate(inflater, decrypted, plain) : copy(decrypted, plain);
+                    if (length != expectedLength) {
+                        throw new IllegalStateException("File chunk " + index + " has an unexpected length");
+                    }
+                } finally {
+                    Arrays.fill(decrypted, (byte) 0);
+                }
+                int from = (int) (Math.max(start, chunkStart) - chunkStart);
+                int to = (int) (Math.min(end + 1, chunkStart + expectedLength) - chunkStart);
+                out.write(plain, from, to - from);
+            }
+        } finally {
+            inflater.end();
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    /**
+     * Splits {@code content} into chunks, compresses and encrypts each, and inserts them under
+     * {@code fileId}. Each insert commits on its own; on failure the partial chunk set is removed.
+     *
+     * @return plaintext size and fingerprint
+     */
+    private WrittenFile writeChunks(UUID projectId, UUID fileId, InputStream content) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(content, 1);
+        byte[] plain = new byte[chunkSize];
+        byte[] deflated = new byte[chunkSize];
+        Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        Mac fingerprint = valueFingerprints.newMac();
+        long size = 0;
+        try {
+            int index = 0;
+            boolean last = false;
+            while (!last) {
+                int read = in.readNBytes(plain, 0, chunkSize);
+                last = read < chunkSize || atEnd(in);
+                size += read;
+                if (size > maxSize) {
+                    throw new IllegalArgumentException("File exceeds the maximum size of " + maxSize + " bytes");
+                }
+                fingerprint.update(plain, 0, read);
+                int compressedLength = deflater != null ? deflate(deflater, plain, read, deflated) : -1;
+                boolean compressed = compressedLength >= 0;
+                byte[] aad = aad(fileId, index, last, compressed);
+                byte[] ciphertext = compressed
+                        ? envelopeEncryption.encryptChunk(projectId, aad, deflated, compressedLength)
+                        : envelopeEncryption.encryptChunk(projectId, aad, plain, read);
+                jdbcTemplate.update(INSERT_CHUNK_SQL, UUID.randomUUID(), fileId, index, compressed, ciphertext,
+                        CredentialVersionLog.utc(Instant.now()));
+                index++;
+            }
+            return new WrittenFile(size, ValueFingerprints.finish(fingerprint));
+        } catch (IOException | RuntimeException e) {
+            jdbcTemplate.update(DELETE_CHUNKS_SQL, fileId);
+            throw e;
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            Arrays.fill(plain, (byte) 0);
+            Arrays.fill(deflated, (byte) 0);
+        }
+    }
+
+    /**
+     * Deletes chunk sets left by failed or interrupted uploads: sets no credential, version or
+     * snapshot entry references, with no chunk written within the grace period. Deletes are
+     * idempotent, so it is safe to run on every instance.
+     */
+    @Scheduled(fixedDelayString = "${devportal.files.orphan-sweep.interval-ms:3600000}",
+            initialDelayString = "${devportal.files.orphan-sweep.interval-ms:3600000}")
+    public void sweepOrphans() {
+        if (!orphanSweepEnabled) {
+            return;
+        }
+        try {
+            OffsetDateTime cutoff = CredentialVersionLog.utc(Instant.now().minus(orphanGrace));
+            int deleted = 0;
+            int batch;
+            do {
+                batch = jdbcTemplate.update(DELETE_ORPHANS_SQL, cutoff, cutoff, orphanSweepBatch);
+                deleted += batch;
+            } while (batch > 0);
+            if (deleted > 0) {
+                log.info("Deleted {} orphaned file chunks", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Orphaned file chunk sweep failed", e);
+        }
+    }
+
+    private static boolean atEnd(PushbackInputStream in) throws IOException {
+        int next = in.read();
+        if (next == -1) {
+            return true;
+        }
+        in.unread(next);
+        return false;
+    }
+
+    /**
+     * @return compressed length, or -1 if compression does not make the chunk smaller
+     */
+    private static int deflate(Deflater deflater, byte[] input, int length, byte[] output) {
+        deflater.reset();
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+        int compressedLength = deflater.deflate(output);
+        return deflater.finished() && compressedLength < length ? compressedLength : -1;
+    }
+
+    private static int inflate(Inflater inflater, byte[] input, byte[] output) {
+        inflater.reset();
+        inflater.setInput(input);
+        try {
+            int length = inflater.inflate(output);
+            if (!inflater.finished()) {
+                throw new IllegalStateException("File chunk inflates beyond its chunk size");
+            }
+            return length;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("File chunk is not valid deflate data", e);
+        }
+    }
+
+    private static int copy(byte[] input, byte[] output) {
+        if (input.length > output.length) {
+            throw new IllegalStateException("File chunk exceeds its chunk size");
+        }
+        System.arraycopy(input, 0, output, 0, input.length);
+        return input.length;
+    }
+
+    static byte[] aad(UUID fileId, int index, boolean last, boolean compressed) {
+        return ByteBuffer.allocate(AAD_LENGTH)
+                .putLong(fileId.getMostSignificantBits())
+                .putLong(fileId.getLeastSignificantBits())
+                .putInt(index)
+                .put((byte) (last ? 1 : 0))
+                .put((byte) (compressed ? 1 : 0))
+                .array();
+    }
+
+    public record StoredFile(UUID projectId, String key, UUID fileId, long size, int chunkSize) {
+    }
+
+    private record StoredChunk(boolean compressed, byte[] data) {
+    }
+
+    private record WrittenFile(long size, String fingerprint) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.devportal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Fills {@code value_fingerprint} for credentials that have none: rows written before fingerprints
+ * existed, or restored from versions logged before history kept them. Each pass walks those rows
+ * in id order, decrypts one batch at a time and sets the fingerprint only if the row has not been
+ * written since it was read. A partial index on the rows still missing a fingerprint keeps each
+ * pass to those.
+ * <p>
+ * Enabled on every instance: the index build and each pass run only on the instance holding a
+ * PostgreSQL advisory lock, taken with {@code pg_try_advisory_lock} on the connection the work
+ * runs on, so the others skip that round instead of waiting.
+ */
+@Component
+public class CredentialFingerprintBackfill implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CredentialFingerprintBackfill.class);
+
+    private static final String SELECT_BATCH_SQL = "SELECT id, project_id, updated_at, file_id, file_size, file_chunk_size, "
+            + KeyRotationService.CIPHERTEXT_SQL + " AS ciphertext FROM credentials"
+            + " WHERE value_fingerprint IS NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(hashtext('devportal.fingerprint-backfill'))";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(hashtext('devportal.fingerprint-backfill'))";
+    private static final String UPDATE_SQL = "UPDATE credentials SET value_fingerprint = ?"
+            + " WHERE id = ? AND value_fingerprint IS NULL AND updated_at IS NOT DISTINCT FROM ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EnvelopeEncryptionService envelopeEncryption;
+    private final CredentialFileService credentialFileService;
+    private final ValueFingerprints valueFingerprints;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public CredentialFingerprintBackfill(JdbcTemplate jdbcTemplate,
+                                         EnvelopeEncryptionService envelopeEncryption,
+                                         CredentialFileService credentialFileService,
+                                         ValueFingerprints valueFingerprints,
+                                         @Value("${devportal.encryption.fingerprint-backfill.enabled:true}") boolean enabled,
+                                         @Value("${devportal.encryption.fingerprint-backfill.batch-size:200}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.envelopeEncryption = envelopeEncryption;
+        this.credentialFileService = credentialFileService;
+        this.valueFingerprints = valueFingerprints;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            whileElected(elected -> elected.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS"
+                    + " idx_credentials_missing_fingerprint ON credentials (id) WHERE value_fingerprint IS NULL"));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${devportal.encryption.fingerprint-backfill.interval-ms:60000}",
+            initialDelayString = "${devportal.encryption.fingerprint-backfill.initial-delay-ms:30000}")
+    public void backfill() {
+        if (enabled) {
+            whileElected(this::fill);
+        }
+    }
+
+    /**
+     * Runs {@code work} against one pinned connection while holding the advisory lock on it;
+     * does nothing if another instance holds the lock.
+     */
+    private void whileElected(Consumer<JdbcTemplate> work) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            JdbcTemplate elected = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!Boolean.TRUE.equals(elected.queryForObject(TRY_LOCK_SQL, Boolean.class))) {
+                return null;
+            }
+            try {
+                work.accept(elected);
+            } finally {
+                elected.queryForObject(UNLOCK_SQL, Boolean.class);
+            }
+            return null;
+        });
+    }
+
+    private void fill(JdbcTemplate elected) {
+        UUID after = new UUID(0, 0);
+        long filled = 0;
+        long failed = 0;
+        List<Row> batch;
+        do {
+            batch = elected.query(SELECT_BATCH_SQL, (rs, i) -> new Row(
+                    rs.getObject("id", UUID.class),
+                    rs.getObject("project_id", UUID.class),
+                    rs.getObject("updated_at", OffsetDateTime.class),
+                    rs.getObject("file_id", UUID.class),
+                    rs.getObject("file_size", Long.class),
+                    rs.getObject("file_chunk_size", Integer.class),
+                    rs.getBytes("ciphertext")), after, batchSize);
+            for (Row row : batch) {
+                after = row.id();
+                try {
+                    String fingerprint = fingerprint(row);
+                    if (fingerprint != null) {
+                        filled += elected.update(UPDATE_SQL, fingerprint, row.id(), row.updatedAt());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed++;
+                    log.warn("Could not fingerprint credential {}: {}", row.id(), e.getMessage());
+                }
+            }
+        } while (batch.size() == batchSize);
+        if (filled > 0 || failed > 0) {
+            log.info("Fingerprinted {} credential values ({} failed)", filled, failed);
+        }
+    }
+
+    private String fingerprint(Row row) throws IOException {
+        if (row.fileId() != null && row.fileSize() == 0) {
+            return valueFingerprints.of(new byte[0]);
+        }
+        if (row.fileId() != null) {
+            Mac mac = valueFingerprints.newMac();
+            credentialFileService.write(new CredentialFileService.StoredFile(row.projectId(), null, row.fileId(),
+                    row.fileSize(), row.fileChunkSize()), 0, row.fileSize() - 1, new OutputStream() {
+                @Override
+                public void write(int b) {
+                    mac.update((byte) b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    mac.update(b, off, len);
+                }
+            });
+            return ValueFingerprints.finish(mac);
+        }
+        if (row.ciphertext() == null) {
+            return null;
+        }
+        byte[] plaintext = envelopeEncryption.decrypt(row.projectId(), row.ciphertext());
+        try {
+            return valueFingerprints.of(plaintext);
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    private record Row(UUID id, UUID projectId, OffsetDateTime updatedAt, UUID fileId, Long fileSize,
+                       Integer fileChunkSize, byte[] ciphertext) {
+    }
+}
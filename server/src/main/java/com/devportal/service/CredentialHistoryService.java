@@ -0,0 +1,438 @@
+package com.devportal.service;
+
+import com.devportal.dto.CredentialChangeEvent;
+import com.devportal.dto.CredentialRestoreReport;
+import com.devportal.dto.CredentialSummary;
+import com.devportal.dto.CredentialVersionSummary;
+import com.devportal.dto.PageResponse;
+import com.devportal.model.Credential;
+import com.devportal.model.CredentialType;
+import com.devportal.model.CredentialVersion;
+import com.devportal.model.Project;
+import com.devportal.model.User;
+import com.devportal.repository.CredentialFileChunkRepository;
+import com.devportal.repository.CredentialRepository;
+import com.devportal.repository.CredentialVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Point-in-time views and rollback of a project's credentials, built from the append-only
+ * {@code credential_versions} log. The state at time T is the newest snapshot at or before T plus
+ * the versions after it, so the cost of a lookup is bounded by the snapshot cadence, not by how
+ * much history a project has.
+ * <p>
+ * A scheduled pass materializes a snapshot for every project with enough new versions, and prunes
+ * history older than the retention period by folding it into the newest snapshot before the
+ * cutoff. Snapshots only ever read the log, never live rows, and trail the clock slightly so
+ * transactions still in flight are not missed. FILE chunk sets are shared with the log and are
+ * deleted by pruning once nothing references them.
+ */
+@Service
+public class CredentialHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(CredentialHistoryService.class);
+
+    private static final String LATEST_SNAPSHOT_SQL = "SELECT id, as_of FROM credential_snapshots"
+            + " WHERE project_id = ? AND as_of <= ? ORDER BY as_of DESC LIMIT 1";
+    private static final String HISTORY_START_SQL = "SELECT MAX(as_of) FROM credential_snapshots"
+            + " WHERE project_id = ? AND history_start";
+    private static final String SNAPSHOT_ENTRIES_SQL = "SELECT credential_id, credential_key, value_ciphertext,"
+            + " value_fingerprint, file_id, file_size, file_chunk_size, description, type, updated_by, updated_at"
+            + " FROM credential_snapshot_entries WHERE snapshot_id = ?";
+    private static final String VERSIONS_SQL = "SELECT credential_id, operation, credential_key, value_ciphertext,"
+            + " value_fingerprint, file_id, file_size, file_chunk_size, description, type, changed_by, changed_at"
+            + " FROM credential_versions WHERE project_id = ? AND changed_at > ? AND changed_at <= ?"
+            + " ORDER BY changed_at, seq";
+    private static final String SNAPSHOT_CANDIDATES_SQL = "SELECT v.project_id FROM credential_versions v"
+            + " WHERE v.changed_at <= ? AND v.changed_at > COALESCE("
+            + "(SELECT MAX(s.as_of) FROM credential_snapshots s WHERE s.project_id = v.project_id),"
+            + " TIMESTAMPTZ 'epoch')"
+            + " GROUP BY v.project_id HAVING COUNT(*) >= ?";
+    private static final String INSERT_SNAPSHOT_SQL = "INSERT INTO credential_snapshots"
+            + " (id, project_id, as_of, entry_count, history_start, created_at) VALUES (?, ?, ?, ?, FALSE, ?)";
+    private static final String INSERT_ENTRY_SQL = "INSERT INTO credential_snapshot_entries"
+            + " (id, snapshot_id, credential_id, credential_key, value_ciphertext, value_fingerprint, file_id,"
+            + " file_size, file_chunk_size, description, type, updated_by, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String PRUNE_BASES_SQL = "SELECT DISTINCT ON (project_id) project_id, id, as_of"
+            + " FROM credential_snapshots WHERE as_of <= ? ORDER BY project_id, as_of DESC";
+    private static final String PRUNED_FILES_SQL = "SELECT file_id FROM credential_versions"
+            + " WHERE project_id = ? AND changed_at <= ? AND file_id IS NOT NULL"
+            + " UNION SELECT e.file_id FROM credential_snapshot_entries e"
+            + " JOIN credential_snapshots s ON s.id = e.snapshot_id"
+            + " WHERE s.project_id = ? AND s.as_of < ? AND e.file_id IS NOT NULL";
+    private static final String CHUNKS_EXIST_SQL = "SELECT EXISTS (SELECT 1 FROM credential_file_chunks WHERE file_id = ?)";
+    private static final String INSERT_CREDENTIAL_SQL = "INSERT INTO credentials"
+            + " (id, project_id, credential_key, value_ciphertext, value_fingerprint, file_id, file_size,"
+            + " file_chunk_size, description, type, updated_by, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final CredentialService credentialService;
+    private final CredentialRepository credentialRepository;
+    private final CredentialVersionRepository versionRepository;
+    private final CredentialFileChunkRepository fileChunkRepository;
+    private final CredentialVersionLog versionLog;
+    private final DecryptedValueCache valueCache;
+    private final CatalogVersions catalogVersions;
+    private final SearchIndex searchIndex;
+    private final CredentialChangeFeed changeFeed;
+    private final AuditService auditService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean maintenanceEnabled;
+    private final int snapshotMinChanges;
+    private final Duration snapshotLag;
+    private final Duration retention;
+    private final int batchSize;
+
+    public CredentialHistoryService(CredentialService credentialService,
+                                    CredentialRepository credentialRepository,
+                                    CredentialVersionRepository versionRepository,
+                                    CredentialFileChunkRepository fileChunkRepository,
+                                    CredentialVersionLog versionLog,
+                                    DecryptedValueCache valueCache,
+                                    CatalogVersions catalogVersions,
+                                    SearchIndex searchIndex,
+                                    CredentialChangeFeed changeFeed,
+                                    AuditService auditService,
+                                    JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${devportal.history.maintenance-enabled:true}") boolean maintenanceEnabled,
+                                    @Value("${devportal.history.snapshot-min-changes:200}") int snapshotMinChanges,
+                                    @Value("${devportal.history.snapshot-lag-seconds:60}") long snapshotLagSeconds,
+                                    @Value("${devportal.history.retention-days:365}") long retentionDays,
+                                    @Value("${devportal.history.batch-size:500}") int batchSize) {
+        this.credentialService = credentialService;
+        this.credentialRepository = credentialRepository;
+        this.versionRepository = versionRepository;
+        this.fileChunkRepository = fileChunkRepository;
+        this.versionLog = versionLog;
+        this.valueCache = valueCache;
+        this.catalogVersions = catalogVersions;
+        this.searchIndex = searchIndex;
+        this.changeFeed = changeFeed;
+        this.auditService = auditService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maintenanceEnabled = maintenanceEnabled;
+        this.snapshotMinChanges = Math.max(1, snapshotMinChanges);
+        this.snapshotLag = Duration.ofSeconds(snapshotLagSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * A credential as it stood at some point in time.
+     */
+    record HistoricalCredential(UUID credentialId,
+                                String key,
+                                byte[] ciphertext,
+                                String fingerprint,
+                                UUID fileId,
+                                Long fileSize,
+                                Integer fileChunkSize,
+                                String description,
+                                CredentialType type,
+                                UUID updatedBy,
+                                Instant updatedAt) {
+    }
+
+    /**
+     * History of one credential, newest first; also works for credentials deleted since.
+     */
+    public PageResponse<CredentialVersionSummary> versions(UUID envId, UUID projectId, UUID credentialId,
+                                                           String cursor, Integer limit) {
+        credentialService.getProjectInEnv(envId, projectId);
+        PageCursor.Position after = PageCursor.decode(cursor);
+        Long afterSeq;
+        try {
+            afterSeq = after != null ? Long.valueOf(after.value()) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        List<CredentialVersionSummary> rows = versionRepository.findSummaryPage(projectId, credentialId, afterSeq,
+                PageCursor.fetchLimit(limit));
+        return PageCursor.page(rows, limit, v -> Long.toString(v.seq()), CredentialVersionSummary::id);
+    }
+
+    /**
+     * The project's credentials as they stood at {@code at}, masked, ordered by key.
+     */
+    public List<CredentialSummary> stateAt(UUID envId, UUID projectId, Instant at) {
+        credentialService.getProjectInEnv(envId, projectId);
+        return replay(projectId, at).values().stream()
+                .sorted(Comparator.comparing(HistoricalCredential::key))
+                .map(c -> new CredentialSummary(c.credentialId(), projectId, c.key(), c.type(), c.description(),
+                        c.fileSize(), c.updatedBy(), c.updatedAt()))
+                .toList();
+    }
+
+    /**
+     * Puts the project's credentials back to their state at {@code at} in one transaction: later
+     * credentials are deleted, changed ones reverted and deleted ones recreated with their original
+     * ids. Stored ciphertext, value fingerprints and FILE chunk sets are reused as is, so nothing is
+     * decrypted; versions logged before history kept fingerprints come back without one, for the
+     * fingerprint backfill to fill in. A FILE version is skipped only if its chunks are gone
+     * (written before history kept them). Every change is logged as a new version; the restore
+     * itself is audited once.
+     */
+    public CredentialRestoreReport restore(UUID envId, UUID projectId, Instant at, User user, String ip) {
+        if (at.isAfter(Instant.now())) {
+            throw new IllegalArgumentException("Restore time must not be in the future");
+        }
+        Project project = credentialService.getProjectInEnv(envId, projectId);
+        Map<UUID, HistoricalCredential> target = replay(projectId, at);
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<CredentialVersionLog.Change> changes = new ArrayList<>();
+            List<String> skipped = new ArrayList<>();
+            int updated = 0;
+            int deleted = 0;
+            int unchanged = 0;
+            Map<UUID, Credential> current = new HashMap<>();
+            for (Credential credential : credentialRepository.findByProject(project)) {
+                current.put(credential.getId(), credential);
+            }
+            for (Credential credential : current.values()) {
+                HistoricalCredential wanted = target.get(credential.getId());
+                if (wanted == null) {
+                    credentialRepository.delete(credential);
+                    changes.add(CredentialVersionLog.Change.of(credential, CredentialVersion.Operation.DELETE, user, now));
+                    deleted++;
+                } else if (matches(credential, wanted)) {
+                    unchanged++;
+                } else if (!restorable(wanted)) {
+                    skipped.add(wanted.key());
+                } else {
+                    credential.setKey(wanted.key());
+                    credential.setValueCiphertext(wanted.ciphertext());
+                    credential.setValueEncrypted(null);
+                    credential.setValueFingerprint(wanted.fingerprint());
+                    credential.setFileId(wanted.fileId());
+                    credential.setFileSize(wanted.fileSize());
+                    credential.setFileChunkSize(wanted.fileChunkSize());
+                    credential.setType(wanted.type());
+                    credential.setDescription(wanted.description());
+                    credential.setUpdatedBy(user);
+                    credential.setUpdatedAt(now);
+                    credentialRepository.save(credential);
+                    changes.add(CredentialVersionLog.Change.of(credential, CredentialVersion.Operation.UPDATE, user, now));
+                    updated++;
+                }
+                valueCache.invalidate(credential.getId());
+            }
+            List<HistoricalCredential> recreate = new ArrayList<>();
+            for (HistoricalCredential wanted : target.values()) {
+                if (current.containsKey(wanted.credentialId())) {
+                    continue;
+                }
+                if (!restorable(wanted)) {
+                    skipped.add(wanted.key());
+                } else {
+                    recreate.add(wanted);
+                    changes.add(new CredentialVersionLog.Change(wanted.credentialId(), projectId,
+                            CredentialVersion.Operation.CREATE, wanted.key(), wanted.ciphertext(),
+                            wanted.fingerprint(), wanted.fileId(),
+                            wanted.fileSize(), wanted.fileChunkSize(), wanted.description(), wanted.type(),
+                            user.getId(), now));
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_CREDENTIAL_SQL, recreate, batchSize, (ps, c) -> {
+                ps.setObject(1, c.credentialId());
+                ps.setObject(2, projectId);
+                ps.setString(3, c.key());
+                ps.setBytes(4, c.ciphertext());
+                ps.setString(5, c.fingerprint());
+                ps.setObject(6, c.fileId());
+                ps.setObject(7, c.fileSize());
+                ps.setObject(8, c.fileChunkSize());
+                ps.setString(9, c.description());
+                ps.setString(10, (c.type() != null ? c.type() : CredentialType.SECRET).name());
+                ps.setObject(11, user.getId());
+                ps.setObject(12, CredentialVersionLog.utc(now));
+            });
+            versionLog.recordAll(changes, batchSize);
+            auditService.logBulkAction(user, project.getEnvironment(), project, "RESTORE_CREDENTIALS", ip);
+            catalogVersions.credentialsChanged(projectId);
+            searchIndex.projectCredentialsChanged(projectId);
+            changeFeed.publish(CredentialChangeEvent.Type.CHANGED, envId, projectId, null, null);
+            return new CredentialRestoreReport(at, recreate.size(), updated, deleted, unchanged, skipped);
+        });
+    }
+
+    /**
+     * Snapshots projects with enough new history, then prunes history past the retention period.
+     * Run it on one instance only.
+     */
+    @Scheduled(fixedDelayString = "${devportal.history.maintenance-interval-ms:3600000}",
+            initialDelayString = "${devportal.history.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        if (!maintenanceEnabled) {
+            return;
+        }
+        try {
+            Instant asOf = Instant.now().minus(snapshotLag);
+            List<UUID> projects = jdbcTemplate.queryForList(SNAPSHOT_CANDIDATES_SQL, UUID.class,
+                    CredentialVersionLog.utc(asOf), snapshotMinChanges);
+            for (UUID projectId : projects) {
+                snapshot(projectId, asOf);
+            }
+            int pruned = prune(Instant.now().minus(retention));
+            if (!projects.isEmpty() || pruned > 0) {
+                log.info("Credential history: {} snapshots written, {} versions pruned", projects.size(), pruned);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Credential history maintenance failed", e);
+        }
+    }
+
+    /**
+     * Materializes the project's state at {@code asOf} from the log.
+     */
+    void snapshot(UUID projectId, Instant asOf) {
+        List<HistoricalCredential> entries = new ArrayList<>(replay(projectId, asOf).values());
+        UUID snapshotId = UUID.randomUUID();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(INSERT_SNAPSHOT_SQL, snapshotId, projectId, CredentialVersionLog.utc(asOf),
+                    entries.size(), CredentialVersionLog.utc(Instant.now()));
+            jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, entries, batchSize, (ps, c) -> {
+                ps.setObject(1, UUID.randomUUID());
+                ps.setObject(2, snapshotId);
+                ps.setObject(3, c.credentialId());
+                ps.setString(4, c.key());
+                ps.setBytes(5, c.ciphertext());
+                ps.setString(6, c.fingerprint());
+                ps.setObject(7, c.fileId());
+                ps.setObject(8, c.fileSize());
+                ps.setObject(9, c.fileChunkSize());
+                ps.setString(10, c.description());
+                ps.setString(11, c.type() != null ? c.type().name() : null);
+                ps.setObject(12, c.updatedBy());
+                ps.setObject(13, CredentialVersionLog.utc(c.updatedAt()));
+            });
+        });
+    }
+
+    /**
+     * For each project, folds history at or before the newest snapshot older than {@code cutoff}
+     * into that snapshot: older versions and snapshots are deleted and the snapshot becomes the
+     * start of the project's history. FILE chunk sets only they referenced are deleted with them.
+     *
+     * @return number of versions deleted
+     */
+    int prune(Instant cutoff) {
+        int deleted = 0;
+        List<Map<String, Object>> bases = jdbcTemplate.queryForList(PRUNE_BASES_SQL, CredentialVersionLog.utc(cutoff));
+        for (Map<String, Object> base : bases) {
+            UUID projectId = (UUID) base.get("project_id");
+            UUID snapshotId = (UUID) base.get("id");
+            Object asOf = base.get("as_of");
+            Integer count = transactionTemplate.execute(status -> {
+                List<UUID> fileIds = jdbcTemplate.queryForList(PRUNED_FILES_SQL, UUID.class,
+                        projectId, asOf, projectId, asOf);
+                int versions = jdbcTemplate.update(
+                        "DELETE FROM credential_versions WHERE project_id = ? AND changed_at <= ?", projectId, asOf);
+                jdbcTemplate.update("DELETE FROM credential_snapshot_entries WHERE snapshot_id IN"
+                        + " (SELECT id FROM credential_snapshots WHERE project_id = ? AND as_of < ?)", projectId, asOf);
+                jdbcTemplate.update("DELETE FROM credential_snapshots WHERE project_id = ? AND as_of < ?", projectId, asOf);
+                jdbcTemplate.update("UPDATE credential_snapshots SET history_start = TRUE WHERE id = ?", snapshotId);
+                fileIds.forEach(fileChunkRepository::deleteIfUnreferenced);
+                return versions;
+            });
+            deleted += count != null ? count : 0;
+        }
+        return deleted;
+    }
+
+    /**
+     * State of the project at {@code at}: nearest snapshot, then the versions after it in order.
+     */
+    Map<UUID, HistoricalCredential> replay(UUID projectId, Instant at) {
+        OffsetDateTime historyStart = jdbcTemplate.queryForObject(HISTORY_START_SQL, OffsetDateTime.class, projectId);
+        if (historyStart != null && at.isBefore(historyStart.toInstant())) {
+            throw new IllegalArgumentException("History before " + historyStart.toInstant() + " has been pruned");
+        }
+        Map<UUID, HistoricalCredential> state = new LinkedHashMap<>();
+        List<Map<String, Object>> snapshot = jdbcTemplate.queryForList(LATEST_SNAPSHOT_SQL, projectId,
+                CredentialVersionLog.utc(at));
+        Object from = CredentialVersionLog.utc(Instant.EPOCH);
+        if (!snapshot.isEmpty()) {
+            from = snapshot.get(0).get("as_of");
+            jdbcTemplate.query(SNAPSHOT_ENTRIES_SQL, (RowCallbackHandler) rs -> {
+                HistoricalCredential entry = historical(rs, "updated_by", "updated_at");
+                state.put(entry.credentialId(), entry);
+            }, snapshot.get(0).get("id"));
+        }
+        jdbcTemplate.query(VERSIONS_SQL, (RowCallbackHandler) rs -> {
+            UUID credentialId = rs.getObject("credential_id", UUID.class);
+            if (CredentialVersion.Operation.valueOf(rs.getString("operation")) == CredentialVersion.Operation.DELETE) {
+                state.remove(credentialId);
+            } else {
+                state.put(credentialId, historical(rs, "changed_by", "changed_at"));
+            }
+        }, projectId, from, CredentialVersionLog.utc(at));
+        return state;
+    }
+
+    private static HistoricalCredential historical(ResultSet rs, String byColumn, String atColumn) throws SQLException {
+        String type = rs.getString("type");
+        long fileSize = rs.getLong("file_size");
+        Long fileSizeValue = rs.wasNull() ? null : fileSize;
+        int chunkSize = rs.getInt("file_chunk_size");
+        Integer chunkSizeValue = rs.wasNull() ? null : chunkSize;
+        return new HistoricalCredential(
+                rs.getObject("credential_id", UUID.class),
+                rs.getString("credential_key"),
+                rs.getBytes("value_ciphertext"),
+                rs.getString("value_fingerprint"),
+                rs.getObject("file_id", UUID.class),
+                fileSizeValue,
+                chunkSizeValue,
+                rs.getString("description"),
+                type != null ? CredentialType.valueOf(type) : null,
+                rs.getObject(byColumn, UUID.class),
+                rs.getObject(atColumn, OffsetDateTime.class).toInstant());
+    }
+
+    /**
+     * Inline values can always be restored; a FILE version needs its chunk set.
+     */
+    private boolean restorable(HistoricalCredential wanted) {
+        return wanted.fileId() == null
+                || Boolean.TRUE.equals(jdbcTemplate.queryForObject(CHUNKS_EXIST_SQL, Boolean.class, wanted.fileId()));
+    }
+
+    private static boolean matches(Credential credential, HistoricalCredential wanted) {
+        if (!credential.getKey().equals(wanted.key())
+                || !Objects.equals(credential.getDescription(), wanted.description())
+                || credential.getType() != wanted.type()
+                || !Objects.equals(credential.getFileId(), wanted.fileId())) {
+            return false;
+        }
+        if (credential.getFileId() != null) {
+            return true;
+        }
+        return Arrays.equals(EnvelopeEncryptionService.storedCiphertext(credential), wanted.ciphertext());
+    }
+}
@@ -0,0 +1,215 @@
+package com.devportal.service;
+
+import com.devportal.dto.CredentialChangeEvent;
+import com.devportal.dto.CredentialImportReport;
+import com.devportal.model.CredentialType;
+import com.devportal.model.CredentialVersion;
+import com.devportal.model.Project;
+import com.devportal.model.User;
+import com.devportal.repository.CredentialRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bulk CSV import of {@code key,value[,type[,description]]} rows. The file is parsed as a stream,
+ * existing keys are fetched once, values are encrypted in parallel, and all credentials and
+ * their audit rows are written with JDBC batch inserts in a single transaction, so an import
+ * either lands completely or not at all. Rows that are malformed or whose key already exists are
+ * reported and skipped rather than failing the file.
+ */
+@Service
+public class CredentialImportService {
+
+    private static final String INSERT_CREDENTIAL_SQL = "INSERT INTO credentials"
+            + " (id, project_id, credential_key, value_ciphertext, value_fingerprint, description, type, updated_by, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_AUDIT_SQL = "INSERT INTO audit_logs"
+            + " (id, user_id, env_id, project_id, action, credential_key, ip_address, created_at)"
+            + " VALUES (?, ?, ?, ?, 'CREATE_CREDENTIAL', ?, ?, ?)";
+
+    private final CredentialService credentialService;
+    private final CredentialRepository credentialRepository;
+    private final EnvelopeEncryptionService envelopeEncryption;
+    private final ValueFingerprints valueFingerprints;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogVersions catalogVersions;
+    private final CredentialVersionLog versionLog;
+    private final SearchIndex searchIndex;
+    private final CredentialChangeFeed changeFeed;
+    private final ForkJoinPool encryptPool;
+    private final int batchSize;
+    private final int maxRows;
+
+    public CredentialImportService(CredentialService credentialService,
+                                   CredentialRepository credentialRepository,
+                                   EnvelopeEncryptionService envelopeEncryption,
+                                   ValueFingerprints valueFingerprints,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   CatalogVersions catalogVersions,
+                                   CredentialVersionLog versionLog,
+                                   SearchIndex searchIndex,
+                                   CredentialChangeFeed changeFeed,
+                                   @Value("${devportal.import.parallelism:0}") int parallelism,
+                                   @Value("${devportal.import.batch-size:500}") int batchSize,
+                                   @Value("${devportal.import.max-rows:50000}") int maxRows) {
+        this.credentialService = credentialService;
+        this.credentialRepository = credentialRepository;
+        this.envelopeEncryption = envelopeEncryption;
+        this.valueFingerprints = valueFingerprints;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogVersions = catalogVersions;
+        this.versionLog = versionLog;
+        this.searchIndex = searchIndex;
+        this.changeFeed = changeFeed;
+        this.encryptPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+    }
+
+    public CredentialImportReport importCsv(UUID envId, UUID projectId, InputStream content,
+                                            User user, String ip) throws IOException {
+        Project project = credentialService.getProjectInEnv(envId, projectId);
+        Set<String> existing = new HashSet<>();
+        credentialRepository.findKeysByProject(project).forEach(key -> existing.add(key.toLowerCase(Locale.ROOT)));
+        Set<String> seen = new HashSet<>();
+
+        List<CredentialImportReport.Row> report = new ArrayList<>();
+        List<PendingRow> pending = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                if ((fields.size() == 1 && fields.get(0).isEmpty()) || fields.get(0).startsWith("#")) {
+                    continue;
+                }
+                if (pending.size() + report.size() >= maxRows) {
+                    throw new IllegalArgumentException("Import exceeds the maximum of " + maxRows + " rows");
+                }
+                int line = reader.recordLine();
+                String key = fields.get(0);
+                if (fields.size() < 2) {
+                    report.add(row(line, key, CredentialImportReport.Status.INVALID, "Expected key,value[,type[,description]]"));
+                } else if (key.isEmpty()) {
+                    report.add(row(line, key, CredentialImportReport.Status.INVALID, "Key is required"));
+                } else if (fields.get(1).isEmpty()) {
+                    report.add(row(line, key, CredentialImportReport.Status.INVALID, "Value is required"));
+                } else if (existing.contains(key.toLowerCase(Locale.ROOT))) {
+                    report.add(row(line, key, CredentialImportReport.Status.SKIPPED, "Key already exists"));
+                } else if (!seen.add(key.toLowerCase(Locale.ROOT))) {
+                    report.add(row(line, key, CredentialImportReport.Status.SKIPPED, "Duplicate key earlier in the file"));
+                } else {
+                    String description = fields.size() > 3 && !fields.get(3).isEmpty() ? fields.get(3) : null;
+                    pending.add(new PendingRow(line, key, fields.get(1),
+                            CredentialType.fromString(fields.size() > 2 ? fields.get(2) : null), description));
+                }
+            }
+        }
+
+        insertAll(project, encryptAll(projectId, pending), user, ip);
+        for (PendingRow row : pending) {
+            report.add(row(row.line(), row.key(), CredentialImportReport.Status.CREATED, null));
+        }
+        report.sort((a, b) -> Integer.compare(a.line(), b.line()));
+        int skipped = (int) report.stream().filter(r -> r.status() == CredentialImportReport.Status.SKIPPED).count();
+        return new CredentialImportReport(pending.size(), skipped, report.size() - pending.size() - skipped, report);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        encryptPool.shutdown();
+    }
+
+    private List<EncryptedRow> encryptAll(UUID projectId, List<PendingRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        envelopeEncryption.loadKeys(projectId);
+        try {
+            return encryptPool.submit(() -> rows.parallelStream()
+                    .map(row -> new EncryptedRow(UUID.randomUUID(), row, envelopeEncryption.encryptValue(projectId, row.value()),
+                            valueFingerprints.of(row.value())))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while encrypting import", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to encrypt import", e.getCause());
+        }
+    }
+
+    private void insertAll(Project project, List<EncryptedRow> rows, User user, String ip) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Instant createdAt = Instant.now();
+        OffsetDateTime now = OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC);
+        UUID envId = project.getEnvironment().getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_CREDENTIAL_SQL, rows, batchSize, (ps, encrypted) -> {
+                PendingRow row = encrypted.row();
+                ps.setObject(1, encrypted.id());
+                ps.setObject(2, project.getId());
+                ps.setString(3, row.key());
+                ps.setBytes(4, encrypted.ciphertext());
+                ps.setString(5, encrypted.fingerprint());
+                ps.setString(6, row.description());
+                ps.setString(7, row.type().name());
+                ps.setObject(8, user.getId());
+                ps.setObject(9, now);
+            });
+            jdbcTemplate.batchUpdate(INSERT_AUDIT_SQL, rows, batchSize, (ps, encrypted) -> {
+                ps.setObject(1, UUID.randomUUID());
+                ps.setObject(2, user.getId());
+                ps.setObject(3, envId);
+                ps.setObject(4, project.getId());
+                ps.setString(5, encrypted.row().key());
+                ps.setString(6, ip);
+                ps.setObject(7, now);
+            });
+            versionLog.recordAll(rows.stream()
+                    .map(encrypted -> new CredentialVersionLog.Change(encrypted.id(), project.getId(),
+                            CredentialVersion.Operation.CREATE, encrypted.row().key(), encrypted.ciphertext(),
+                            encrypted.fingerprint(), null, null, null, encrypted.row().description(), encrypted.row().type(),
+                            user.getId(), createdAt))
+                    .toList(), batchSize);
+            catalogVersions.credentialsChanged(project.getId());
+            rows.forEach(encrypted -> searchIndex.credentialSaved(encrypted.id(), project.getId(),
+                    encrypted.row().key(), encrypted.row().description(), encrypted.row().type()));
+            changeFeed.publish(CredentialChangeEvent.Type.CHANGED, envId, project.getId(), null, null);
+        });
+    }
+
+    private static CredentialImportReport.Row row(int line, String key, CredentialImportReport.Status status, String message) {
+        return new CredentialImportReport.Row(line, key, status, message);
+    }
+
+    private record PendingRow(int line, String key, String value, CredentialType type, String description) {
+    }
+
+    private record EncryptedRow(UUID id, PendingRow row, byte[] ciphertext, String fingerprint) {
+    }
+}
@@ -1,109 +1,248 @@
 package com.devportal.service;
 
+import com.devportal.dto.CredentialChangeEvent;
+import com.devportal.dto.CredentialSummary;
+import com.devportal.dto.PageResponse;
 import com.devportal.model.Credential;
 import com.devportal.model.CredentialType;
+import com.devportal.model.CredentialVersion;
 import com.devportal.model.Project;
 import com.devportal.model.User;
 import com.devportal.repository.CredentialRepository;
 import com.devportal.repository.ProjectRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 public class CredentialService {
 
     private final CredentialRepository credentialRepository;
     private final ProjectRepository projectRepository;
-    private final EncryptionService encryptionService;
+    private final EnvelopeEncryptionService envelopeEncryption;
+    private final ValueFingerprints valueFingerprints;
+    private final DecryptedValueCache valueCache;
     private final AuditService auditService;
+    private final CatalogVersions catalogVersions;
+    private final CredentialVersionLog versionLog;
+    private final SearchIndex searchIndex;
+    private final CredentialChangeFeed changeFeed;
+    private final ForkJoinPool revealPool;
+    private final int parallelThreshold;
 
     public CredentialService(CredentialRepository credentialRepository,
                              ProjectRepository projectRepository,
-                             EncryptionService encryptionService,
-                             AuditService auditService) {
+                             EnvelopeEncryptionService envelopeEncryption,
+                             ValueFingerprints valueFingerprints,
+                             DecryptedValueCache valueCache,
+                             AuditService auditService,
+                             CatalogVersions catalogVersions,
+                             CredentialVersionLog versionLog,
+                             SearchIndex searchIndex,
+                             CredentialChangeFeed changeFeed,
+                             @Value("${devportal.reveal.parallelism:0}") int parallelism,
+                             @Value("${devportal.reveal.parallel-threshold:32}") int parallelThreshold) {
         this.credentialRepository = credentialRepository;
         this.projectRepository = projectRepository;
-        this.encryptionService = encryptionService;
+        this.envelopeEncryption = envelopeEncryption;
+        this.valueFingerprints = valueFingerprints;
+        this.valueCache = valueCache;
         this.auditService = auditService;
+        this.catalogVersions = catalogVersions;
+        this.versionLog = versionLog;
+        this.searchIndex = searchIndex;
+        this.changeFeed = changeFeed;
+        this.revealPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.parallelThreshold = parallelThreshold;
     }
 
-    public List<Credential> listByProject(UUID envId, UUID projectId) {
+    /**
+     * Credentials of the project ordered by key, optionally filtered by key prefix and type.
+     */
+    public PageResponse<CredentialSummary> list(UUID envId, UUID projectId, String keyPrefix, CredentialType type,
+                                                String cursor, Integer limit) {
         Project project = getProjectInEnv(envId, projectId);
-        return credentialRepository.findByProject(project);
+        PageCursor.Position after = PageCursor.decode(cursor);
+        List<CredentialSummary> rows = credentialRepository.findSummaryPage(project, PageCursor.likePrefix(keyPrefix),
+                type, PageCursor.value(after), PageCursor.id(after), PageCursor.fetchLimit(limit));
+        return PageCursor.page(rows, limit, CredentialSummary::key, CredentialSummary::id);
     }
 
+    @Transactional
     public Credential create(UUID envId, UUID projectId, String key, String valuePlain, CredentialType type, String description, User user, String ip) {
         Project project = getProjectInEnv(envId, projectId);
         if (credentialRepository.existsByProjectAndKeyIgnoreCase(project, key)) {
             throw new IllegalArgumentException("Credential key already exists for this project in this environment");
         }
         CredentialType resolvedType = type != null ? type : CredentialType.SECRET;
-        String encrypted = encryptionService.encrypt(valuePlain);
+        byte[] encrypted = envelopeEncryption.encryptValue(project.getId(), valuePlain);
         Credential credential = Credential.builder()
                 .project(project)
                 .key(key)
-                .valueEncrypted(encrypted)
+                .valueCiphertext(encrypted)
+                .valueFingerprint(valueFingerprints.of(valuePlain))
                 .type(resolvedType)
                 .description(description)
                 .updatedBy(user)
                 .updatedAt(Instant.now())
                 .build();
         Credential saved = credentialRepository.save(credential);
+        versionLog.record(saved, CredentialVersion.Operation.CREATE, user);
+        catalogVersions.credentialsChanged(project.getId());
+        searchIndex.credentialSaved(saved);
+        changeFeed.publish(CredentialChangeEvent.Type.CREATED, envId, project.getId(), saved.getId(), saved.getKey());
         auditService.logCredentialChange(user, saved, "CREATE_CREDENTIAL", ip);
         return saved;
     }
 
+    @Transactional
     public Credential update(UUID envId, UUID projectId, UUID credentialId, String key, String valuePlain, CredentialType type, String description, User user, String ip) {
-        Project project = getProjectInEnv(envId, projectId);
-        Credential existing = credentialRepository.findById(credentialId)
-                .orElseThrow(() -> new IllegalArgumentException("Credential not found"));
-        if (!existing.getProject().getId().equals(projectId)) {
-            throw new IllegalArgumentException("Credential does not belong to project");
-        }
+        Credential existing = getCredential(envId, projectId, credentialId);
+        Project project = existing.getProject();
         if (!existing.getKey().equalsIgnoreCase(key)
                 && credentialRepository.existsByProjectAndKeyIgnoreCase(project, key)) {
             throw new IllegalArgumentException("Credential key already exists for this project in this environment");
         }
         existing.setKey(key);
         if (valuePlain != null) {
-            existing.setValueEncrypted(encryptionService.encrypt(valuePlain));
+            existing.setValueCiphertext(envelopeEncryption.encryptValue(projectId, valuePlain));
+            existing.setValueEncrypted(null);
+            existing.setValueFingerprint(valueFingerprints.of(valuePlain));
+            if (existing.getFileId() != null) {
+                // The chunk set stays for history until retention pruning drops it
+                existing.setFileId(null);
+                existing.setFileSize(null);
+                existing.setFileChunkSize(null);
+            }
         }
         existing.setType(type != null ? type : CredentialType.SECRET);
         existing.setDescription(description);
         existing.setUpdatedBy(user);
         existing.setUpdatedAt(Instant.now());
         Credential saved = credentialRepository.save(existing);
+        valueCache.invalidate(credentialId);
+        versionLog.record(saved, CredentialVersion.Operation.UPDATE, user);
+        catalogVersions.credentialsChanged(projectId);
+        searchIndex.credentialSaved(saved);
+        changeFeed.publish(CredentialChangeEvent.Type.UPDATED, envId, projectId, credentialId, saved.getKey());
         auditService.logCredentialChange(user, saved, "UPDATE_CREDENTIAL", ip);
         return saved;
     }
 
+    @Transactional
     public void delete(UUID envId, UUID projectId, UUID credentialId, User user, String ip) {
-        getProjectInEnv(envId, projectId);
-        Credential existing = credentialRepository.findById(credentialId)
-                .orElseThrow(() -> new IllegalArgumentException("Credential not found"));
-        if (!existing.getProject().getId().equals(projectId)) {
-            throw new IllegalArgumentException("Credential does not belong to project");
-        }
+        Credential existing = getCredential(envId, projectId, credentialId);
         credentialRepository.delete(existing);
+        valueCache.invalidate(credentialId);
+        versionLog.record(existing, CredentialVersion.Operation.DELETE, user);
+        catalogVersions.credentialsChanged(projectId);
+        searchIndex.credentialDeleted(credentialId);
+        changeFeed.publish(CredentialChangeEvent.Type.DELETED, envId, projectId, credentialId, existing.getKey());
         auditService.logCredentialChange(user, existing, "DELETE_CREDENTIAL", ip);
     }
 
-    public String reveal(UUID envId, UUID projectId, UUID credentialId, User user, String ip) {
+    /**
+     * Decrypts one credential and records the view. The credential, project and environment come
+     * from a single query; a reveal-cache hit also skips the decrypt.
+     */
+    public RevealedValue reveal(UUID envId, UUID projectId, UUID credentialId, User user, String ip) {
+        Credential existing = getCredential(envId, projectId, credentialId);
+        if (existing.getFileId() != null) {
+            throw new IllegalArgumentException("Streamed file content must be downloaded from the file endpoint");
+        }
+        RevealedValue revealed = decryptForReveal(existing);
+        auditService.logCredentialView(user, existing, ip);
+        return revealed;
+    }
+
+    /**
+     * Reveals several credentials of a project at once, or all of them when {@code ids} is empty.
+     * Loads them with one query, decrypts on the bounded reveal pool (sequentially for small
+     * batches) and writes every audit row in one batch. Streamed files are returned without a value.
+     */
+    public List<RevealedValue> revealAll(UUID envId, UUID projectId, Collection<UUID> ids, User user, String ip) {
+        Project project = getProjectInEnv(envId, projectId);
+        List<Credential> credentials;
+        if (ids == null || ids.isEmpty()) {
+            credentials = credentialRepository.findByProject(project);
+        } else {
+            Set<UUID> requested = new HashSet<>(ids);
+            credentials = credentialRepository.findByProjectAndIdIn(project, requested);
+            if (credentials.size() != requested.size()) {
+                throw new IllegalArgumentException("Credential not found");
+            }
+        }
+        if (credentials.isEmpty()) {
+            return List.of();
+        }
+        envelopeEncryption.loadKeys(projectId);
+        List<RevealedValue> revealed;
+        if (credentials.size() < parallelThreshold) {
+            revealed = credentials.stream().map(this::decryptForReveal).toList();
+        } else {
+            try {
+                revealed = revealPool.submit(() -> credentials.parallelStream().map(this::decryptForReveal).toList()).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while revealing credentials", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Failed to reveal credentials", e.getCause());
+            }
+        }
+        auditService.logCredentialViews(user, project, credentials, ip);
+        return revealed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        revealPool.shutdown();
+    }
+
+    /**
+     * Loads a credential, checking it belongs to the project and the project to the environment.
+     */
+    public Credential getCredential(UUID envId, UUID projectId, UUID credentialId) {
+        Optional<Credential> found = credentialRepository.findInProject(envId, projectId, credentialId);
+        if (found.isPresent()) {
+            return found.get();
+        }
+        // Not found: repeat the individual checks only to report which one failed
         getProjectInEnv(envId, projectId);
         Credential existing = credentialRepository.findById(credentialId)
                 .orElseThrow(() -> new IllegalArgumentException("Credential not found"));
         if (!existing.getProject().getId().equals(projectId)) {
             throw new IllegalArgumentException("Credential does not belong to project");
         }
-        String plaintext = encryptionService.decrypt(existing.getValueEncrypted());
-        auditService.logCredentialView(user, existing, ip);
-        return plaintext;
+        return existing;
+    }
+
+    private RevealedValue decryptForReveal(Credential credential) {
+        if (credential.getFileId() != null) {
+            return new RevealedValue(credential, null);
+        }
+        String value = valueCache.get(credential.getId(), credential.getUpdatedAt());
+        if (value == null) {
+            value = envelopeEncryption.decryptValue(credential);
+            valueCache.put(credential.getId(), credential.getUpdatedAt(), value);
+        }
+        return new RevealedValue(credential, value);
     }
 
-    private Project getProjectInEnv(UUID envId, UUID projectId) {
+    Project getProjectInEnv(UUID envId, UUID projectId) {
         Project project = projectRepository.findById(projectId)
                 .orElseThrow(() -> new IllegalArgumentException("Project not found"));
         if (project.getEnvironment() == null || project.getEnvironment().getId() == null
@@ -112,4 +251,7 @@ public class CredentialService {
         }
         return project;
     }
+
+    public record RevealedValue(Credential credential, String value) {
+    }
 }
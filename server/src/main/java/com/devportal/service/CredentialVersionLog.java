@@ -0,0 +1,120 @@
+package com.devportal.service;
+
+import com.devportal.model.Credential;
+import com.devportal.model.CredentialType;
+import com.devportal.model.CredentialVersion;
+import com.devportal.model.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends to {@code credential_versions}. Called by every credential write, inside the write's
+ * transaction where there is one, so history and current state commit together.
+ */
+@Component
+public class CredentialVersionLog {
+
+    private static final String INSERT_SQL = "INSERT INTO credential_versions"
+            + " (id, credential_id, project_id, operation, credential_key, value_ciphertext, value_fingerprint,"
+            + " file_id, file_size, file_chunk_size, description, type, changed_by, changed_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CredentialVersionLog(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * One version row; {@code ciphertext}, {@code fingerprint} and the file fields are null for deletes.
+     */
+    public record Change(UUID credentialId,
+                         UUID projectId,
+                         CredentialVersion.Operation operation,
+                         String key,
+                         byte[] ciphertext,
+                         String fingerprint,
+                         UUID fileId,
+                         Long fileSize,
+                         Integer fileChunkSize,
+                         String description,
+                         CredentialType type,
+                         UUID changedBy,
+                         Instant changedAt) {
+
+        /**
+         * The credential's current state as a version; deletes keep only the key and metadata.
+         */
+        public static Change of(Credential credential, CredentialVersion.Operation operation, User user, Instant at) {
+            boolean deleted = operation == CredentialVersion.Operation.DELETE;
+            byte[] ciphertext = deleted || credential.getFileId() != null
+                    ? null : EnvelopeEncryptionService.storedCiphertext(credential);
+            return new Change(credential.getId(), credential.getProject().getId(), operation, credential.getKey(),
+                    ciphertext,
+                    deleted ? null : credential.getValueFingerprint(),
+                    deleted ? null : credential.getFileId(),
+                    deleted ? null : credential.getFileSize(),
+                    deleted ? null : credential.getFileChunkSize(),
+                    credential.getDescription(), credential.getType(),
+                    user != null ? user.getId() : null, at);
+        }
+    }
+
+    public void record(Credential credential, CredentialVersion.Operation operation, User user) {
+        Instant at = operation != CredentialVersion.Operation.DELETE && credential.getUpdatedAt() != null
+                ? credential.getUpdatedAt() : Instant.now();
+        Change change = Change.of(credential, operation, user, at);
+        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, change));
+    }
+
+    public void recordAll(List<Change> changes, int batchSize) {
+        if (!changes.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, changes, batchSize, CredentialVersionLog::bind);
+        }
+    }
+
+    /**
+     * Drops all history of a deleted project, with every FILE chunk set it or its credentials use.
+     */
+    public void deleteProjectHistory(UUID projectId) {
+        jdbcTemplate.update("DELETE FROM credential_file_chunks WHERE file_id IN"
+                + " (SELECT file_id FROM credentials WHERE project_id = ?"
+                + " UNION SELECT file_id FROM credential_versions WHERE project_id = ?"
+                + " UNION SELECT e.file_id FROM credential_snapshot_entries e"
+                + " JOIN credential_snapshots s ON s.id = e.snapshot_id WHERE s.project_id = ?)",
+                projectId, projectId, projectId);
+        jdbcTemplate.update("DELETE FROM credential_snapshot_entries WHERE snapshot_id IN"
+                + " (SELECT id FROM credential_snapshots WHERE project_id = ?)", projectId);
+        jdbcTemplate.update("DELETE FROM credential_snapshots WHERE project_id = ?", projectId);
+        jdbcTemplate.update("DELETE FROM credential_versions WHERE project_id = ?", projectId);
+    }
+
+    static OffsetDateTime utc(Instant instant) {
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static void bind(PreparedStatement ps, Change change) throws SQLException {
+        ps.setObject(1, UUID.randomUUID());
+        ps.setObject(2, change.credentialId());
+        ps.setObject(3, change.projectId());
+        ps.setString(4, change.operation().name());
+        ps.setString(5, change.key());
+        ps.setBytes(6, change.ciphertext());
+        ps.setString(7, change.fingerprint());
+        ps.setObject(8, change.fileId());
+        ps.setObject(9, change.fileSize());
+        ps.setObject(10, change.fileChunkSize());
+        ps.setString(11, change.description());
+        ps.setString(12, change.type() != null ? change.type().name() : null);
+        ps.setObject(13, change.changedBy());
+        ps.setObject(14, utc(change.changedAt()));
+    }
+}
@@ -0,0 +1,111 @@
+package com.devportal.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader: comma-separated fields, double-quoted fields that may contain commas,
+ * line breaks and doubled quotes, and CRLF or LF record separators. Reads one record at a time.
+ * Unquoted fields are trimmed; quoted fields are kept verbatim.
+ */
+final class CsvRecordReader implements Closeable {
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private int line = 1;
+    private int recordLine;
+    private int pending = NONE;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+
+    /**
+     * @return the next record's fields, or null at end of input
+     * @throws IllegalArgumentException if a quoted field is not terminated
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        c = n;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(quoted ? field.toString() : field.toString().trim());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int n = read();
+                    if (n != '\n') {
+                        pending = n;
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                fields.add(quoted ? field.toString() : field.toString().trim());
+                return fields;
+            } else if (quoted && Character.isWhitespace(c)) {
+                // padding after the closing quote
+            } else if (c == '"' && !quoted && field.toString().isBlank()) {
+                field.setLength(0);
+                quoted = true;
+                inQuotes = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Line on which the record last returned by {@link #next()} started.
+     */
+    int recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (pending != NONE) {
+            int c = pending;
+            pending = NONE;
+            return c;
+        }
+        return reader.read();
+    }
+}
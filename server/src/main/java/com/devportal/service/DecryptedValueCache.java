@@ -0,0 +1,226 @@
+package com.devportal.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in, short-lived cache of revealed credential values, for bursts where many clients reveal
+ * the same few secrets. Plaintext is held off-heap in direct buffers, keyed by credential id and
+ * only served for the {@code updatedAt} it was cached with, so an edit on any instance is never
+ * masked. Entries are zero-filled when they expire, are evicted, or are invalidated.
+ * <p>
+ * Bounded by entry count and total plaintext bytes; when full, the entries closest to expiry go first.
+ */
+@Component
+public class DecryptedValueCache {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public DecryptedValueCache(@Value("${devportal.reveal-cache.enabled:false}") boolean enabled,
+                               @Value("${devportal.reveal-cache.ttl-seconds:30}") long ttlSeconds,
+                               @Value("${devportal.reveal-cache.max-entries:1000}") int maxEntries,
+                               @Value("${devportal.reveal-cache.max-bytes:4194304}") long maxBytes) {
+        this.enabled = enabled && maxEntries > 0;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the cached value, or null if absent, expired or cached for a different {@code updatedAt}
+     */
+    public String get(UUID credentialId, Instant updatedAt) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.get(credentialId);
+        String value = null;
+        if (entry != null) {
+            if (entry.expiresAtNanos - System.nanoTime() <= 0 || !Objects.equals(entry.updatedAt, updatedAt)) {
+                remove(credentialId, entry);
+            } else {
+                value = entry.read();
+            }
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(UUID credentialId, Instant updatedAt, String plaintext) {
+        if (!enabled) {
+            return;
+        }
+        byte[] bytes = plaintext.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (bytes.length > maxBytes) {
+                return;
+            }
+            Entry entry = new Entry(updatedAt, bytes, System.nanoTime() + ttlNanos);
+            Entry previous = entries.put(credentialId, entry);
+            totalBytes.addAndGet(bytes.length);
+            if (previous != null) {
+                release(previous);
+            }
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+        }
+        if (entries.size() > maxEntries || totalBytes.get() > maxBytes) {
+            shrink();
+        }
+    }
+
+    public void invalidate(UUID credentialId) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = entries.remove(credentialId);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${devportal.reveal-cache.sweep-interval-ms:5000}")
+    public void sweepExpired() {
+        long now = System.nanoTime();
+        entries.forEach((id, entry) -> {
+            if (entry.expiresAtNanos - now <= 0) {
+                remove(id, entry);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void clear() {
+        entries.forEach(this::remove);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Drops expired entries, then the soonest-to-expire ones until back within bounds.
+     */
+    private void shrink() {
+        sweepExpired();
+        while (entries.size() > maxEntries || totalBytes.get() > maxBytes) {
+            Map.Entry<UUID, Entry> oldest = null;
+            for (Map.Entry<UUID, Entry> candidate : entries.entrySet()) {
+                if (oldest == null || candidate.getValue().expiresAtNanos - oldest.getValue().expiresAtNanos < 0) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            if (remove(oldest.getKey(), oldest.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean remove(UUID credentialId, Entry entry) {
+        if (entries.remove(credentialId, entry)) {
+            release(entry);
+            return true;
+        }
+        return false;
+    }
+
+    private void release(Entry entry) {
+        if (entry.wipe()) {
+            totalBytes.addAndGet(-entry.length);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Instant updatedAt;
+        private final long expiresAtNanos;
+        private final int length;
+        private ByteBuffer buffer;
+
+        Entry(Instant updatedAt, byte[] plaintext, long expiresAtNanos) {
+            this.updatedAt = updatedAt;
+            this.expiresAtNanos = expiresAtNanos;
+            this.length = plaintext.length;
+            this.buffer = ByteBuffer.allocateDirect(Math.max(plaintext.length, 1));
+            buffer.put(plaintext).flip();
+        }
+
+        synchronized String read() {
+            if (buffer == null) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(0, bytes);
+            try {
+                return new String(bytes, StandardCharsets.UTF_8);
+            } finally {
+                Arrays.fill(bytes, (byte) 0);
+            }
+        }
+
+        /**
+         * Zero-fills the off-heap copy. The buffer's native memory is released when it is collected.
+         *
+         * @return false if already wiped
+         */
+        synchronized boolean wipe() {
+            if (buffer == null) {
+                return false;
+            }
+            for (int i = 0; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer = null;
+            return true;
+        }
+    }
+}
@@ -4,71 +4,267 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+/**
+ * AES-256-GCM primitives. Messages are laid out as {@code IV (12) | ciphertext | tag (16)}, optionally
+ * preceded by an authenticated header. The no-key methods use the legacy single
+ * {@code devportal.encryption.key}; envelope encryption passes its data keys explicitly.
+ * <p>
+ * The key object is built once and {@link Cipher} instances are pooled, re-initialised with a
+ * fresh IV per message. The {@code byte[]} and {@link ByteBuffer} overloads write
+ * straight into the output without intermediate copies; the {@code String} methods keep the
+ * Base64 text format used by existing callers.
+ */
 @Service
 public class EncryptionService {
 
     private static final String ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_TAG_LENGTH = 128;
+    private static final int TAG_BYTES = GCM_TAG_LENGTH / 8;
     private static final int IV_LENGTH = 12;
 
-    private final byte[] keyBytes;
+    /*
+     * Ciphers are pooled rather than kept per thread: with virtual threads every request runs on
+     * a new thread, so a thread-local cipher would be created per request and never reused.
+     */
+    private static final BlockingQueue<Cipher> CIPHERS =
+            new ArrayBlockingQueue<>(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    private final SecretKey key;
     private final SecureRandom secureRandom = new SecureRandom();
 
     public EncryptionService(@Value("${devportal.encryption.key}") String key) {
         // Expect a 32-byte key represented as a plain string; pad/trim if necessary to 32 bytes
-        byte[] raw = key.getBytes(StandardCharsets.UTF_8);
-        byte[] normalized = new byte[32];
-        System.arraycopy(raw, 0, normalized, 0, Math.min(raw.length, 32));
-        this.keyBytes = normalized;
+        this.key = aesKey(key);
     }
 
     public String encrypt(String plaintext) {
+        byte[] plaintextBytes = plaintext.getBytes(StandardCharsets.UTF_8);
         try {
-            byte[] iv = new byte[IV_LENGTH];
-            secureRandom.nextBytes(iv);
+            return Base64.getEncoder().encodeToString(encrypt(plaintextBytes));
+        } finally {
+            Arrays.fill(plaintextBytes, (byte) 0);
+        }
+    }
 
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(keyBytes, ALGORITHM), spec);
+    public String decrypt(String ciphertextBase64) {
+        byte[] plaintextBytes = decrypt(Base64.getDecoder().decode(ciphertextBase64));
+        try {
+            return new String(plaintextBytes, StandardCharsets.UTF_8);
+        } finally {
+            Arrays.fill(plaintextBytes, (byte) 0);
+        }
+    }
 
-            byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+    public byte[] encrypt(byte[] plaintext) {
+        return encrypt(plaintext, 0, plaintext.length);
+    }
 
-            ByteBuffer byteBuffer = ByteBuffer.allocate(iv.length + ciphertext.length);
-            byteBuffer.put(iv);
-            byteBuffer.put(ciphertext);
-            return Base64.getEncoder().encodeToString(byteBuffer.array());
+    public byte[] encrypt(byte[] plaintext, int offset, int length) {
+        byte[] message = new byte[encryptedLength(length)];
+        Cipher cipher = borrowCipher();
+        try {
+            initEncrypt(cipher, message, 0);
+            cipher.doFinal(plaintext, offset, length, message, IV_LENGTH);
+            return message;
         } catch (Exception e) {
             throw new IllegalStateException("Failed to encrypt credential", e);
+        } finally {
+            releaseCipher(cipher);
         }
     }
 
-    public String decrypt(String ciphertextBase64) {
+    public byte[] decrypt(byte[] message) {
+        return decrypt(message, 0, message.length);
+    }
+
+    public byte[] decrypt(byte[] message, int offset, int length) {
+        Cipher cipher = borrowCipher();
         try {
-            byte[] cipherMessage = Base64.getDecoder().decode(ciphertextBase64);
-            ByteBuffer byteBuffer = ByteBuffer.wrap(cipherMessage);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, message, offset, IV_LENGTH));
+            return cipher.doFinal(message, offset + IV_LENGTH, length - IV_LENGTH);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to decrypt credential", e);
+        } finally {
+            releaseCipher(cipher);
+        }
+    }
 
+    /**
+     * Encrypts the remaining bytes of {@code plaintext} into {@code out}, which must have
+     * {@link #encryptedLength(int)} bytes remaining. Works with direct buffers.
+     *
+     * @return number of bytes written
+     */
+    public int encrypt(ByteBuffer plaintext, ByteBuffer out) {
+        Cipher cipher = borrowCipher();
+        try {
             byte[] iv = new byte[IV_LENGTH];
-            byteBuffer.get(iv);
-            byte[] ciphertext = new byte[byteBuffer.remaining()];
-            byteBuffer.get(ciphertext);
+            secureRandom.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            out.put(iv);
+            return IV_LENGTH + cipher.doFinal(plaintext, out);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encrypt credential", e);
+        } finally {
+            releaseCipher(cipher);
+        }
+    }
 
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(keyBytes, ALGORITHM), spec);
+    /**
+     * Decrypts the remaining bytes of {@code message} into {@code out}, which must have
+     * {@link #decryptedLength(int)} bytes remaining. Works with direct buffers.
+     *
+     * @return number of bytes written
+     */
+    public int decrypt(ByteBuffer message, ByteBuffer out) {
+        Cipher cipher = borrowCipher();
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            message.get(iv);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            return cipher.doFinal(message, out);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to decrypt credential", e);
+        } finally {
+            releaseCipher(cipher);
+        }
+    }
 
-            byte[] plaintextBytes = cipher.doFinal(ciphertext);
-            return new String(plaintextBytes, StandardCharsets.UTF_8);
+    /**
+     * Encrypts under {@code key} and returns {@code header | IV | ciphertext | tag}. The header
+     * is authenticated as additional data, so it cannot be swapped onto another message.
+     */
+    public byte[] encrypt(SecretKey key, byte[] header, byte[] plaintext) {
+        return encrypt(key, header, null, plaintext, plaintext.length);
+    }
+
+    /**
+     * As {@link #encrypt(SecretKey, byte[], byte[])} for the first {@code length} bytes of
+     * {@code plaintext}, additionally authenticating {@code aad}. The aad is not stored in the
+     * message; decryption must supply the same bytes.
+     */
+    public byte[] encrypt(SecretKey key, byte[] header, byte[] aad, byte[] plaintext, int length) {
+        byte[] message = new byte[header.length + encryptedLength(length)];
+        System.arraycopy(header, 0, message, 0, header.length);
+        Cipher cipher = borrowCipher();
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            System.arraycopy(iv, 0, message, header.length, IV_LENGTH);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(header);
+            if (aad != null) {
+                cipher.updateAAD(aad);
+            }
+            cipher.doFinal(plaintext, 0, length, message, header.length + IV_LENGTH);
+            return message;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encrypt credential", e);
+        } finally {
+            releaseCipher(cipher);
+        }
+    }
+
+    /**
+     * Inverse of {@link #encrypt(SecretKey, byte[], byte[])}; the first {@code headerLength}
+     * bytes of {@code message} are verified as additional data.
+     */
+    public byte[] decrypt(SecretKey key, byte[] message, int headerLength) {
+        return decrypt(key, message, headerLength, null);
+    }
+
+    /**
+     * Inverse of {@link #encrypt(SecretKey, byte[], byte[], byte[], int)}.
+     */
+    public byte[] decrypt(SecretKey key, byte[] message, int headerLength, byte[] aad) {
+        Cipher cipher = borrowCipher();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, message, headerLength, IV_LENGTH));
+            cipher.updateAAD(message, 0, headerLength);
+            if (aad != null) {
+                cipher.updateAAD(aad);
+            }
+            return cipher.doFinal(message, headerLength + IV_LENGTH, message.length - headerLength - IV_LENGTH);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to decrypt credential", e);
+        } finally {
+            releaseCipher(cipher);
         }
     }
-}
 
+    /**
+     * Fresh random 256-bit AES key material.
+     */
+    public byte[] generateKeyBytes() {
+        byte[] raw = new byte[32];
+        secureRandom.nextBytes(raw);
+        return raw;
+    }
+
+    public static SecretKey aesKey(byte[] raw) {
+        return new SecretKeySpec(raw, ALGORITHM);
+    }
+
+    /**
+     * Legacy string key format: UTF-8 bytes padded or truncated to 32 bytes.
+     */
+    public static SecretKey aesKey(String key) {
+        byte[] raw = key.getBytes(StandardCharsets.UTF_8);
+        byte[] normalized = new byte[32];
+        System.arraycopy(raw, 0, normalized, 0, Math.min(raw.length, 32));
+        SecretKey secretKey = new SecretKeySpec(normalized, ALGORITHM);
+        Arrays.fill(normalized, (byte) 0);
+        return secretKey;
+    }
+
+    public int encryptedLength(int plaintextLength) {
+        return IV_LENGTH + plaintextLength + TAG_BYTES;
+    }
+
+    public int decryptedLength(int messageLength) {
+        return messageLength - IV_LENGTH - TAG_BYTES;
+    }
+
+    /**
+     * Writes a fresh IV at {@code ivOffset} and initialises {@code cipher} with it.
+     */
+    private void initEncrypt(Cipher cipher, byte[] message, int ivOffset) throws Exception {
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        System.arraycopy(iv, 0, message, ivOffset, IV_LENGTH);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+    }
+
+    private static Cipher borrowCipher() {
+        Cipher cipher = CIPHERS.poll();
+        if (cipher != null) {
+            return cipher;
+        }
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException("AES/GCM not available", e);
+        }
+    }
+
+    /**
+     * Returns a cipher to the pool, or drops it when the pool is full. Every use re-initialises it.
+     */
+    private static void releaseCipher(Cipher cipher) {
+        CIPHERS.offer(cipher);
+    }
+}
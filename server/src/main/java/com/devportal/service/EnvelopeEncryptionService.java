@@ -0,0 +1,293 @@
+package com.devportal.service;
+
+import com.devportal.model.Credential;
+import com.devportal.model.ProjectDataKey;
+import com.devportal.repository.ProjectDataKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envelope encryption for credential values: each project has its own data key, wrapped by the
+ * active master key of the {@link MasterKeyRing}. Ciphertext starts with a small header naming
+ * the data key version, {@code 0xE5 | format (1) | version (4)}, followed by the AES-GCM message.
+ * <p>
+ * Values written before envelope encryption (no header, legacy single key) stay readable.
+ * Unwrapped data keys are cached per project for a short time so other instances' rotations
+ * are picked up. Retired versions (see {@link KeyRotationService}) are no longer loaded.
+ * <p>
+ * A project's first key is created lazily by the first write. Keys are inserted in their own
+ * transaction with {@code ON CONFLICT DO NOTHING}: a concurrent creator never aborts the caller's
+ * transaction, and a caller that rolls back never leaves a cached key that was not committed.
+ */
+@Service
+public class EnvelopeEncryptionService {
+
+    static final byte MAGIC = (byte) 0xE5;
+    static final byte FORMAT_V1 = 1;
+    static final int HEADER_LENGTH = 2 + Integer.BYTES;
+    public static final int LEGACY_VERSION = 0;
+
+    private final EncryptionService encryptionService;
+    private final MasterKeyRing masterKeyRing;
+    private final ProjectDataKeyRepository dataKeyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final long cacheTtlMillis;
+    private final Map<UUID, ProjectKeys> cache = new ConcurrentHashMap<>();
+
+    public EnvelopeEncryptionService(EncryptionService encryptionService,
+                                     MasterKeyRing masterKeyRing,
+                                     ProjectDataKeyRepository dataKeyRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${devportal.encryption.data-key-cache-seconds:60}") long cacheTtlSeconds) {
+        this.encryptionService = encryptionService;
+        this.masterKeyRing = masterKeyRing;
+        this.dataKeyRepository = dataKeyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cacheTtlMillis = cacheTtlSeconds * 1000;
+    }
+
+    /**
+     * Encrypts a UTF-8 credential value for storage in {@code value_ciphertext}.
+     */
+    public byte[] encryptValue(UUID projectId, String plaintext) {
+        byte[] plaintextBytes = plaintext.getBytes(StandardCharsets.UTF_8);
+        try {
+            return encrypt(projectId, plaintextBytes);
+        } finally {
+            Arrays.fill(plaintextBytes, (byte) 0);
+        }
+    }
+
+    public String decryptValue(Credential credential) {
+        byte[] plaintextBytes = decrypt(credential.getProject().getId(), storedCiphertext(credential));
+        try {
+            return new String(plaintextBytes, StandardCharsets.UTF_8);
+        } finally {
+            Arrays.fill(plaintextBytes, (byte) 0);
+        }
+    }
+
+    /**
+     * The credential's ciphertext, from the binary column or, for rows the migration has not
+     * reached yet, decoded from the legacy Base64 column.
+     */
+    public static byte[] storedCiphertext(Credential credential) {
+        if (credential.getValueCiphertext() != null) {
+            return credential.getValueCiphertext();
+        }
+        return Base64.getDecoder().decode(credential.getValueEncrypted());
+    }
+
+    public byte[] encrypt(UUID projectId, byte[] plaintext) {
+        ProjectKeys keys = writableKeys(projectId);
+        return encryptionService.encrypt(keys.active(), header(keys.activeVersion()), plaintext);
+    }
+
+    public byte[] decrypt(UUID projectId, byte[] message) {
+        int version = dataKeyVersion(message);
+        if (version == LEGACY_VERSION) {
+            return encryptionService.decrypt(message);
+        }
+        try {
+            return encryptionService.decrypt(dataKey(projectId, version), message, HEADER_LENGTH);
+        } catch (IllegalStateException e) {
+            // A legacy IV can start with the header bytes by chance; fall back before giving up
+            try {
+                return encryptionService.decrypt(message);
+            } catch (IllegalStateException legacyFailure) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Encrypts one chunk of a streamed file under the project's active data key. {@code aad}
+     * binds the chunk to its position in the file and is not stored.
+     */
+    public byte[] encryptChunk(UUID projectId, byte[] aad, byte[] plaintext, int length) {
+        ProjectKeys keys = writableKeys(projectId);
+        return encryptionService.encrypt(keys.active(), header(keys.activeVersion()), aad, plaintext, length);
+    }
+
+    public byte[] decryptChunk(UUID projectId, byte[] aad, byte[] message) {
+        int version = dataKeyVersion(message);
+        if (version == LEGACY_VERSION) {
+            throw new IllegalStateException("File chunk has no data key header");
+        }
+        return encryptionService.decrypt(dataKey(projectId, version), message, HEADER_LENGTH, aad);
+    }
+
+    /**
+     * Data key version named in the header, or {@link #LEGACY_VERSION} for headerless values.
+     */
+    public int dataKeyVersion(byte[] message) {
+        if (message.length < HEADER_LENGTH + encryptionService.encryptedLength(0)
+                || message[0] != MAGIC || message[1] != FORMAT_V1) {
+            return LEGACY_VERSION;
+        }
+        return ByteBuffer.wrap(message, 2, Integer.BYTES).getInt();
+    }
+
+    /**
+     * Loads the project's data keys into the cache, so a parallel batch does not race to load them.
+     */
+    public void loadKeys(UUID projectId) {
+        keys(projectId);
+    }
+
+    public boolean isCurrent(UUID projectId, byte[] message) {
+        return dataKeyVersion(message) == writableKeys(projectId).activeVersion();
+    }
+
+    public Instant activeKeyCreatedAt(UUID projectId) {
+        return writableKeys(projectId).activeCreatedAt();
+    }
+
+    /**
+     * Creates the next data key version for the project; new values are written with it.
+     */
+    public void rotateDataKey(UUID projectId) {
+        List<ProjectDataKey> existing = dataKeyRepository.findByProjectId(projectId);
+        int next = existing.isEmpty() ? 1 : existing.get(0).getVersion() + 1;
+        // A concurrent rotation to the same version wins; its key is just as fresh
+        createDataKey(projectId, next);
+        cache.remove(projectId);
+    }
+
+    /**
+     * Re-wraps the data key under the active master key if it was wrapped by an older one.
+     *
+     * @return true if the key was re-wrapped
+     */
+    public boolean rewrap(ProjectDataKey dataKey) {
+        if (dataKey.getRetiredAt() != null || dataKey.getMasterKeyId() == masterKeyRing.activeId()) {
+            return false;
+        }
+        byte[] raw = masterKeyRing.unwrap(dataKey.getMasterKeyId(), dataKey.getWrappedKey());
+        try {
+            dataKey.setWrappedKey(masterKeyRing.wrap(raw));
+            dataKey.setMasterKeyId(masterKeyRing.activeId());
+            dataKeyRepository.save(dataKey);
+            return true;
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    @Transactional
+    public void deleteKeys(UUID projectId) {
+        dataKeyRepository.deleteByProjectId(projectId);
+        cache.remove(projectId);
+    }
+
+    private SecretKey dataKey(UUID projectId, int version) {
+        SecretKey key = keys(projectId).byVersion().get(version);
+        if (key == null) {
+            cache.remove(projectId);
+            key = keys(projectId).byVersion().get(version);
+        }
+        if (key == null) {
+            throw new IllegalStateException("Data key version " + version + " not found for project");
+        }
+        return key;
+    }
+
+    private ProjectKeys keys(UUID projectId) {
+        long now = System.currentTimeMillis();
+        ProjectKeys keys = cache.get(projectId);
+        if (keys == null || keys.loadedAtMillis() + cacheTtlMillis < now) {
+            keys = load(projectId, now);
+            cache.put(projectId, keys);
+        }
+        return keys;
+    }
+
+    /**
+     * Keys for a write: creates the project's first data key if it has none yet. Reads never
+     * create keys, so they stay safe in read-only transactions.
+     */
+    private ProjectKeys writableKeys(UUID projectId) {
+        ProjectKeys keys = keys(projectId);
+        if (keys.activeVersion() == LEGACY_VERSION) {
+            createDataKey(projectId, 1);
+            cache.remove(projectId);
+            keys = keys(projectId);
+        }
+        return keys;
+    }
+
+    private ProjectKeys load(UUID projectId, long now) {
+        List<ProjectDataKey> rows = dataKeyRepository.findByProjectId(projectId);
+        if (rows.isEmpty()) {
+            return new ProjectKeys(LEGACY_VERSION, null, Map.of(), now);
+        }
+        Map<Integer, SecretKey> byVersion = new HashMap<>();
+        for (ProjectDataKey row : rows) {
+            if (row.getRetiredAt() != null) {
+                continue;
+            }
+            byte[] raw = masterKeyRing.unwrap(row.getMasterKeyId(), row.getWrappedKey());
+            byVersion.put(row.getVersion(), EncryptionService.aesKey(raw));
+            Arrays.fill(raw, (byte) 0);
+        }
+        ProjectDataKey active = rows.get(0);
+        return new ProjectKeys(active.getVersion(), active.getCreatedAt(), byVersion, now);
+    }
+
+    /**
+     * Inserts and commits the key unless the version already exists. A plain insert that hit the
+     * unique constraint would abort the caller's whole transaction on PostgreSQL.
+     */
+    private void createDataKey(UUID projectId, int version) {
+        byte[] raw = encryptionService.generateKeyBytes();
+        try {
+            byte[] wrapped = masterKeyRing.wrap(raw);
+            newTransaction.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO project_data_keys"
+                            + " (id, project_id, version, master_key_id, wrapped_key, created_at)"
+                            + " VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (project_id, version) DO NOTHING",
+                    UUID.randomUUID(), projectId, version, masterKeyRing.activeId(), wrapped,
+                    Timestamp.from(Instant.now())));
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    static byte[] header(int version) {
+        return ByteBuffer.allocate(HEADER_LENGTH)
+                .put(MAGIC)
+                .put(FORMAT_V1)
+                .putInt(version)
+                .array();
+    }
+
+    private record ProjectKeys(int activeVersion,
+                               Instant activeCreatedAt,
+                               Map<Integer, SecretKey> byVersion,
+                               long loadedAtMillis) {
+
+        SecretKey active() {
+            return byVersion.get(activeVersion);
+        }
+    }
+}
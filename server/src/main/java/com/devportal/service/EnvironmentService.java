@@ -1,5 +1,6 @@
 package com.devportal.service;
 
+import com.devportal.dto.PageResponse;
 import com.devportal.model.Environment;
 import com.devportal.repository.EnvironmentRepository;
 import org.springframework.stereotype.Service;
@@ -11,13 +12,25 @@ import java.util.UUID;
 public class EnvironmentService {
 
     private final EnvironmentRepository environmentRepository;
+    private final CatalogVersions catalogVersions;
+    private final SearchIndex searchIndex;
 
-    public EnvironmentService(EnvironmentRepository environmentRepository) {
+    public EnvironmentService(EnvironmentRepository environmentRepository,
+                              CatalogVersions catalogVersions,
+                              SearchIndex searchIndex) {
         this.environmentRepository = environmentRepository;
+        this.catalogVersions = catalogVersions;
+        this.searchIndex = searchIndex;
     }
 
-    public List<Environment> getAll() {
-        return environmentRepository.findAll();
+    /**
+     * Environments ordered by name, optionally filtered by a case-insensitive name prefix.
+     */
+    public PageResponse<Environment> list(String namePrefix, String cursor, Integer limit) {
+        PageCursor.Position after = PageCursor.decode(cursor);
+        List<Environment> rows = environmentRepository.findPage(PageCursor.likePrefix(namePrefix),
+                PageCursor.value(after), PageCursor.id(after), PageCursor.fetchLimit(limit));
+        return PageCursor.page(rows, limit, Environment::getName, Environment::getId);
     }
 
     public Environment getById(UUID id) {
@@ -30,17 +43,26 @@ public class EnvironmentService {
             throw new IllegalArgumentException("Environment name already exists");
         }
         env.setId(null);
-        return environmentRepository.save(env);
+        Environment saved = environmentRepository.save(env);
+        catalogVersions.environmentsChanged();
+        searchIndex.environmentSaved(saved);
+        return saved;
     }
 
     public Environment update(UUID id, Environment updated) {
         Environment existing = getById(id);
         existing.setName(updated.getName());
         existing.setColorCode(updated.getColorCode());
-        return environmentRepository.save(existing);
+        Environment saved = environmentRepository.save(existing);
+        catalogVersions.environmentsChanged();
+        searchIndex.environmentSaved(saved);
+        return saved;
     }
 
     public void delete(UUID id) {
         environmentRepository.deleteById(id);
+        catalogVersions.environmentsChanged();
+        catalogVersions.projectsChanged(id);
+        searchIndex.environmentDeleted(id);
     }
 }
@@ -0,0 +1,447 @@
+package com.devportal.service;
+
+import com.devportal.model.KeyRotationJob;
+import com.devportal.model.ProjectDataKey;
+import com.devportal.repository.KeyRotationJobRepository;
+import com.devportal.repository.ProjectDataKeyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Online, restartable key rotation. The job walks its table in id order (keyset pages of
+ * {@code batch-size}), does the crypto for each page in parallel, and commits the page's updates
+ * together with the job checkpoint, so a crash loses at most one page of work. Rows are updated
+ * compare-and-set on the old ciphertext, so a concurrent edit always wins over the job.
+ * <p>
+ * REENCRYPT walks one table per {@link KeyRotationJob.Phase}: credential values, the chunks of
+ * FILE credentials and their history, then version history and snapshot entries. A chunk is
+ * re-encrypted with the same additional authenticated data (file, index, last flag, compression),
+ * so downloads verify it exactly as before.
+ * <p>
+ * When REENCRYPT has walked every row it retires superseded data key versions that no ciphertext
+ * references any more, erasing their wrapped keys. It first waits two data-key cache lifetimes after
+ * the last rotation, so no instance can still be writing with an old version.
+ * <p>
+ * Jobs left RUNNING by a crash or shutdown are resumed at startup. Only one job runs at a time,
+ * and only one instance should have {@code resume-on-startup} enabled.
+ */
+@Service
+public class KeyRotationService {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyRotationService.class);
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+    /** Binary ciphertext, falling back to the legacy Base64 column for unmigrated rows. */
+    static final String CIPHERTEXT_SQL = "COALESCE(value_ciphertext, decode(value_encrypted, 'base64'))";
+    private static final String CREDENTIAL_PAGE_SQL = "SELECT id, project_id, " + CIPHERTEXT_SQL + " AS ciphertext"
+            + " FROM credentials WHERE id > ? AND (value_ciphertext IS NOT NULL OR value_encrypted IS NOT NULL)"
+            + " ORDER BY id LIMIT ?";
+    private static final String CREDENTIAL_UPDATE_SQL = "UPDATE credentials SET value_ciphertext = ?, value_encrypted = NULL"
+            + " WHERE id = ? AND " + CIPHERTEXT_SQL + " = ?";
+    /** A chunk set belongs to the project of whichever credential, version or snapshot entry uses it. */
+    private static final String CHUNK_PAGE_SQL = "SELECT ch.id, f.project_id, ch.data AS ciphertext, ch.file_id,"
+            + " ch.chunk_index, ch.compressed, ch.chunk_index = (SELECT max(m.chunk_index) FROM credential_file_chunks m"
+            + " WHERE m.file_id = ch.file_id) AS last"
+            + " FROM credential_file_chunks ch JOIN LATERAL ("
+            + "SELECT project_id FROM credentials WHERE file_id = ch.file_id"
+            + " UNION ALL SELECT project_id FROM credential_versions WHERE file_id = ch.file_id"
+            + " UNION ALL SELECT s.project_id FROM credential_snapshot_entries e"
+            + " JOIN credential_snapshots s ON s.id = e.snapshot_id WHERE e.file_id = ch.file_id"
+            + " LIMIT 1) f ON TRUE"
+            + " WHERE ch.id > ? ORDER BY ch.id LIMIT ?";
+    private static final String CHUNK_UPDATE_SQL = "UPDATE credential_file_chunks SET data = ? WHERE id = ? AND data = ?";
+    private static final String VERSION_PAGE_SQL = "SELECT id, project_id, value_ciphertext AS ciphertext"
+            + " FROM credential_versions WHERE id > ? AND value_ciphertext IS NOT NULL ORDER BY id LIMIT ?";
+    private static final String VERSION_UPDATE_SQL = "UPDATE credential_versions SET value_ciphertext = ?"
+            + " WHERE id = ? AND value_ciphertext = ?";
+    private static final String SNAPSHOT_ENTRY_PAGE_SQL = "SELECT e.id, s.project_id, e.value_ciphertext AS ciphertext"
+            + " FROM credential_snapshot_entries e JOIN credential_snapshots s ON s.id = e.snapshot_id"
+            + " WHERE e.id > ? AND e.value_ciphertext IS NOT NULL ORDER BY e.id LIMIT ?";
+    private static final String SNAPSHOT_ENTRY_UPDATE_SQL = "UPDATE credential_snapshot_entries SET value_ciphertext = ?"
+            + " WHERE id = ? AND value_ciphertext = ?";
+    private static final String HEADER_SQL = "substring(%s from 1 for " + EnvelopeEncryptionService.HEADER_LENGTH + ") = ?";
+    /** Retires a superseded key unless a value, history row, snapshot entry or file chunk still uses it. */
+    private static final String RETIRE_SQL = "UPDATE project_data_keys k SET retired_at = ?, wrapped_key = ?"
+            + " WHERE k.id = ? AND k.retired_at IS NULL"
+            + " AND NOT EXISTS (SELECT 1 FROM credentials WHERE project_id = k.project_id"
+            + " AND " + HEADER_SQL.formatted(CIPHERTEXT_SQL) + ")"
+            + " AND NOT EXISTS (SELECT 1 FROM credential_versions WHERE project_id = k.project_id"
+            + " AND " + HEADER_SQL.formatted("value_ciphertext") + ")"
+            + " AND NOT EXISTS (SELECT 1 FROM credential_snapshot_entries e"
+            + " JOIN credential_snapshots s ON s.id = e.snapshot_id WHERE s.project_id = k.project_id"
+            + " AND " + HEADER_SQL.formatted("e.value_ciphertext") + ")"
+            + " AND NOT EXISTS (SELECT 1 FROM credential_file_chunks ch WHERE ch.file_id IN ("
+            + "SELECT file_id FROM credentials WHERE project_id = k.project_id"
+            + " UNION SELECT file_id FROM credential_versions WHERE project_id = k.project_id"
+            + " UNION SELECT e.file_id FROM credential_snapshot_entries e"
+            + " JOIN credential_snapshots s ON s.id = e.snapshot_id WHERE s.project_id = k.project_id)"
+            + " AND " + HEADER_SQL.formatted("ch.data") + ")";
+
+    private final KeyRotationJobRepository jobRepository;
+    private final ProjectDataKeyRepository dataKeyRepository;
+    private final EnvelopeEncryptionService envelopeEncryption;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long batchDelayMillis;
+    private final long dataKeyCacheTtlMillis;
+    private final boolean resumeOnStartup;
+    private final ExecutorService runner;
+    private final ForkJoinPool cryptoPool;
+    private final AtomicReference<UUID> runningJobId = new AtomicReference<>();
+    private volatile boolean pauseRequested;
+    private volatile boolean shuttingDown;
+
+    public KeyRotationService(KeyRotationJobRepository jobRepository,
+                              ProjectDataKeyRepository dataKeyRepository,
+                              EnvelopeEncryptionService envelopeEncryption,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${devportal.encryption.rotation.batch-size:500}") int batchSize,
+                              @Value("${devportal.encryption.rotation.parallelism:0}") int parallelism,
+                              @Value("${devportal.encryption.rotation.batch-delay-ms:50}") long batchDelayMillis,
+                              @Value("${devportal.encryption.rotation.resume-on-startup:true}") boolean resumeOnStartup,
+                              @Value("${devportal.encryption.data-key-cache-seconds:60}") long dataKeyCacheTtlSeconds) {
+        this.jobRepository = jobRepository;
+        this.dataKeyRepository = dataKeyRepository;
+        this.envelopeEncryption = envelopeEncryption;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.batchDelayMillis = batchDelayMillis;
+        this.resumeOnStartup = resumeOnStartup;
+        this.dataKeyCacheTtlMillis = dataKeyCacheTtlSeconds * 1000;
+        this.runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "key-rotation");
+            t.setDaemon(true);
+            return t;
+        });
+        this.cryptoPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public KeyRotationJob start(KeyRotationJob.Mode mode) {
+        if (!jobRepository.findByStatus(KeyRotationJob.Status.RUNNING).isEmpty()
+                || !jobRepository.findByStatus(KeyRotationJob.Status.PAUSED).isEmpty()) {
+            throw new IllegalArgumentException("A key rotation job is already in progress");
+        }
+        KeyRotationJob job = jobRepository.save(KeyRotationJob.builder()
+                .mode(mode)
+                .status(KeyRotationJob.Status.RUNNING)
+                .phase(mode == KeyRotationJob.Mode.REENCRYPT ? KeyRotationJob.Phase.CREDENTIALS : null)
+                .startedAt(Instant.now())
+                .build());
+        submit(job.getId());
+        return job;
+    }
+
+    public KeyRotationJob pause(UUID jobId) {
+        KeyRotationJob job = getJob(jobId);
+        if (job.getStatus() != KeyRotationJob.Status.RUNNING) {
+            throw new IllegalArgumentException("Key rotation job is not running");
+        }
+        if (jobId.equals(runningJobId.get())) {
+            pauseRequested = true;
+        } else {
+            job.setStatus(KeyRotationJob.Status.PAUSED);
+            job.setUpdatedAt(Instant.now());
+            jobRepository.save(job);
+        }
+        return job;
+    }
+
+    public KeyRotationJob resume(UUID jobId) {
+        KeyRotationJob job = getJob(jobId);
+        if (job.getStatus() != KeyRotationJob.Status.PAUSED && job.getStatus() != KeyRotationJob.Status.FAILED) {
+            throw new IllegalArgumentException("Only paused or failed jobs can be resumed");
+        }
+        job.setStatus(KeyRotationJob.Status.RUNNING);
+        job.setError(null);
+        job.setUpdatedAt(Instant.now());
+        KeyRotationJob saved = jobRepository.save(job);
+        submit(saved.getId());
+        return saved;
+    }
+
+    public Optional<KeyRotationJob> latest() {
+        return jobRepository.findFirstByOrderByStartedAtDesc();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        for (KeyRotationJob job : jobRepository.findByStatus(KeyRotationJob.Status.RUNNING)) {
+            log.info("Resuming key rotation job {} from checkpoint {}", job.getId(), job.getCheckpoint());
+            submit(job.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        runner.shutdownNow();
+        cryptoPool.shutdownNow();
+    }
+
+    private KeyRotationJob getJob(UUID jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Key rotation job not found"));
+    }
+
+    private void submit(UUID jobId) {
+        runner.submit(() -> run(jobId));
+    }
+
+    private void run(UUID jobId) {
+        if (!runningJobId.compareAndSet(null, jobId)) {
+            return;
+        }
+        pauseRequested = false;
+        KeyRotationJob job = getJob(jobId);
+        try {
+            boolean finished = job.getMode() == KeyRotationJob.Mode.REWRAP
+                    ? rewrapDataKeys(job)
+                    : reencryptAll(job) && retireSupersededKeys();
+            if (finished) {
+                job.setStatus(KeyRotationJob.Status.COMPLETED);
+                job.setFinishedAt(Instant.now());
+            } else if (!shuttingDown) {
+                job.setStatus(KeyRotationJob.Status.PAUSED);
+            }
+        } catch (Exception e) {
+            if (!shuttingDown) {
+                log.error("Key rotation job {} failed at checkpoint {}", jobId, job.getCheckpoint(), e);
+                job.setStatus(KeyRotationJob.Status.FAILED);
+                job.setError(e.getMessage());
+            }
+        } finally {
+            // On shutdown the job stays RUNNING so it resumes from its checkpoint at the next startup
+            if (!shuttingDown) {
+                job.setUpdatedAt(Instant.now());
+                jobRepository.save(job);
+            }
+            runningJobId.set(null);
+        }
+    }
+
+    /**
+     * @return false if the job was paused before reaching the end
+     */
+    private boolean rewrapDataKeys(KeyRotationJob job) throws InterruptedException {
+        UUID cursor = job.getCheckpoint() != null ? job.getCheckpoint() : MIN_ID;
+        while (true) {
+            if (pauseRequested || shuttingDown) {
+                return false;
+            }
+            UUID from = cursor;
+            List<ProjectDataKey> page = dataKeyRepository.findByIdGreaterThanOrderByIdAsc(from, Limit.of(batchSize));
+            if (page.isEmpty()) {
+                return true;
+            }
+            UUID last = page.get(page.size() - 1).getId();
+            transactionTemplate.executeWithoutResult(status -> {
+                long rewrapped = page.stream().filter(envelopeEncryption::rewrap).count();
+                checkpoint(job, last, page.size(), rewrapped);
+            });
+            cursor = last;
+            Thread.sleep(batchDelayMillis);
+        }
+    }
+
+    /**
+     * Runs the remaining REENCRYPT phases, starting with the one the job was in.
+     *
+     * @return false if the job was paused before reaching the end
+     */
+    private boolean reencryptAll(KeyRotationJob job) throws InterruptedException, ExecutionException {
+        KeyRotationJob.Phase[] phases = KeyRotationJob.Phase.values();
+        Set<UUID> freshProjects = ConcurrentHashMap.newKeySet();
+        for (int i = job.getPhase() != null ? job.getPhase().ordinal() : 0; i < phases.length; i++) {
+            job.setPhase(phases[i]);
+            if (!reencryptTable(job, freshProjects)) {
+                return false;
+            }
+            if (i + 1 < phases.length) {
+                job.setPhase(phases[i + 1]);
+                job.setCheckpoint(null);
+                job.setUpdatedAt(Instant.now());
+                jobRepository.save(job);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the job was paused before reaching the end of the phase's table
+     */
+    private boolean reencryptTable(KeyRotationJob job, Set<UUID> freshProjects)
+            throws InterruptedException, ExecutionException {
+        KeyRotationJob.Phase phase = job.getPhase();
+        UUID cursor = job.getCheckpoint() != null ? job.getCheckpoint() : MIN_ID;
+        while (true) {
+            if (pauseRequested || shuttingDown) {
+                return false;
+            }
+            List<CipherRow> page = page(phase, cursor);
+            if (page.isEmpty()) {
+                return true;
+            }
+            Set<UUID> projectIds = new LinkedHashSet<>();
+            page.forEach(row -> projectIds.add(row.projectId()));
+            for (UUID projectId : projectIds) {
+                if (freshProjects.add(projectId)
+                        && envelopeEncryption.activeKeyCreatedAt(projectId).isBefore(job.getStartedAt())) {
+                    envelopeEncryption.rotateDataKey(projectId);
+                }
+            }
+            List<CipherRow> updates = cryptoPool.submit(() -> page.parallelStream()
+                    .map(this::reencrypt)
+                    .filter(Objects::nonNull)
+                    .toList()).get();
+            UUID last = page.get(page.size() - 1).id();
+            String updateSql = switch (phase) {
+                case CREDENTIALS -> CREDENTIAL_UPDATE_SQL;
+                case FILE_CHUNKS -> CHUNK_UPDATE_SQL;
+                case VERSIONS -> VERSION_UPDATE_SQL;
+                case SNAPSHOT_ENTRIES -> SNAPSHOT_ENTRY_UPDATE_SQL;
+            };
+            transactionTemplate.executeWithoutResult(status -> {
+                int[][] counts = jdbcTemplate.batchUpdate(updateSql, updates, batchSize, (ps, row) -> {
+                    ps.setBytes(1, row.value());
+                    ps.setObject(2, row.id());
+                    ps.setBytes(3, row.previousValue());
+                });
+                long rotated = Arrays.stream(counts).flatMapToInt(Arrays::stream).filter(c -> c > 0).count();
+                checkpoint(job, last, page.size(), rotated);
+            });
+            cursor = last;
+            Thread.sleep(batchDelayMillis);
+        }
+    }
+
+    private List<CipherRow> page(KeyRotationJob.Phase phase, UUID cursor) {
+        return switch (phase) {
+            case CREDENTIALS -> jdbcTemplate.query(CREDENTIAL_PAGE_SQL, KeyRotationService::valueRow, cursor, batchSize);
+            case VERSIONS -> jdbcTemplate.query(VERSION_PAGE_SQL, KeyRotationService::valueRow, cursor, batchSize);
+            case SNAPSHOT_ENTRIES -> jdbcTemplate.query(SNAPSHOT_ENTRY_PAGE_SQL, KeyRotationService::valueRow,
+                    cursor, batchSize);
+            case FILE_CHUNKS -> jdbcTemplate.query(CHUNK_PAGE_SQL,
+                    (rs, i) -> new CipherRow(rs.getObject("id", UUID.class),
+                            rs.getObject("project_id", UUID.class),
+                            rs.getBytes("ciphertext"),
+                            CredentialFileService.aad(rs.getObject("file_id", UUID.class), rs.getInt("chunk_index"),
+                                    rs.getBoolean("last"), rs.getBoolean("compressed"))),
+                    cursor, batchSize);
+        };
+    }
+
+    private static CipherRow valueRow(ResultSet rs, int rowNum) throws SQLException {
+        return new CipherRow(rs.getObject("id", UUID.class), rs.getObject("project_id", UUID.class),
+                rs.getBytes("ciphertext"), null);
+    }
+
+    /**
+     * Retires every superseded data key version that nothing references. Keys superseded less than
+     * two cache lifetimes ago are waited for, since an instance may still write with them.
+     *
+     * @return false if the job was paused before reaching the end
+     */
+    private boolean retireSupersededKeys() throws InterruptedException {
+        Timestamp lastRotation = jdbcTemplate.queryForObject(
+                "SELECT max(created_at) FROM project_data_keys WHERE version > 1", Timestamp.class);
+        while (lastRotation != null
+                && lastRotation.toInstant().plusMillis(2 * dataKeyCacheTtlMillis).isAfter(Instant.now())) {
+            if (pauseRequested || shuttingDown) {
+                return false;
+            }
+            Thread.sleep(1000);
+        }
+        Instant settled = Instant.now().minusMillis(2 * dataKeyCacheTtlMillis);
+        List<SupersededKey> superseded = jdbcTemplate.query(
+                "SELECT k.id, k.version FROM project_data_keys k WHERE k.retired_at IS NULL"
+                        + " AND EXISTS (SELECT 1 FROM project_data_keys n WHERE n.project_id = k.project_id"
+                        + " AND n.version > k.version AND n.created_at < ?)",
+                (rs, i) -> new SupersededKey(rs.getObject("id", UUID.class), rs.getInt("version")),
+                Timestamp.from(settled));
+        int retired = 0;
+        for (SupersededKey key : superseded) {
+            if (pauseRequested || shuttingDown) {
+                return false;
+            }
+            byte[] header = EnvelopeEncryptionService.header(key.version());
+            retired += jdbcTemplate.update(RETIRE_SQL, Timestamp.from(Instant.now()), new byte[0], key.id(),
+                    header, header, header, header);
+        }
+        log.info("Retired {} of {} superseded data key versions", retired, superseded.size());
+        return true;
+    }
+
+    /**
+     * Re-encrypts one value or chunk under its project's active data key, or returns null if it
+     * already is.
+     */
+    private CipherRow reencrypt(CipherRow row) {
+        if (envelopeEncryption.isCurrent(row.projectId(), row.value())) {
+            return null;
+        }
+        UUID projectId = row.projectId();
+        byte[] plaintext = row.aad() == null
+                ? envelopeEncryption.decrypt(projectId, row.value())
+                : envelopeEncryption.decryptChunk(projectId, row.aad(), row.value());
+        try {
+            byte[] reencrypted = row.aad() == null
+                    ? envelopeEncryption.encrypt(projectId, plaintext)
+                    : envelopeEncryption.encryptChunk(projectId, row.aad(), plaintext, plaintext.length);
+            return new CipherRow(row.id(), projectId, reencrypted, row.aad(), row.value());
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    private void checkpoint(KeyRotationJob job, UUID last, int processed, long rotated) {
+        job.setCheckpoint(last);
+        job.setProcessed(job.getProcessed() + processed);
+        job.setRotated(job.getRotated() + rotated);
+        job.setUpdatedAt(Instant.now());
+        jobRepository.save(job);
+    }
+
+    private record SupersededKey(UUID id, int version) {
+    }
+
+    /**
+     * A value or file chunk to re-encrypt; {@code aad} is null for credential values.
+     */
+    private record CipherRow(UUID id, UUID projectId, byte[] value, byte[] aad, byte[] previousValue) {
+
+        CipherRow(UUID id, UUID projectId, byte[] value, byte[] aad) {
+            this(id, projectId, value, aad, null);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.devportal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versioned master keys that wrap per-project data keys. Configured as
+ * {@code devportal.encryption.master-keys=1=<key>,2=<key>} with
+ * {@code devportal.encryption.active-master-key-id} choosing the one new wraps use.
+ * When no ring is configured, the legacy {@code devportal.encryption.key} is master key 1.
+ */
+@Component
+public class MasterKeyRing {
+
+    private final EncryptionService encryptionService;
+    private final Map<Integer, SecretKey> keys;
+    private final int activeId;
+
+    public MasterKeyRing(EncryptionService encryptionService,
+                         @Value("${devportal.encryption.key}") String legacyKey,
+                         @Value("${devportal.encryption.master-keys:}") String masterKeys,
+                         @Value("${devportal.encryption.active-master-key-id:1}") int activeId) {
+        this.encryptionService = encryptionService;
+        this.keys = Collections.unmodifiableMap(parse(masterKeys, legacyKey));
+        if (!keys.containsKey(activeId)) {
+            throw new IllegalArgumentException("Active master key id " + activeId + " is not in the key ring");
+        }
+        this.activeId = activeId;
+    }
+
+    public int activeId() {
+        return activeId;
+    }
+
+    public Set<Integer> ids() {
+        return keys.keySet();
+    }
+
+    /**
+     * Wraps data-key material under the active master key.
+     */
+    public byte[] wrap(byte[] dataKey) {
+        return encryptionService.encrypt(keys.get(activeId), header(activeId), dataKey);
+    }
+
+    public byte[] unwrap(int masterKeyId, byte[] wrapped) {
+        SecretKey masterKey = keys.get(masterKeyId);
+        if (masterKey == null) {
+            throw new IllegalStateException("Master key " + masterKeyId + " is not configured");
+        }
+        return encryptionService.decrypt(masterKey, wrapped, Integer.BYTES);
+    }
+
+    private static byte[] header(int masterKeyId) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(masterKeyId).array();
+    }
+
+    private static Map<Integer, SecretKey> parse(String masterKeys, String legacyKey) {
+        Map<Integer, SecretKey> parsed = new HashMap<>();
+        if (masterKeys == null || masterKeys.isBlank()) {
+            parsed.put(1, EncryptionService.aesKey(legacyKey));
+            return parsed;
+        }
+        for (String entry : masterKeys.split(",")) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Master key entries must look like <id>=<key>");
+            }
+            parsed.put(Integer.parseInt(entry.substring(0, eq).trim()),
+                    EncryptionService.aesKey(entry.substring(eq + 1).trim()));
+        }
+        return parsed;
+    }
+}
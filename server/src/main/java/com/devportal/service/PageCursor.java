@@ -0,0 +1,105 @@
+package com.devportal.service;
+
+import com.devportal.dto.PageResponse;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination helpers. Lists are ordered by a sort value plus the row id as tie-breaker;
+ * the cursor is the last row's {@code (value, id)} encoded as opaque URL-safe Base64, and the
+ * next page asks for rows strictly after it. Unlike offsets, pages stay stable while rows are
+ * added or removed and cost the same however deep the client pages.
+ */
+public final class PageCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private static final char SEPARATOR = '\n';
+
+    private PageCursor() {
+    }
+
+    public record Position(String value, UUID id) {
+    }
+
+    /**
+     * @return the decoded position, or null for the first page
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            return new Position(decoded.substring(0, separator), UUID.fromString(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public static String encode(String value, UUID id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((value + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Page size to use for a requested limit; one extra row is fetched to detect a next page.
+     */
+    public static Limit fetchLimit(Integer requested) {
+        return Limit.of(pageSize(requested) + 1);
+    }
+
+    public static int pageSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    /**
+     * Case-insensitive LIKE pattern matching values that start with {@code prefix}, or null for no filter.
+     */
+    public static String likePrefix(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        String escaped = prefix.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return escaped + "%";
+    }
+
+    /**
+     * Builds the page from rows fetched with {@link #fetchLimit(Integer)}.
+     */
+    public static <T> PageResponse<T> page(List<T> rows, Integer requested,
+                                           Function<T, String> sortValue, Function<T, UUID> id) {
+        int size = pageSize(requested);
+        if (rows.size() <= size) {
+            return new PageResponse<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        T last = items.get(size - 1);
+        return new PageResponse<>(List.copyOf(items), encode(sortValue.apply(last), id.apply(last)));
+    }
+
+    static String value(Position position) {
+        return position != null ? position.value() : null;
+    }
+
+    static UUID id(Position position) {
+        return position != null ? position.id() : null;
+    }
+}
@@ -1,10 +1,13 @@
 package com.devportal.service;
 
+import com.devportal.dto.CredentialChangeEvent;
+import com.devportal.dto.PageResponse;
 import com.devportal.model.Environment;
 import com.devportal.model.Project;
 import com.devportal.repository.EnvironmentRepository;
 import com.devportal.repository.ProjectRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
@@ -14,17 +17,41 @@ public class ProjectService {
 
     private final ProjectRepository projectRepository;
     private final EnvironmentRepository environmentRepository;
+    private final EnvelopeEncryptionService envelopeEncryption;
+    private final CatalogVersions catalogVersions;
+    private final CredentialVersionLog versionLog;
+    private final SearchIndex searchIndex;
+    private final CredentialChangeFeed changeFeed;
 
     public ProjectService(ProjectRepository projectRepository,
-                         EnvironmentRepository environmentRepository) {
+                         EnvironmentRepository environmentRepository,
+                         EnvelopeEncryptionService envelopeEncryption,
+                         CatalogVersions catalogVersions,
+                         CredentialVersionLog versionLog,
+                         SearchIndex searchIndex,
+                         CredentialChangeFeed changeFeed) {
         this.projectRepository = projectRepository;
         this.environmentRepository = environmentRepository;
+        this.envelopeEncryption = envelopeEncryption;
+        this.catalogVersions = catalogVersions;
+        this.versionLog = versionLog;
+        this.searchIndex = searchIndex;
+        this.changeFeed = changeFeed;
     }
 
-    public List<Project> listByEnvironment(UUID envId) {
-        Environment env = environmentRepository.findById(envId)
-                .orElseThrow(() -> new IllegalArgumentException("Environment not found"));
-        return projectRepository.findByEnvironment(env);
+    /**
+     * Projects of the environment ordered by name; {@code status} and {@code team} match exactly.
+     */
+    public PageResponse<Project> list(UUID envId, String namePrefix, String status, String team,
+                                      String cursor, Integer limit) {
+        if (!environmentRepository.existsById(envId)) {
+            throw new IllegalArgumentException("Environment not found");
+        }
+        PageCursor.Position after = PageCursor.decode(cursor);
+        List<Project> rows = projectRepository.findPage(envId, PageCursor.likePrefix(namePrefix),
+                blankToNull(status), blankToNull(team),
+                PageCursor.value(after), PageCursor.id(after), PageCursor.fetchLimit(limit));
+        return PageCursor.page(rows, limit, Project::getName, Project::getId);
     }
 
     public Project getById(UUID id) {
@@ -40,7 +67,10 @@ public class ProjectService {
         }
         project.setId(null);
         project.setEnvironment(env);
-        return projectRepository.save(project);
+        Project saved = projectRepository.save(project);
+        catalogVersions.projectsChanged(envId);
+        searchIndex.projectSaved(saved);
+        return saved;
     }
 
     public Project update(UUID envId, UUID projectId, Project updated) {
@@ -57,15 +87,29 @@ public class ProjectService {
         existing.setDescription(updated.getDescription());
         existing.setTeam(updated.getTeam());
         existing.setStatus(updated.getStatus());
-        return projectRepository.save(existing);
+        Project saved = projectRepository.save(existing);
+        catalogVersions.projectsChanged(envId);
+        searchIndex.projectSaved(saved);
+        return saved;
     }
 
+    @Transactional
     public void delete(UUID envId, UUID projectId) {
         Project existing = projectRepository.findById(projectId)
                 .orElseThrow(() -> new IllegalArgumentException("Project not found"));
         if (!existing.getEnvironment().getId().equals(envId)) {
             throw new IllegalArgumentException("Project does not belong to environment");
         }
+        envelopeEncryption.deleteKeys(projectId);
+        versionLog.deleteProjectHistory(projectId);
         projectRepository.delete(existing);
+        catalogVersions.projectsChanged(envId);
+        catalogVersions.credentialsChanged(projectId);
+        searchIndex.projectDeleted(projectId);
+        changeFeed.publish(CredentialChangeEvent.Type.CHANGED, envId, projectId, null, null);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
 }
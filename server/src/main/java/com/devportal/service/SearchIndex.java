@@ -0,0 +1,578 @@
+package com.devportal.service;
+
+import com.devportal.model.Credential;
+import com.devportal.model.CredentialType;
+import com.devportal.model.Environment;
+import com.devportal.model.Project;
+import com.devportal.security.ServerBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory search over credential keys and descriptions and project names and descriptions,
+ * across all environments. Text is indexed by trigram for substring queries and by word prefix
+ * for one- and two-character queries; candidates from the most selective term are then checked
+ * directly, so a query touches only a handful of documents. Values are never indexed.
+ * <p>
+ * Built at startup by streaming the tables, then kept current by the services' writes (applied
+ * after commit). A periodic rebuild compacts deleted documents and picks up writes made on other
+ * instances; writes that arrive during a rebuild are replayed onto the new index before it is
+ * swapped in.
+ */
+@Component
+public class SearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private static final int GRAM = 3;
+    private static final String ENVIRONMENTS_SQL = "SELECT id, name FROM environments";
+    private static final String PROJECTS_SQL = "SELECT id, environment_id, name, description FROM projects";
+    private static final String CREDENTIALS_SQL = "SELECT id, project_id, credential_key, description, type FROM credentials";
+    private static final String PROJECT_CREDENTIALS_SQL = CREDENTIALS_SQL + " WHERE project_id = ?";
+
+    public enum Kind {
+        CREDENTIAL,
+        PROJECT
+    }
+
+    public record Hit(Kind kind,
+                      UUID id,
+                      UUID envId,
+                      String envName,
+                      UUID projectId,
+                      String projectName,
+                      String key,
+                      String description,
+                      CredentialType type) {
+    }
+
+    public record Facet(UUID id, String name, int count) {
+    }
+
+    /**
+     * Top hits plus per-environment and per-project counts of all matches of the requested kind.
+     */
+    public record Result(List<Hit> hits, int total, List<Facet> environments, List<Facet> projects) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean building = new AtomicBoolean();
+    private State state = new State();
+    private List<Consumer<State>> pendingDuringBuild;
+    private volatile boolean ready;
+
+    public SearchIndex(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${devportal.search.enabled:true}") boolean enabled,
+                       @Value("${devportal.search.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "search-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(fixedDelayString = "${devportal.search.rebuild-interval-ms:600000}",
+            initialDelayString = "${devportal.search.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!enabled || !building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingDuringBuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long started = System.nanoTime();
+            State fresh = scan();
+            lock.writeLock().lock();
+            try {
+                pendingDuringBuild.forEach(op -> op.accept(fresh));
+                state = fresh;
+            } finally {
+                pendingDuringBuild = null;
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("Search index built: {} documents in {} ms", fresh.liveCount,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.warn("Search index build failed", e);
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * @param kind      only this kind of document, or null for both
+     * @param envId     only documents in this environment, or null
+     * @param projectId only documents in this project, or null
+     */
+    public Result search(String query, Kind kind, UUID envId, UUID projectId, Integer limit) {
+        if (!enabled) {
+            throw new IllegalArgumentException("Search is disabled");
+        }
+        if (!ready) {
+            throw new ServerBusyException("Search index is still loading", 2);
+        }
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("q is required");
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.min(Math.max(limit, 1), MAX_LIMIT);
+        lock.readLock().lock();
+        try {
+            return state.search(terms, kind, envId, projectId, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void credentialSaved(Credential credential) {
+        credentialSaved(credential.getId(), credential.getProject().getId(), credential.getKey(),
+                credential.getDescription(), credential.getType());
+    }
+
+    public void credentialSaved(UUID id, UUID projectId, String key, String description, CredentialType type) {
+        afterCommit(s -> s.putCredential(id, projectId, key, description, type));
+    }
+
+    public void credentialDeleted(UUID id) {
+        afterCommit(s -> s.remove(id));
+    }
+
+    /**
+     * Reloads one project's credentials, after a bulk change such as a restore.
+     */
+    public void projectCredentialsChanged(UUID projectId) {
+        if (!enabled) {
+            return;
+        }
+        runAfterCommit(() -> {
+            List<Object[]> rows = jdbcTemplate.query(PROJECT_CREDENTIALS_SQL, (rs, i) -> credentialRow(rs), projectId);
+            apply(s -> {
+                s.removeCredentialsOf(projectId);
+                rows.forEach(row -> s.putCredential((UUID) row[0], (UUID) row[1], (String) row[2], (String) row[3],
+                        (CredentialType) row[4]));
+            });
+        });
+    }
+
+    public void projectSaved(Project project) {
+        UUID id = project.getId();
+        UUID envId = project.getEnvironment().getId();
+        String name = project.getName();
+        String description = project.getDescription();
+        afterCommit(s -> s.putProject(id, envId, name, description));
+    }
+
+    public void projectDeleted(UUID id) {
+        afterCommit(s -> s.removeProject(id));
+    }
+
+    public void environmentSaved(Environment environment) {
+        UUID id = environment.getId();
+        String name = environment.getName();
+        afterCommit(s -> s.environmentNames.put(id, name));
+    }
+
+    public void environmentDeleted(UUID id) {
+        afterCommit(s -> s.removeEnvironment(id));
+    }
+
+    private void afterCommit(Consumer<State> op) {
+        if (enabled) {
+            runAfterCommit(() -> apply(op));
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void apply(Consumer<State> op) {
+        lock.writeLock().lock();
+        try {
+            op.accept(state);
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.add(op);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private State scan() {
+        State fresh = new State();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            stream(ENVIRONMENTS_SQL, rs -> fresh.environmentNames.put(rs.getObject("id", UUID.class), rs.getString("name")));
+            stream(PROJECTS_SQL, rs -> fresh.putProject(rs.getObject("id", UUID.class),
+                    rs.getObject("environment_id", UUID.class), rs.getString("name"), rs.getString("description")));
+            stream(CREDENTIALS_SQL, rs -> {
+                Object[] row = credentialRow(rs);
+                fresh.putCredential((UUID) row[0], (UUID) row[1], (String) row[2], (String) row[3], (CredentialType) row[4]);
+            });
+        });
+        return fresh;
+    }
+
+    private void stream(String sql, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, handler);
+    }
+
+    private static Object[] credentialRow(ResultSet rs) throws SQLException {
+        String type = rs.getString("type");
+        return new Object[]{
+                rs.getObject("id", UUID.class),
+                rs.getObject("project_id", UUID.class),
+                rs.getString("credential_key"),
+                rs.getString("description"),
+                type != null ? CredentialType.valueOf(type) : CredentialType.SECRET
+        };
+    }
+
+    static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query != null) {
+            for (String term : query.toLowerCase(Locale.ROOT).split("\\s+")) {
+                if (!term.isEmpty()) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private record ProjectRef(UUID envId, String name) {
+    }
+
+    private record Doc(Kind kind, UUID id, UUID projectId, String key, String description, CredentialType type,
+                       String text) {
+    }
+
+    /**
+     * Append-only postings over a document table; removed documents leave a null slot and are
+     * dropped from postings when the index is rebuilt or compacted.
+     */
+    static final class State {
+
+        private Doc[] docs = new Doc[1024];
+        private int docCount;
+        private int liveCount;
+        private final Map<UUID, Integer> slotById = new HashMap<>();
+        private final Map<String, IntList> grams = new HashMap<>();
+        private final NavigableMap<String, IntList> words = new TreeMap<>();
+        private final Map<UUID, String> environmentNames = new HashMap<>();
+        private final Map<UUID, ProjectRef> projects = new HashMap<>();
+        private final Map<UUID, Set<UUID>> credentialsByProject = new HashMap<>();
+
+        void putCredential(UUID id, UUID projectId, String key, String description, CredentialType type) {
+            Doc previous = remove(id);
+            if (previous != null && previous.kind() == Kind.CREDENTIAL && !previous.projectId().equals(projectId)) {
+                unlink(previous);
+            }
+            add(new Doc(Kind.CREDENTIAL, id, projectId, key, description, type, text(key, description)));
+            credentialsByProject.computeIfAbsent(projectId, p -> new HashSet<>()).add(id);
+        }
+
+        void putProject(UUID id, UUID envId, String name, String description) {
+            remove(id);
+            projects.put(id, new ProjectRef(envId, name));
+            add(new Doc(Kind.PROJECT, id, id, name, description, null, text(name, description)));
+        }
+
+        void removeProject(UUID id) {
+            remove(id);
+            removeCredentialsOf(id);
+            projects.remove(id);
+        }
+
+        void removeCredentialsOf(UUID projectId) {
+            Set<UUID> ids = credentialsByProject.remove(projectId);
+            if (ids != null) {
+                ids.forEach(this::remove);
+            }
+        }
+
+        void removeEnvironment(UUID envId) {
+            List<UUID> inEnv = projects.entrySet().stream()
+                    .filter(e -> e.getValue().envId().equals(envId))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            inEnv.forEach(this::removeProject);
+            environmentNames.remove(envId);
+        }
+
+        Doc remove(UUID id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return null;
+            }
+            Doc doc = docs[slot];
+            docs[slot] = null;
+            liveCount--;
+            if (docCount - liveCount > Math.max(1024, liveCount)) {
+                compact();
+            }
+            return doc;
+        }
+
+        private void unlink(Doc credential) {
+            Set<UUID> ids = credentialsByProject.get(credential.projectId());
+            if (ids != null) {
+                ids.remove(credential.id());
+            }
+        }
+
+        private void add(Doc doc) {
+            if (docCount == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            int slot = docCount++;
+            docs[slot] = doc;
+            liveCount++;
+            slotById.put(doc.id(), slot);
+            index(doc, slot);
+        }
+
+        private void index(Doc doc, int slot) {
+            Set<String> seen = new HashSet<>();
+            String text = doc.text();
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                String gram = text.substring(i, i + GRAM);
+                if (gram.indexOf('\n') < 0 && seen.add(gram)) {
+                    grams.computeIfAbsent(gram, g -> new IntList()).add(slot);
+                }
+            }
+            seen.clear();
+            for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty() && seen.add(word)) {
+                    words.computeIfAbsent(word, w -> new IntList()).add(slot);
+                }
+            }
+        }
+
+        /**
+         * Re-lays the live documents into fresh postings, dropping removed slots.
+         */
+        private void compact() {
+            Doc[] live = Arrays.copyOf(docs, docCount);
+            docs = new Doc[Math.max(1024, liveCount * 2)];
+            docCount = 0;
+            liveCount = 0;
+            slotById.clear();
+            grams.clear();
+            words.clear();
+            for (Doc doc : live) {
+                if (doc != null) {
+                    add(doc);
+                }
+            }
+        }
+
+        Result search(List<String> terms, Kind kind, UUID envId, UUID projectId, int limit) {
+            BitSet candidates = candidates(terms);
+            List<Doc> matches = new ArrayList<>();
+            Map<UUID, Integer> envCounts = new LinkedHashMap<>();
+            Map<UUID, Integer> projectCounts = new LinkedHashMap<>();
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                Doc doc = docs[slot];
+                if (doc == null || (kind != null && doc.kind() != kind) || !containsAll(doc.text(), terms)) {
+                    continue;
+                }
+                ProjectRef project = projects.get(doc.projectId());
+                if (project == null) {
+                    continue;
+                }
+                envCounts.merge(project.envId(), 1, Integer::sum);
+                projectCounts.merge(doc.projectId(), 1, Integer::sum);
+                if ((envId == null || envId.equals(project.envId()))
+                        && (projectId == null || projectId.equals(doc.projectId()))) {
+                    matches.add(doc);
+                }
+            }
+            String whole = String.join(" ", terms);
+            matches.sort(Comparator.<Doc>comparingInt(d -> rank(d, whole))
+                    .thenComparingInt(d -> d.key().length())
+                    .thenComparing(Doc::key));
+            List<Hit> hits = matches.stream().limit(limit).map(this::hit).toList();
+            List<Facet> envFacets = envCounts.entrySet().stream()
+                    .map(e -> new Facet(e.getKey(), environmentNames.get(e.getKey()), e.getValue()))
+                    .sorted(Comparator.comparingInt(Facet::count).reversed())
+                    .toList();
+            List<Facet> projectFacets = projectCounts.entrySet().stream()
+                    .map(e -> new Facet(e.getKey(), projects.get(e.getKey()).name(), e.getValue()))
+                    .sorted(Comparator.comparingInt(Facet::count).reversed())
+                    .toList();
+            return new Result(hits, matches.size(), envFacets, projectFacets);
+        }
+
+        /**
+         * Slots from the most selective term: its rarest trigram, or for short terms the words
+         * starting with it.
+         */
+        private BitSet candidates(List<String> terms) {
+            BitSet best = null;
+            int bestSize = Integer.MAX_VALUE;
+            for (String term : terms) {
+                BitSet set = new BitSet(docCount);
+                if (term.length() >= GRAM) {
+                    IntList rarest = null;
+                    for (int i = 0; i + GRAM <= term.length(); i++) {
+                        IntList postings = grams.get(term.substring(i, i + GRAM));
+                        if (postings == null) {
+                            return new BitSet();
+                        }
+                        if (rarest == null || postings.size() < rarest.size()) {
+                            rarest = postings;
+                        }
+                    }
+                    rarest.addTo(set);
+                } else {
+                    for (IntList postings : words.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                        postings.addTo(set);
+                    }
+                }
+                int size = set.cardinality();
+                if (size < bestSize) {
+                    best = set;
+                    bestSize = size;
+                }
+            }
+            return best != null ? best : new BitSet();
+        }
+
+        private Hit hit(Doc doc) {
+            ProjectRef project = projects.get(doc.projectId());
+            return new Hit(doc.kind(), doc.id(), project.envId(), environmentNames.get(project.envId()),
+                    doc.projectId(), project.name(), doc.key(), doc.description(), doc.type());
+        }
+
+        private static boolean containsAll(String text, List<String> terms) {
+            for (String term : terms) {
+                if (!text.contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int rank(Doc doc, String query) {
+            String key = doc.key().toLowerCase(Locale.ROOT);
+            if (key.equals(query)) {
+                return 0;
+            }
+            if (key.startsWith(query)) {
+                return 1;
+            }
+            return key.contains(query) ? 2 : 3;
+        }
+
+        private static String text(String key, String description) {
+            String text = key.toLowerCase(Locale.ROOT);
+            if (description != null && !description.isBlank()) {
+                text += '\n' + description.toLowerCase(Locale.ROOT);
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Growable list of document slots.
+     */
+    static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void addTo(BitSet set) {
+            for (int i = 0; i < size; i++) {
+                set.set(values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.devportal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Keyed fingerprints of credential values: HMAC-SHA256 of the plaintext, stored next to the
+ * ciphertext so equal values can be compared across projects and environments without decrypting
+ * either. Without the key a fingerprint cannot be used to test guesses of a value.
+ * <p>
+ * The key is {@code devportal.encryption.fingerprint-key}, or derived from the legacy encryption
+ * key when unset. It does not rotate with data keys; changing it means clearing
+ * {@code value_fingerprint} so the backfill recomputes every row.
+ */
+@Component
+public class ValueFingerprints {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] DERIVATION_LABEL = "devportal credential fingerprint v1".getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKeySpec key;
+
+    public ValueFingerprints(@Value("${devportal.encryption.fingerprint-key:}") String fingerprintKey,
+                             @Value("${devportal.encryption.key}") String legacyKey) {
+        if (fingerprintKey != null && !fingerprintKey.isBlank()) {
+            this.key = new SecretKeySpec(fingerprintKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        } else {
+            byte[] derived = hmac(new SecretKeySpec(legacyKey.getBytes(StandardCharsets.UTF_8), ALGORITHM), DERIVATION_LABEL);
+            this.key = new SecretKeySpec(derived, ALGORITHM);
+            Arrays.fill(derived, (byte) 0);
+        }
+    }
+
+    public String of(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        try {
+            return of(bytes);
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+        }
+    }
+
+    public String of(byte[] plaintext) {
+        return encode(hmac(key, plaintext));
+    }
+
+    /**
+     * A MAC for fingerprinting content that arrives in pieces; finish it with {@link #finish(Mac)}.
+     */
+    public Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    public static String finish(Mac mac) {
+        return encode(mac.doFinal());
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static String encode(byte[] digest) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+}
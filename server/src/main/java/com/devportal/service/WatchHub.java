@@ -0,0 +1,468 @@
+package com.devportal.service;
+
+import com.devportal.dto.CredentialChangeEvent;
+import com.devportal.security.ServerBusyException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fan-out of credential change events to watchers of a project or an environment.
+ * <p>
+ * SSE watchers are async servlet responses: an idle one holds a connection but no thread. Each
+ * has a bounded buffer drained by a small shared dispatcher pool, or by virtual threads when
+ * {@code spring.threads.virtual.enabled} is on. A watcher whose buffer fills up, or whose send has
+ * been blocked on a slow socket for longer than {@code send-timeout-ms} (checked by the heartbeat),
+ * is disconnected rather than slowing down the others; it resumes from {@code Last-Event-ID}.
+ * Disconnects run on their own threads, never queued behind blocked sends; a blocked send's
+ * thread itself is released by the container's write timeout.
+ * Long-poll watchers are parked {@link DeferredResult}s completed by the next matching event.
+ * <p>
+ * Recent events are kept so a reconnecting watcher can catch up. Event ids are
+ * {@code <epoch>-<seq>}, where the epoch is unique to this process. A resume position from
+ * another instance or from before the retained window gets a {@link CredentialChangeEvent.Type#RESET}.
+ */
+@Component
+public class WatchHub {
+
+    private static final Logger log = LoggerFactory.getLogger(WatchHub.class);
+
+    private static final Object HEARTBEAT = new Object();
+
+    /**
+     * Long-poll response: events after the requested position, and the position to ask from next.
+     *
+     * @param reset true if events may have been missed and the watcher should relist first
+     */
+    public record Batch(String cursor, boolean reset, List<CredentialChangeEvent> events) {
+    }
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final ArrayDeque<CredentialChangeEvent> history = new ArrayDeque<>();
+    private long floor;
+    private final Map<UUID, Set<Watcher>> byEnvironment = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Watcher>> byProject = new ConcurrentHashMap<>();
+    private final AtomicInteger watchers = new AtomicInteger();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Executor dispatcher;
+    private final Executor closer;
+    private final int historySize;
+    private final int bufferSize;
+    private final int maxWatchers;
+    private final long sseTimeoutMillis;
+    private final long sendTimeoutMillis;
+    private final int maxPollSeconds;
+
+    public WatchHub(@Value("${devportal.watch.history-size:1000}") int historySize,
+                    @Value("${devportal.watch.buffer-size:64}") int bufferSize,
+                    @Value("${devportal.watch.max-watchers:10000}") int maxWatchers,
+                    @Value("${devportal.watch.sse-timeout-ms:1800000}") long sseTimeoutMillis,
+                    @Value("${devportal.watch.send-timeout-ms:10000}") long sendTimeoutMillis,
+                    @Value("${devportal.watch.poll-max-seconds:60}") int maxPollSeconds,
+                    @Value("${devportal.watch.dispatch-threads:2}") int dispatchThreads,
+                    Environment environment) {
+        this.historySize = Math.max(1, historySize);
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxWatchers = maxWatchers;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.maxPollSeconds = Math.max(1, maxPollSeconds);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // A send blocked on a slow socket then parks only its own virtual thread
+            this.dispatcher = new VirtualThreadTaskExecutor("watch-dispatch-");
+            this.closer = dispatcher;
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.dispatcher = Executors.newFixedThreadPool(Math.max(1, dispatchThreads), r -> {
+                Thread t = new Thread(r, "watch-dispatch-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            // Completing an emitter waits for its blocked send, so closes get threads of their own
+            AtomicInteger closerCount = new AtomicInteger();
+            this.closer = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "watch-close-" + closerCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Opens an SSE stream of changes to the project, or to the whole environment when
+     * {@code projectId} is null, first replaying anything after {@code lastEventId}.
+     */
+    public SseEmitter subscribe(UUID envId, UUID projectId, String lastEventId) {
+        reserve();
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        SseWatcher watcher = new SseWatcher(envId, projectId, emitter);
+        emitter.onCompletion(() -> unregister(watcher));
+        emitter.onTimeout(() -> unregister(watcher));
+        emitter.onError(e -> unregister(watcher));
+        synchronized (history) {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                List<CredentialChangeEvent> missed = eventsAfter(lastEventId, envId, projectId);
+                if (missed == null) {
+                    watcher.offer(reset(envId, projectId));
+                } else {
+                    missed.forEach(watcher::offer);
+                }
+            }
+            register(watcher);
+        }
+        return emitter;
+    }
+
+    /**
+     * Completes immediately with the events after {@code since}, or waits up to
+     * {@code timeoutSeconds} for the next one. Without {@code since} it waits for the next event.
+     */
+    public DeferredResult<Batch> poll(UUID envId, UUID projectId, String since, Integer timeoutSeconds) {
+        int timeout = timeoutSeconds == null ? 25 : Math.min(Math.max(timeoutSeconds, 1), maxPollSeconds);
+        DeferredResult<Batch> result;
+        synchronized (history) {
+            if (since != null && !since.isBlank()) {
+                List<CredentialChangeEvent> missed = eventsAfter(since, envId, projectId);
+                if (missed == null || !missed.isEmpty()) {
+                    result = new DeferredResult<>();
+                    result.setResult(missed == null
+                            ? new Batch(cursor(sequence.get()), true, List.of())
+                            : new Batch(missed.get(missed.size() - 1).id(), false, missed));
+                    return result;
+                }
+            }
+            reserve();
+            String current = cursor(sequence.get());
+            result = new DeferredResult<>(timeout * 1000L, () -> new Batch(current, false, List.of()));
+            PollWatcher watcher = new PollWatcher(envId, projectId, result);
+            result.onCompletion(() -> unregister(watcher));
+            register(watcher);
+        }
+        return result;
+    }
+
+    /**
+     * Numbers the event, keeps it for catch-up and hands it to every matching watcher.
+     */
+    public void dispatch(CredentialChangeEvent change) {
+        synchronized (history) {
+            CredentialChangeEvent event = change.withId(cursor(sequence.incrementAndGet()));
+            history.addLast(event);
+            if (history.size() > historySize) {
+                floor = sequence(history.removeFirst().id());
+            }
+            deliver(byEnvironment.get(event.envId()), event);
+            deliver(byProject.get(event.projectId()), event);
+        }
+    }
+
+    /**
+     * Tells every watcher to relist, after the feed may have lost events.
+     */
+    public void resetAll() {
+        synchronized (history) {
+            history.clear();
+            floor = sequence.get();
+            for (Set<Watcher> set : byEnvironment.values()) {
+                set.forEach(w -> w.offer(reset(w.envId, w.projectId)));
+            }
+            for (Set<Watcher> set : byProject.values()) {
+                set.forEach(w -> w.offer(reset(w.envId, w.projectId)));
+            }
+        }
+    }
+
+    /**
+     * Keeps idle SSE connections open through proxies, finds dead ones and evicts watchers whose
+     * send is stuck.
+     */
+    @Scheduled(fixedDelayString = "${devportal.watch.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<Watcher> set : byEnvironment.values()) {
+            set.forEach(Watcher::heartbeat);
+        }
+        for (Set<Watcher> set : byProject.values()) {
+            set.forEach(Watcher::heartbeat);
+        }
+    }
+
+    public int getWatcherCount() {
+        return watchers.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Watcher> set : byEnvironment.values()) {
+            set.forEach(Watcher::close);
+        }
+        for (Set<Watcher> set : byProject.values()) {
+            set.forEach(Watcher::close);
+        }
+        if (dispatcher instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+        if (closer instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+    }
+
+    private void reserve() {
+        if (watchers.incrementAndGet() > maxWatchers) {
+            watchers.decrementAndGet();
+            throw new ServerBusyException("Too many watchers", 5);
+        }
+    }
+
+    private void register(Watcher watcher) {
+        Map<UUID, Set<Watcher>> index = watcher.projectId != null ? byProject : byEnvironment;
+        index.computeIfAbsent(watcher.projectId != null ? watcher.projectId : watcher.envId,
+                k -> ConcurrentHashMap.newKeySet()).add(watcher);
+    }
+
+    private void unregister(Watcher watcher) {
+        Map<UUID, Set<Watcher>> index = watcher.projectId != null ? byProject : byEnvironment;
+        UUID key = watcher.projectId != null ? watcher.projectId : watcher.envId;
+        Set<Watcher> set = index.get(key);
+        if (set != null && set.remove(watcher)) {
+            watchers.decrementAndGet();
+            if (set.isEmpty()) {
+                index.remove(key, set);
+            }
+        }
+    }
+
+    private static void deliver(Set<Watcher> set, CredentialChangeEvent event) {
+        if (set != null) {
+            set.forEach(w -> w.offer(event));
+        }
+    }
+
+    /**
+     * Events after the position that concern the project or environment, or null if some may be
+     * missing. Caller holds the history lock.
+     */
+    private List<CredentialChangeEvent> eventsAfter(String position, UUID envId, UUID projectId) {
+        long since = -1;
+        int dash = position.lastIndexOf('-');
+        if (dash > 0 && position.substring(0, dash).equals(epoch)) {
+            try {
+                since = Long.parseLong(position.substring(dash + 1));
+            } catch (NumberFormatException e) {
+                since = -1;
+            }
+        }
+        if (since < floor || since > sequence.get()) {
+            return null;
+        }
+        List<CredentialChangeEvent> events = new ArrayList<>();
+        for (CredentialChangeEvent event : history) {
+            if (sequence(event.id()) > since && (projectId != null
+                    ? projectId.equals(event.projectId()) : envId.equals(event.envId()))) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private CredentialChangeEvent reset(UUID envId, UUID projectId) {
+        return new CredentialChangeEvent(cursor(sequence.get()), CredentialChangeEvent.Type.RESET, envId, projectId,
+                null, null, Instant.now());
+    }
+
+    private String cursor(long seq) {
+        return epoch + "-" + seq;
+    }
+
+    private static long sequence(String id) {
+        return Long.parseLong(id.substring(id.lastIndexOf('-') + 1));
+    }
+
+    private abstract static class Watcher {
+
+        final UUID envId;
+        final UUID projectId;
+
+        Watcher(UUID envId, UUID projectId) {
+            this.envId = envId;
+            this.projectId = projectId;
+        }
+
+        abstract void offer(CredentialChangeEvent event);
+
+        void heartbeat() {
+        }
+
+        abstract void close();
+    }
+
+    private final class SseWatcher extends Watcher {
+
+        private final SseEmitter emitter;
+        private final ArrayDeque<Object> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        /** When the current send started, or 0 when none is in progress. */
+        private volatile long sendingSince;
+
+        SseWatcher(UUID envId, UUID projectId, SseEmitter emitter) {
+            super(envId, projectId);
+            this.emitter = emitter;
+        }
+
+        @Override
+        void offer(CredentialChangeEvent event) {
+            enqueue(event);
+        }
+
+        @Override
+        void heartbeat() {
+            long since = sendingSince;
+            if (since != 0 && System.currentTimeMillis() - since > sendTimeoutMillis) {
+                evict("stuck");
+                return;
+            }
+            synchronized (this) {
+                if (!queue.isEmpty()) {
+                    return;
+                }
+            }
+            enqueue(HEARTBEAT);
+        }
+
+        private void enqueue(Object item) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() >= bufferSize) {
+                    evict("slow");
+                    return;
+                }
+                queue.addLast(item);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            dispatcher.execute(this::drain);
+        }
+
+        /**
+         * Stops queueing to the watcher at once and completes its emitter on the closer, since
+         * the completion waits for any send still in progress.
+         */
+        private void evict(String reason) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queue.clear();
+            }
+            evictions.incrementAndGet();
+            log.debug("Disconnecting {} watcher of {}", reason, projectId != null ? projectId : envId);
+            unregister(this);
+            closer.execute(this::close);
+        }
+
+        private void drain() {
+            while (true) {
+                Object next;
+                synchronized (this) {
+                    next = queue.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                sendingSince = System.currentTimeMillis();
+                try {
+                    if (next == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        CredentialChangeEvent event = (CredentialChangeEvent) next;
+                        emitter.send(SseEmitter.event()
+                                .id(event.id())
+                                .name(event.type().name().toLowerCase(Locale.ROOT))
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    synchronized (this) {
+                        closed = true;
+                        queue.clear();
+                        draining = false;
+                    }
+                    close();
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        @Override
+        void close() {
+            unregister(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // already completed
+            }
+        }
+    }
+
+    private final class PollWatcher extends Watcher {
+
+        private final DeferredResult<Batch> result;
+
+        PollWatcher(UUID envId, UUID projectId, DeferredResult<Batch> result) {
+            super(envId, projectId);
+            this.result = result;
+        }
+
+        @Override
+        void offer(CredentialChangeEvent event) {
+            boolean reset = event.type() == CredentialChangeEvent.Type.RESET;
+            if (result.setResult(new Batch(event.id(), reset, reset ? List.of() : List.of(event)))) {
+                unregister(this);
+            }
+        }
+
+        @Override
+        void close() {
+            unregister(this);
+            result.setResult(new Batch(cursor(sequence.get()), false, List.of()));
+        }
+    }
+}
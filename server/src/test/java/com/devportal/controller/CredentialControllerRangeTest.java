@@ -0,0 +1,71 @@
+package com.devportal.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CredentialControllerRangeTest {
+
+    @Test
+    void servesWholeFileWithoutRange() {
+        assertEquals(new CredentialController.ByteSpan(0, 99, false), CredentialController.resolveRange(null, 100));
+        assertEquals(100, CredentialController.resolveRange(" ", 100).length());
+    }
+
+    @Test
+    void servesClosedRange() {
+        CredentialController.ByteSpan span = CredentialController.resolveRange("bytes=10-19", 100);
+
+        assertEquals(new CredentialController.ByteSpan(10, 19, true), span);
+        assertEquals(10, span.length());
+    }
+
+    @Test
+    void clampsRangeEndToFileSize() {
+        assertEquals(new CredentialController.ByteSpan(90, 99, true),
+                CredentialController.resolveRange("bytes=90-500", 100));
+    }
+
+    @Test
+    void servesOpenEndedRangeToEndOfFile() {
+        assertEquals(new CredentialController.ByteSpan(40, 99, true),
+                CredentialController.resolveRange("bytes=40-", 100));
+        assertEquals(new CredentialController.ByteSpan(99, 99, true),
+                CredentialController.resolveRange("bytes=99-", 100));
+    }
+
+    @Test
+    void servesSuffixRangeFromEndOfFile() {
+        assertEquals(new CredentialController.ByteSpan(75, 99, true),
+                CredentialController.resolveRange("bytes=-25", 100));
+    }
+
+    @Test
+    void suffixLongerThanFileServesWholeFile() {
+        assertEquals(new CredentialController.ByteSpan(0, 99, true),
+                CredentialController.resolveRange("bytes=-500", 100));
+    }
+
+    @Test
+    void rangeStartingPastEndIsUnsatisfiable() {
+        assertNull(CredentialController.resolveRange("bytes=100-", 100));
+        assertNull(CredentialController.resolveRange("bytes=150-200", 100));
+        assertNull(CredentialController.resolveRange("bytes=-0", 100));
+    }
+
+    @Test
+    void anyRangeOfEmptyFileIsUnsatisfiable() {
+        assertNull(CredentialController.resolveRange("bytes=0-", 0));
+        assertEquals(0, CredentialController.resolveRange(null, 0).length());
+    }
+
+    @Test
+    void malformedOrMultipleRangesServeWholeFile() {
+        CredentialController.ByteSpan whole = new CredentialController.ByteSpan(0, 99, false);
+
+        assertEquals(whole, CredentialController.resolveRange("bytes=20-10", 100));
+        assertEquals(whole, CredentialController.resolveRange("items=0-10", 100));
+        assertEquals(whole, CredentialController.resolveRange("bytes=0-9,20-29", 100));
+    }
+}
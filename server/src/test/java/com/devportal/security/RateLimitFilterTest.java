@@ -0,0 +1,164 @@
+package com.devportal.security;
+
+import com.devportal.model.User;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger passed = new AtomicInteger();
+    private final FilterChain chain = (request, response) -> passed.incrementAndGet();
+
+    // Two requests in a burst on every family, then one every two seconds
+    private final RateLimitFilter filter = new RateLimitFilter(true, 600,
+            2, 30, 2, 30, 2, 30, 2, 30, 2, 30, clock::get);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void admitsBurstThenRejectsWithRetryAfter() throws Exception {
+        assertEquals(200, send("POST", "/api/auth/login", "10.0.0.1").getStatus());
+        assertEquals(200, send("POST", "/api/auth/login", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = send("POST", "/api/auth/login", "10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"code\":\"RATE_LIMITED\""));
+        assertEquals(2, passed.get());
+        assertEquals(2, filter.getAllowedCount());
+        assertEquals(1, filter.getLimitedCount());
+    }
+
+    @Test
+    void retryAfterRoundsUpAndNeverDropsBelowOneSecond() throws Exception {
+        send("POST", "/api/auth/login", "10.0.0.1");
+        send("POST", "/api/auth/login", "10.0.0.1");
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals("2", send("POST", "/api/auth/login", "10.0.0.1").getHeader("Retry-After"));
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(1_999));
+        assertEquals("1", send("POST", "/api/auth/login", "10.0.0.1").getHeader("Retry-After"));
+
+        clock.set(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(200, send("POST", "/api/auth/login", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void anonymousCallersAreLimitedPerAddress() throws Exception {
+        send("POST", "/api/auth/login", "10.0.0.1");
+        send("POST", "/api/auth/login", "10.0.0.1");
+
+        assertEquals(429, send("POST", "/api/auth/login", "10.0.0.1").getStatus());
+        assertEquals(200, send("POST", "/api/auth/login", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void authenticatedCallersAreLimitedPerUserAcrossAddresses() throws Exception {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+
+        authenticate(alice);
+        send("POST", "/api/projects", "10.0.0.1");
+        send("POST", "/api/projects", "10.0.0.2");
+        assertEquals(429, send("POST", "/api/projects", "10.0.0.3").getStatus());
+
+        // Same address as alice, own bucket
+        authenticate(bob);
+        assertEquals(200, send("POST", "/api/projects", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void familiesHaveSeparateBuckets() throws Exception {
+        authenticate(UUID.randomUUID());
+        send("POST", "/api/projects", "10.0.0.1");
+        send("POST", "/api/projects", "10.0.0.1");
+
+        assertEquals(429, send("POST", "/api/projects", "10.0.0.1").getStatus());
+        assertEquals(200, send("GET", "/api/credentials/" + UUID.randomUUID() + "/reveal", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void unclassifiedRoutesBypassBuckets() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, send("GET", "/api/projects", "10.0.0.1").getStatus());
+        }
+        assertEquals(0, filter.getTrackedBuckets());
+    }
+
+    @Test
+    void disabledFilterPassesEverything() throws Exception {
+        RateLimitFilter disabled = new RateLimitFilter(false, 600,
+                1, 1, 1, 1, 1, 1, 1, 1, 1, 1, clock::get);
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = request("POST", "/api/auth/login", "10.0.0.1");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            disabled.doFilter(request, response, chain);
+            assertEquals(200, response.getStatus());
+        }
+        assertEquals(5, passed.get());
+    }
+
+    @Test
+    void classifiesRouteFamilies() {
+        assertEquals(RateLimitFilter.RouteFamily.AUTH, classify("POST", "/api/auth/login"));
+        assertEquals(RateLimitFilter.RouteFamily.AUTH, classify("POST", "/api/auth/register"));
+        assertNull(classify("POST", "/api/auth/logout"));
+        assertNull(classify("GET", "/api/auth/me"));
+
+        assertEquals(RateLimitFilter.RouteFamily.REVEAL, classify("GET", "/api/credentials/1/reveal"));
+        assertEquals(RateLimitFilter.RouteFamily.REVEAL, classify("GET", "/api/credentials/1/file"));
+        assertEquals(RateLimitFilter.RouteFamily.WRITE, classify("PUT", "/api/credentials/1/file"));
+
+        assertEquals(RateLimitFilter.RouteFamily.BUNDLE, classify("GET", "/api/environments/dev/projects/p/bundle"));
+        assertEquals(RateLimitFilter.RouteFamily.IMPORT, classify("POST", "/api/projects/1/import"));
+        assertEquals(RateLimitFilter.RouteFamily.IMPORT, classify("GET", "/api/projects/1/export"));
+
+        assertEquals(RateLimitFilter.RouteFamily.WRITE, classify("POST", "/api/projects"));
+        assertEquals(RateLimitFilter.RouteFamily.WRITE, classify("DELETE", "/api/credentials/1"));
+        assertNull(classify("GET", "/api/projects"));
+        assertNull(classify("OPTIONS", "/api/projects"));
+        assertNull(classify("POST", "/actuator/health"));
+    }
+
+    private MockHttpServletResponse send(String method, String path, String remoteAddr) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path, remoteAddr), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static RateLimitFilter.RouteFamily classify(String method, String path) {
+        return RateLimitFilter.classify(new MockHttpServletRequest(method, path));
+    }
+
+    private static void authenticate(UUID userId) {
+        CustomUserDetails details = new CustomUserDetails(userId, userId + "@example.com", User.Role.DEVELOPER, true);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.devportal.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketStoreTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void admitsBurstThenRejectsNextRequest() {
+        TokenBucketStore store = new TokenBucketStore(TimeUnit.MINUTES.toNanos(10));
+        // 3 in a burst, then one per second
+        TokenBucketStore.Limit limit = TokenBucketStore.Limit.of(3, 60);
+
+        assertEquals(0, store.tryAcquire("k", limit, 0));
+        assertEquals(0, store.tryAcquire("k", limit, 0));
+        assertEquals(0, store.tryAcquire("k", limit, 0));
+        assertEquals(SECOND, store.tryAcquire("k", limit, 0));
+    }
+
+    @Test
+    void waitShrinksAsTimePassesAndTokenRefills() {
+        TokenBucketStore store = new TokenBucketStore(TimeUnit.MINUTES.toNanos(10));
+        TokenBucketStore.Limit limit = TokenBucketStore.Limit.of(1, 60);
+
+        assertEquals(0, store.tryAcquire("k", limit, 0));
+        assertEquals(SECOND, store.tryAcquire("k", limit, 0));
+        assertEquals(SECOND / 4, store.tryAcquire("k", limit, SECOND * 3 / 4));
+        assertEquals(0, store.tryAcquire("k", limit, SECOND));
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        TokenBucketStore store = new TokenBucketStore(TimeUnit.MINUTES.toNanos(10));
+        TokenBucketStore.Limit limit = TokenBucketStore.Limit.of(1, 60);
+
+        store.tryAcquire("k", limit, 0);
+        for (int i = 0; i < 10; i++) {
+            store.tryAcquire("k", limit, 0);
+        }
+        assertEquals(0, store.tryAcquire("k", limit, SECOND));
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        TokenBucketStore store = new TokenBucketStore(TimeUnit.MINUTES.toNanos(10));
+        TokenBucketStore.Limit limit = TokenBucketStore.Limit.of(1, 60);
+
+        assertEquals(0, store.tryAcquire("a", limit, 0));
+        assertEquals(0, store.tryAcquire("b", limit, 0));
+        assertEquals(SECOND, store.tryAcquire("a", limit, 0));
+    }
+
+    @Test
+    void evictsIdleBucketsOnly() {
+        long idle = TimeUnit.SECONDS.toNanos(10);
+        TokenBucketStore store = new TokenBucketStore(idle);
+        TokenBucketStore.Limit limit = TokenBucketStore.Limit.of(1_000_000, 60_000_000);
+
+        store.tryAcquire("idle", limit, 0);
+        long later = TimeUnit.SECONDS.toNanos(100);
+        // Every 1024th operation sweeps one of the 16 stripes; this covers all of them
+        for (int i = 0; i < 16 * 1024; i++) {
+            store.tryAcquire("active", limit, later);
+        }
+
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void keepsBucketsUsedWithinIdleTimeout() {
+        TokenBucketStore store = new TokenBucketStore(TimeUnit.SECONDS.toNanos(10));
+        TokenBucketStore.Limit limit = TokenBucketStore.Limit.of(1_000_000, 60_000_000);
+
+        store.tryAcquire("recent", limit, 0);
+        long later = TimeUnit.SECONDS.toNanos(5);
+        for (int i = 0; i < 16 * 1024; i++) {
+            store.tryAcquire("active", limit, later);
+        }
+
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void limitShapeFollowsCapacityAndRate() {
+        TokenBucketStore.Limit limit = TokenBucketStore.Limit.of(10, 30);
+
+        assertEquals(2 * SECOND, limit.intervalNanos());
+        assertEquals(18 * SECOND, limit.toleranceNanos());
+    }
+}
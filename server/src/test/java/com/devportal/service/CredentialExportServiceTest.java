@@ -0,0 +1,150 @@
+package com.devportal.service;
+
+import com.devportal.model.Environment;
+import com.devportal.model.Project;
+import com.devportal.model.User;
+import com.devportal.repository.EnvironmentRepository;
+import com.devportal.repository.ProjectRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CredentialExportServiceTest {
+
+    private final Environment env = Environment.builder().id(UUID.randomUUID()).name("dev").build();
+    private final Project project = Project.builder().id(UUID.randomUUID()).name("payments").environment(env).build();
+    private final User user = User.builder().id(UUID.randomUUID()).build();
+
+    private final CredentialService credentialService = mock(CredentialService.class);
+    private final EnvironmentRepository environmentRepository = mock(EnvironmentRepository.class);
+    private final EnvelopeEncryptionService envelopeEncryption = mock(EnvelopeEncryptionService.class);
+    private final AuditService auditService = mock(AuditService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final CredentialExportService service;
+
+    CredentialExportServiceTest() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        service = new CredentialExportService(credentialService, environmentRepository, mock(ProjectRepository.class),
+                envelopeEncryption, auditService, jdbcTemplate, transactionTemplate, objectMapper, 500);
+        // Test "ciphertext" is the plaintext itself
+        when(envelopeEncryption.decrypt(any(), any())).thenAnswer(invocation -> invocation.<byte[]>getArgument(1).clone());
+    }
+
+    @Test
+    void groupedJsonKeepsProjectsWithTheSameName() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(environmentRepository.findById(env.getId())).thenReturn(Optional.of(env));
+        rows(new Object[] {first, "api", "A", "1"},
+                new Object[] {second, "api", "A", "2"},
+                new Object[] {second, "api", "B", "3"});
+
+        CredentialExportService.ExportTarget target = service.openEnvironment(env.getId(),
+                CredentialExportService.Format.JSON, user, "127.0.0.1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(target, out);
+
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, json.size());
+        assertEquals("1", json.get("api (" + first + ")").get("A").asText());
+        assertEquals("2", json.get("api (" + second + ")").get("A").asText());
+        assertEquals("3", json.get("api (" + second + ")").get("B").asText());
+    }
+
+    @Test
+    void dotenvExportRejectsKeysThatAreNotDotenvNames() {
+        when(credentialService.getProjectInEnv(env.getId(), project.getId())).thenReturn(project);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(project.getId())))
+                .thenReturn(List.of("db password"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.openProject(
+                env.getId(), project.getId(), CredentialExportService.Format.DOTENV, user, "127.0.0.1"));
+
+        assertTrue(e.getMessage().contains("'db password'"), e.getMessage());
+        verify(auditService, never()).logBulkAction(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void otherFormatsDoNotCheckKeys() {
+        when(credentialService.getProjectInEnv(env.getId(), project.getId())).thenReturn(project);
+
+        service.openProject(env.getId(), project.getId(), CredentialExportService.Format.PROPERTIES, user, "127.0.0.1");
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any(Object[].class));
+        verify(auditService).logBulkAction(user, env, project, "EXPORT_CREDENTIALS", "127.0.0.1");
+    }
+
+    @Test
+    void dotenvQuotesValuesAsNeeded() throws Exception {
+        String dotenv = writeBundle(CredentialExportService.Format.DOTENV,
+                new CredentialExportService.BundleEntry("PLAIN", bytes("abc-123")),
+                new CredentialExportService.BundleEntry("SPACED", bytes("a b")),
+                new CredentialExportService.BundleEntry("app.MULTI_LINE", bytes("it's\n\"quoted\"")));
+
+        assertEquals("PLAIN=abc-123\nSPACED='a b'\napp.MULTI_LINE=\"it's\\n\\\"quoted\\\"\"\n", dotenv);
+    }
+
+    @Test
+    void dotenvWriterRefusesInvalidKeys() {
+        assertThrows(IllegalStateException.class, () -> writeBundle(CredentialExportService.Format.DOTENV,
+                new CredentialExportService.BundleEntry("1ST", bytes("v"))));
+        assertThrows(IllegalStateException.class, () -> writeBundle(CredentialExportService.Format.DOTENV,
+                new CredentialExportService.BundleEntry("A=B", bytes("v"))));
+    }
+
+    private String writeBundle(CredentialExportService.Format format,
+                               CredentialExportService.BundleEntry... entries) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeBundle(new CredentialExportService.Bundle(env.getId(), project.getId(), project.getName(),
+                format, "\"etag\"", List.of(entries)), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Feeds {@code project_id, project_name, credential_key, value} rows to the export query.
+     */
+    private void rows(Object[]... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getObject("project_id", UUID.class)).thenReturn((UUID) row[0]);
+                when(rs.getString("project_name")).thenReturn((String) row[1]);
+                when(rs.getString("credential_key")).thenReturn((String) row[2]);
+                when(rs.getBytes("ciphertext")).thenReturn(bytes((String) row[3]));
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
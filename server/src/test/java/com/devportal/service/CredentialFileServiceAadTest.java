@@ -0,0 +1,79 @@
+package com.devportal.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CredentialFileServiceAadTest {
+
+    private final EncryptionService encryption = new EncryptionService("test-key");
+    private final SecretKey dataKey = EncryptionService.aesKey(encryption.generateKeyBytes());
+    private final byte[] header = EnvelopeEncryptionService.header(1);
+    private final UUID fileId = UUID.randomUUID();
+    private final byte[] plain = "chunk contents".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void aadEncodesFileIndexAndFlags() {
+        ByteBuffer aad = ByteBuffer.wrap(CredentialFileService.aad(fileId, 7, true, false));
+
+        assertEquals(16 + Integer.BYTES + 2, aad.remaining());
+        assertEquals(fileId, new UUID(aad.getLong(), aad.getLong()));
+        assertEquals(7, aad.getInt());
+        assertEquals(1, aad.get());
+        assertEquals(0, aad.get());
+    }
+
+    @Test
+    void chunkDecryptsUnderItsOwnAad() {
+        byte[] message = encrypt(CredentialFileService.aad(fileId, 3, false, true));
+
+        assertArrayEquals(plain, decrypt(message, CredentialFileService.aad(fileId, 3, false, true)));
+    }
+
+    @Test
+    void chunkMovedToAnotherIndexIsRejected() {
+        byte[] message = encrypt(CredentialFileService.aad(fileId, 3, false, false));
+
+        assertThrows(IllegalStateException.class,
+                () -> decrypt(message, CredentialFileService.aad(fileId, 4, false, false)));
+    }
+
+    @Test
+    void chunkMovedToAnotherFileIsRejected() {
+        byte[] message = encrypt(CredentialFileService.aad(fileId, 0, true, false));
+
+        assertThrows(IllegalStateException.class,
+                () -> decrypt(message, CredentialFileService.aad(UUID.randomUUID(), 0, true, false)));
+    }
+
+    @Test
+    void truncationAtANonFinalChunkIsRejected() {
+        byte[] message = encrypt(CredentialFileService.aad(fileId, 2, false, false));
+
+        assertThrows(IllegalStateException.class,
+                () -> decrypt(message, CredentialFileService.aad(fileId, 2, true, false)));
+    }
+
+    @Test
+    void flippedCompressionFlagIsRejected() {
+        byte[] message = encrypt(CredentialFileService.aad(fileId, 0, true, true));
+
+        assertThrows(IllegalStateException.class,
+                () -> decrypt(message, CredentialFileService.aad(fileId, 0, true, false)));
+    }
+
+    private byte[] encrypt(byte[] aad) {
+        return encryption.encrypt(dataKey, header, aad, plain, plain.length);
+    }
+
+    private byte[] decrypt(byte[] message, byte[] aad) {
+        return encryption.decrypt(dataKey, message, EnvelopeEncryptionService.HEADER_LENGTH, aad);
+    }
+}
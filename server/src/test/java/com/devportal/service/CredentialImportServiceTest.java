@@ -0,0 +1,116 @@
+package com.devportal.service;
+
+import com.devportal.dto.CredentialImportReport;
+import com.devportal.model.Environment;
+import com.devportal.model.Project;
+import com.devportal.model.User;
+import com.devportal.repository.CredentialRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CredentialImportServiceTest {
+
+    private final UUID envId = UUID.randomUUID();
+    private final Project project = Project.builder()
+            .id(UUID.randomUUID())
+            .name("payments")
+            .environment(Environment.builder().id(envId).name("dev").build())
+            .build();
+    private final User user = User.builder().id(UUID.randomUUID()).build();
+
+    private final CredentialService credentialService = mock(CredentialService.class);
+    private final CredentialRepository credentialRepository = mock(CredentialRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final CredentialImportService service = new CredentialImportService(credentialService,
+            credentialRepository, mock(EnvelopeEncryptionService.class), new ValueFingerprints("", "test-key"),
+            mock(JdbcTemplate.class), transactionTemplate, mock(CatalogVersions.class),
+            mock(CredentialVersionLog.class), mock(SearchIndex.class), mock(CredentialChangeFeed.class),
+            1, 500, 100);
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void reportsOutcomeOfEveryRowByStartingLine() throws IOException {
+        when(credentialService.getProjectInEnv(envId, project.getId())).thenReturn(project);
+        when(credentialRepository.findKeysByProject(project)).thenReturn(List.of("Existing"));
+
+        CredentialImportReport report = importCsv("""
+                # key,value,type,description
+                API_KEY,secret
+                EXISTING,value
+                CERT,"-----BEGIN-----
+                -----END-----",FILE,certificate
+
+                api_key,again
+                NO_VALUE,
+                ,orphan
+                ONLY_KEY
+                """);
+
+        assertEquals(2, report.created());
+        assertEquals(2, report.skipped());
+        assertEquals(3, report.invalid());
+        assertEquals(List.of(
+                new CredentialImportReport.Row(2, "API_KEY", CredentialImportReport.Status.CREATED, null),
+                new CredentialImportReport.Row(3, "EXISTING", CredentialImportReport.Status.SKIPPED, "Key already exists"),
+                new CredentialImportReport.Row(4, "CERT", CredentialImportReport.Status.CREATED, null),
+                new CredentialImportReport.Row(7, "api_key", CredentialImportReport.Status.SKIPPED,
+                        "Duplicate key earlier in the file"),
+                new CredentialImportReport.Row(8, "NO_VALUE", CredentialImportReport.Status.INVALID, "Value is required"),
+                new CredentialImportReport.Row(9, "", CredentialImportReport.Status.INVALID, "Key is required"),
+                new CredentialImportReport.Row(10, "ONLY_KEY", CredentialImportReport.Status.INVALID,
+                        "Expected key,value[,type[,description]]")),
+                report.rows());
+        verify(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void unterminatedQuoteRejectsWholeImport() {
+        when(credentialService.getProjectInEnv(envId, project.getId())).thenReturn(project);
+        when(credentialRepository.findKeysByProject(project)).thenReturn(List.of());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> importCsv("OK,value\nBROKEN,\"never closed\n"));
+
+        assertEquals("Unterminated quoted field starting on line 2", e.getMessage());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    @Test
+    void rejectsImportOverRowLimit() {
+        when(credentialService.getProjectInEnv(envId, project.getId())).thenReturn(project);
+        when(credentialRepository.findKeysByProject(project)).thenReturn(List.of());
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i <= 100; i++) {
+            csv.append("KEY_").append(i).append(",value\n");
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> importCsv(csv.toString()));
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    private CredentialImportReport importCsv(String csv) throws IOException {
+        return service.importCsv(envId, project.getId(),
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), user, "127.0.0.1");
+    }
+}
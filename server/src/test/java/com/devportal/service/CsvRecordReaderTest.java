@@ -0,0 +1,104 @@
+package com.devportal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void splitsAndTrimsUnquotedFields() throws IOException {
+        assertEquals(List.of(List.of("KEY", "value", "SECRET")), records(" KEY , value ,SECRET\n"));
+    }
+
+    @Test
+    void keepsQuotedFieldsVerbatim() throws IOException {
+        assertEquals(List.of(List.of(" padded ", "a,b")), records("\" padded \",\"a,b\"\n"));
+    }
+
+    @Test
+    void quotedFieldMaySpanLines() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("CERT,\"line one\nline two\r\nline three\"\nNEXT,v\n"));
+
+        assertEquals(List.of("CERT", "line one\nline two\r\nline three"), reader.next());
+        assertEquals(1, reader.recordLine());
+        assertEquals(List.of("NEXT", "v"), reader.next());
+        assertEquals(4, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void doubledQuotesAreUnescaped() throws IOException {
+        assertEquals(List.of(List.of("K", "say \"hi\"", "\"")), records("K,\"say \"\"hi\"\"\",\"\"\"\"\n"));
+    }
+
+    @Test
+    void emptyQuotedFieldIsEmpty() throws IOException {
+        assertEquals(List.of(List.of("K", "")), records("K,\"\"\n"));
+    }
+
+    @Test
+    void acceptsCrlfLineEndings() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("A,1\r\nB,2\r\n"));
+
+        assertEquals(List.of("A", "1"), reader.next());
+        assertEquals(List.of("B", "2"), reader.next());
+        assertEquals(2, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void acceptsCrOnlyLineEndings() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("A,1\rB,2\rC,3"));
+
+        assertEquals(List.of("A", "1"), reader.next());
+        assertEquals(List.of("B", "2"), reader.next());
+        assertEquals(2, reader.recordLine());
+        assertEquals(List.of("C", "3"), reader.next());
+        assertEquals(3, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void lastRecordNeedsNoLineBreak() throws IOException {
+        assertEquals(List.of(List.of("A", "1"), List.of("B", "2")), records("A,1\nB,2"));
+    }
+
+    @Test
+    void keepsTrailingEmptyField() throws IOException {
+        assertEquals(List.of(List.of("K", "v", "")), records("K,v,\n"));
+    }
+
+    @Test
+    void blankLineIsOneEmptyField() throws IOException {
+        assertEquals(List.of(List.of("A", "1"), List.of(""), List.of("B", "2")), records("A,1\n\nB,2\n"));
+    }
+
+    @Test
+    void rejectsUnterminatedQuotedField() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("A,1\nB,\"open\nstill open\n"));
+        reader.next();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::next);
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+    }
+
+    private static List<List<String>> records(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(csv))) {
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+}
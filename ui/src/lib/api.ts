@@ -58,3 +58,20 @@ export async function apiRequest<T>(path: string, options: RequestOptions = {}):
   return data as T
 }
 
+/** Follows nextCursor until the list is exhausted, fetching the largest page the server allows. */
+export async function fetchAllPages<T>(
+  request: (path: string) => Promise<{ items: T[]; nextCursor?: string | null }>,
+  path: string
+): Promise<T[]> {
+  const items: T[] = []
+  const sep = path.includes('?') ? '&' : '?'
+  let cursor: string | null | undefined
+  do {
+    const page = await request(
+      `${path}${sep}limit=200${cursor ? `&cursor=${encodeURIComponent(cursor)}` : ''}`
+    )
+    items.push(...page.items)
+    cursor = page.nextCursor
+  } while (cursor)
+  return items
+}
@@ -5,6 +5,12 @@ export type AuthUser = {
   role: Role
 }
 
+/** One page of a list endpoint; pass nextCursor back as ?cursor= for the next page. */
+export type Page<T> = {
+  items: T[]
+  nextCursor?: string | null
+}
+
 export type Environment = {
   id: string
   name: string
@@ -32,6 +38,20 @@ export type Credential = {
   updatedAt?: string | null
 }
 
+export type CredentialImportRow = {
+  line: number
+  key: string
+  status: 'CREATED' | 'SKIPPED' | 'INVALID'
+  message?: string | null
+}
+
+export type CredentialImportReport = {
+  created: number
+  skipped: number
+  invalid: number
+  rows: CredentialImportRow[]
+}
+
 export type User = {
   id: string
   name: string
@@ -51,3 +71,28 @@ export type AuditLog = {
   environment?: Partial<Environment> | null
 }
 
+
+export type SearchHit = {
+  kind: 'CREDENTIAL' | 'PROJECT'
+  id: string
+  envId: string
+  envName: string
+  projectId: string
+  projectName: string
+  key: string
+  description?: string | null
+  type?: CredentialType | null
+}
+
+export type SearchFacet = {
+  id: string
+  name: string
+  count: number
+}
+
+export type SearchResult = {
+  hits: SearchHit[]
+  total: number
+  environments: SearchFacet[]
+  projects: SearchFacet[]
+}
@@ -1,7 +1,7 @@
 import { useEffect, useState } from 'react'
 import type { ApiError } from '../lib/api'
 import { useAuth } from '../lib/auth'
-import type { AuditLog } from '../lib/types'
+import type { AuditLog, Page } from '../lib/types'
 import { TableSkeleton } from '../components/TableSkeleton'
 
 export function AdminAuditPage() {
@@ -11,13 +11,16 @@ export function AdminAuditPage() {
   const [logs, setLogs] = useState<AuditLog[]>([])
   const [error, setError] = useState<string | null>(null)
   const [loading, setLoading] = useState(true)
+  const [nextCursor, setNextCursor] = useState<string | null>(null)
+  const [loadingMore, setLoadingMore] = useState(false)
 
   const load = async () => {
     setError(null)
     setLoading(true)
     try {
-      const data = await authedRequest<AuditLog[]>('/api/admin/audit-logs')
-      setLogs(data)
+      const page = await authedRequest<Page<AuditLog>>('/api/admin/audit-logs?limit=100')
+      setLogs(page.items)
+      setNextCursor(page.nextCursor ?? null)
     } catch (e) {
       const err = e as ApiError
       setError(err.message)
@@ -26,6 +29,24 @@ export function AdminAuditPage() {
     }
   }
 
+  const loadMore = async () => {
+    if (!nextCursor) return
+    setError(null)
+    setLoadingMore(true)
+    try {
+      const page = await authedRequest<Page<AuditLog>>(
+        `/api/admin/audit-logs?limit=100&cursor=${encodeURIComponent(nextCursor)}`
+      )
+      setLogs((prev) => [...prev, ...page.items])
+      setNextCursor(page.nextCursor ?? null)
+    } catch (e) {
+      const err = e as ApiError
+      setError(err.message)
+    } finally {
+      setLoadingMore(false)
+    }
+  }
+
   useEffect(() => {
     void load()
     // eslint-disable-next-line react-hooks/exhaustive-deps
@@ -95,6 +116,12 @@ export function AdminAuditPage() {
         </table>
         )}
       </div>
+
+      {nextCursor && !loading ? (
+        <button className="btn" onClick={() => void loadMore()} disabled={loadingMore}>
+          {loadingMore ? 'Loading…' : 'Load more'}
+        </button>
+      ) : null}
     </div>
   )
 }
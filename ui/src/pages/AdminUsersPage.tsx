@@ -1,7 +1,7 @@
 import { useEffect, useMemo, useState } from 'react'
-import type { ApiError } from '../lib/api'
+import { fetchAllPages, type ApiError } from '../lib/api'
 import { useAuth } from '../lib/auth'
-import type { Role, User } from '../lib/types'
+import type { Page, Role, User } from '../lib/types'
 import { TableSkeleton } from '../components/TableSkeleton'
 
 type InviteResponse = { userId: string; temporaryPassword: string }
@@ -26,7 +26,7 @@ export function AdminUsersPage() {
     setError(null)
     setLoading(true)
     try {
-      const data = await authedRequest<User[]>('/api/admin/users')
+      const data = await fetchAllPages<User>((p) => authedRequest<Page<User>>(p), '/api/admin/users')
       setUsers(data)
     } catch (e) {
       const err = e as ApiError
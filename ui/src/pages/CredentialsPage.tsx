@@ -1,9 +1,9 @@
 import { useEffect, useMemo, useState } from 'react'
 import { Link, useParams } from 'react-router-dom'
-import type { ApiError } from '../lib/api'
+import { fetchAllPages, type ApiError } from '../lib/api'
 import { driveUrlToEmbedUrl } from '../lib/driveUrl'
 import { useAuth } from '../lib/auth'
-import type { Credential, CredentialType } from '../lib/types'
+import type { Credential, CredentialImportReport, CredentialType, Page } from '../lib/types'
 import { FileViewerModal } from '../components/FileViewerModal'
 import { TableSkeleton } from '../components/TableSkeleton'
 
@@ -46,7 +46,7 @@ export function CredentialsPage() {
     setError(null)
     setLoading(true)
     try {
-      const data = await authedRequest<Credential[]>(basePath)
+      const data = await fetchAllPages<Credential>((p) => authedRequest<Page<Credential>>(p), basePath)
       setCreds(data)
     } catch (e) {
       const err = e as ApiError
@@ -329,12 +329,19 @@ export function CredentialsPage() {
                   try {
                     const form = new FormData()
                     form.append('file', file)
-                    const count = await authedRequest<number>(`${basePath}/import`, {
+                    const report = await authedRequest<CredentialImportReport>(`${basePath}/import`, {
                       method: 'POST',
                       body: form,
                     })
                     await load()
-                    alert(`Imported ${count} credentials.`)
+                    const problems = report.rows
+                      .filter((r) => r.status !== 'CREATED')
+                      .slice(0, 10)
+                      .map((r) => `Line ${r.line} (${r.key || 'no key'}): ${r.message}`)
+                    alert(
+                      `Imported ${report.created} credentials; ${report.skipped} skipped, ${report.invalid} invalid.` +
+                        (problems.length ? `\n\n${problems.join('\n')}` : ''),
+                    )
                   } catch (ex) {
                     const err = ex as ApiError
                     setError(err.message)
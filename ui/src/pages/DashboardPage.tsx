@@ -1,8 +1,8 @@
-import { useEffect, useMemo, useState } from 'react'
+import { useEffect, useState } from 'react'
 import { Link, useSearchParams } from 'react-router-dom'
-import type { ApiError } from '../lib/api'
+import { fetchAllPages, type ApiError } from '../lib/api'
 import { useAuth } from '../lib/auth'
-import type { Credential, Environment, Project } from '../lib/types'
+import type { Environment, Page, Project, SearchHit, SearchResult } from '../lib/types'
 import { DashboardSkeleton } from '../components/DashboardSkeleton'
 import { TableSkeleton } from '../components/TableSkeleton'
 
@@ -11,27 +11,6 @@ type EnvWithProjects = {
   projects: Project[]
 }
 
-type SearchHit = {
-  envId: string
-  envName: string
-  projectId: string
-  projectName: string
-  credential: Credential
-}
-
-async function mapLimit<T, R>(items: T[], limit: number, fn: (item: T) => Promise<R>): Promise<R[]> {
-  const results: R[] = []
-  let i = 0
-  const workers = Array.from({ length: Math.min(limit, items.length) }, async () => {
-    while (i < items.length) {
-      const idx = i++
-      results[idx] = await fn(items[idx] as T)
-    }
-  })
-  await Promise.all(workers)
-  return results
-}
-
 export function DashboardPage() {
   const { authedRequest } = useAuth()
   const [params] = useSearchParams()
@@ -44,27 +23,14 @@ export function DashboardPage() {
   const [searching, setSearching] = useState(false)
   const [hits, setHits] = useState<SearchHit[]>([])
 
-  const allProjects = useMemo(
-    () =>
-      data.flatMap((d) =>
-        d.projects.map((p) => ({
-          envId: d.env.id,
-          envName: d.env.name,
-          projectId: p.id,
-          projectName: p.name,
-        }))
-      ),
-    [data]
-  )
-
   const load = async () => {
     setError(null)
     setLoading(true)
     try {
-      const envs = await authedRequest<Environment[]>('/api/envs')
+      const envs = await fetchAllPages<Environment>((p) => authedRequest<Page<Environment>>(p), '/api/envs')
       const projectsByEnv = await Promise.all(
         envs.map(async (env) => {
-          const projects = await authedRequest<Project[]>(`/api/envs/${env.id}/projects`)
+          const projects = await fetchAllPages<Project>((p) => authedRequest<Page<Project>>(p), `/api/envs/${env.id}/projects`)
           return { env, projects } satisfies EnvWithProjects
         })
       )
@@ -83,32 +49,10 @@ export function DashboardPage() {
     setSearching(true)
     setError(null)
     try {
-      const maxHits = 50
-      const projectRefs = allProjects
-
-      const perProjectCreds = await mapLimit(
-        projectRefs,
-        6,
-        async ({ envId, envName, projectId, projectName }) => {
-          const creds = await authedRequest<Credential[]>(
-            `/api/envs/${envId}/projects/${projectId}/credentials`
-          )
-          const matches = creds.filter((c) => c.key.toLowerCase().includes(q.toLowerCase()))
-          return matches.map(
-            (credential) =>
-              ({
-                envId,
-                envName,
-                projectId,
-                projectName,
-                credential,
-              }) satisfies SearchHit
-          )
-        }
+      const result = await authedRequest<SearchResult>(
+        `/api/search?q=${encodeURIComponent(q)}&kind=credential&limit=50`
       )
-
-      const flattened = perProjectCreds.flat().slice(0, maxHits)
-      setHits(flattened)
+      setHits(result.hits)
     } catch (e) {
       const err = e as ApiError
       setError(err.message)
@@ -125,7 +69,7 @@ export function DashboardPage() {
   useEffect(() => {
     void runSearch()
     // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [q, allProjects.length])
+  }, [q])
 
   return (
     <div className="stack">
@@ -177,10 +121,10 @@ export function DashboardPage() {
                 </thead>
                 <tbody>
                   {hits.map((h) => (
-                    <tr key={`${h.projectId}:${h.credential.id}`}>
+                    <tr key={h.id}>
                       <td className="muted">{h.envName}</td>
                       <td style={{ fontWeight: 600 }}>{h.projectName}</td>
-                      <td className="mono wrap">{h.credential.key}</td>
+                      <td className="mono wrap">{h.key}</td>
                       <td>
                         <Link className="btn primary" to={`/projects/${h.envId}/${h.projectId}`}>
                           Credentials
@@ -1,8 +1,8 @@
 import { useEffect, useMemo, useState } from 'react'
 import { Link } from 'react-router-dom'
-import type { ApiError } from '../lib/api'
+import { fetchAllPages, type ApiError } from '../lib/api'
 import { useAuth } from '../lib/auth'
-import type { Environment } from '../lib/types'
+import type { Environment, Page } from '../lib/types'
 import { TableSkeleton } from '../components/TableSkeleton'
 
 type Draft = { name: string; colorCode: string }
@@ -31,7 +31,7 @@ export function EnvironmentsPage() {
     setError(null)
     setLoading(true)
     try {
-      const data = await authedRequest<Environment[]>('/api/envs')
+      const data = await fetchAllPages<Environment>((p) => authedRequest<Page<Environment>>(p), '/api/envs')
       setEnvs(data)
     } catch (e) {
       const err = e as ApiError
@@ -1,8 +1,8 @@
 import { useEffect, useMemo, useState } from 'react'
 import { Link, useParams } from 'react-router-dom'
-import type { ApiError } from '../lib/api'
+import { fetchAllPages, type ApiError } from '../lib/api'
 import { useAuth } from '../lib/auth'
-import type { Project } from '../lib/types'
+import type { Page, Project } from '../lib/types'
 import { TableSkeleton } from '../components/TableSkeleton'
 
 type Draft = {
@@ -31,7 +31,7 @@ export function ProjectsPage() {
     setError(null)
     setLoading(true)
     try {
-      const data = await authedRequest<Project[]>(`/api/envs/${envId}/projects`)
+      const data = await fetchAllPages<Project>((p) => authedRequest<Page<Project>>(p), `/api/envs/${envId}/projects`)
       setProjects(data)
     } catch (e) {
       const err = e as ApiError